@@ -0,0 +1,43 @@
+package io.github.mkmax.opticview.expression;
+
+import io.github.mkmax.opticview.model.IRealFunction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/* A compiled Cauchy fit against the same formula written as a lambda. */
+@State (Scope.Thread)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class ExpressionBenchmark {
+
+    private final IRealFunction
+        compiled = Expression.parse ("1.458 + 0.00354 / x^2 + 2e-5 / x^4").compile ("x", Map.of ()),
+        handWritten = x -> 1.458d + 0.00354d / (x * x) + 2e-5d / (x * x * (x * x));
+
+    private final double[]
+        lambda = new double[4096],
+        out = new double[4096];
+
+    @Setup
+    public void setup () {
+        for (int i = 0; i < lambda.length; ++i)
+            lambda[i] = 0.4d + 1.6d * i / lambda.length;
+    }
+
+    @Benchmark
+    public double[] compiled () {
+        compiled.eval (lambda, out, 0, lambda.length);
+        return out;
+    }
+
+    @Benchmark
+    public double[] handWritten () {
+        handWritten.eval (lambda, out, 0, lambda.length);
+        return out;
+    }
+}
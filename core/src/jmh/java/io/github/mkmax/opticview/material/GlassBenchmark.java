@@ -0,0 +1,46 @@
+package io.github.mkmax.opticview.material;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/* Refractive index evaluation per material, one wavelength at a time and
+ * through the bulk method. */
+@State (Scope.Thread)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class GlassBenchmark {
+
+    private static final int SAMPLES = 4096;
+
+    @Param ({ "UVFS", "N_BK7", "CaF2", "ZnSe" })
+    public String material;
+
+    private Glass glass;
+    private final double[]
+        lambda = new double[SAMPLES],
+        out = new double[SAMPLES];
+
+    @Setup
+    public void setup () {
+        glass = Glass.valueOf (material);
+        for (int i = 0; i < SAMPLES; ++i)
+            lambda[i] = 0.25d + i * (2.25d / SAMPLES);
+    }
+
+    @Benchmark
+    public void scalar (Blackhole bh) {
+        for (int i = 0; i < SAMPLES; ++i)
+            bh.consume (glass.calcRefractiveIndex (lambda[i]));
+    }
+
+    @Benchmark
+    public double[] bulk () {
+        glass.calcRefractiveIndex (lambda, out, 0, SAMPLES);
+        return out;
+    }
+}
@@ -0,0 +1,105 @@
+package io.github.mkmax.opticview.sampling;
+
+import io.github.mkmax.opticview.material.Glass;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/* The graph's sampling and decimation passes on the focal length curve of an
+ * N-BK7 lens. The sampling package has no JavaFX dependencies, so this is
+ * exactly the work a plot does off the FX thread.
+ */
+@State (Scope.Thread)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class SamplingBenchmark {
+
+    private static final int
+        MAX_SAMPLES  = 1 << 16,
+        HUGE_SAMPLES = 1 << 22;
+    private static final double
+        LENS_RADIUS = 25d,
+        START       = 0.3d,
+        END         = 2.5d,
+        STEP        = (END - START) / (MAX_SAMPLES - 1),
+        HUGE_STEP   = (END - START) / (HUGE_SAMPLES - 1),
+        PLOT_WIDTH  = 1024d,
+        PLOT_HEIGHT = 768d;
+
+    /* the same function, evaluated one sample at a time or a run at a time */
+    private final IGridFunction
+        scalar = lambda -> LENS_RADIUS / (Glass.N_BK7.calcRefractiveIndex (lambda) - 1d),
+        grid = new IGridFunction () {
+            @Override
+            public double applyAsDouble (double lambda) {
+                return LENS_RADIUS / (Glass.N_BK7.calcRefractiveIndex (lambda) - 1d);
+            }
+
+            @Override
+            public void applyAsDouble (double[] lambda, double[] out, int from, int to) {
+                Glass.N_BK7.calcRefractiveIndex (lambda, out, from, to);
+                for (int i = from; i < to; ++i)
+                    out[i] = LENS_RADIUS / (out[i] - 1d);
+            }
+        };
+
+    private final SampleBuffer
+        samples = new SampleBuffer (MAX_SAMPLES),
+        sampled = new SampleBuffer (MAX_SAMPLES),
+        huge = new SampleBuffer (HUGE_SAMPLES),
+        shown = new SampleBuffer ();
+
+    @Setup
+    public void setup () {
+        UniformSampler.sample (grid, START, STEP, END, MAX_SAMPLES, samples);
+    }
+
+    @Benchmark
+    public SampleBuffer uniformScalar () {
+        UniformSampler.sample (scalar, START, STEP, END, MAX_SAMPLES, sampled);
+        return sampled;
+    }
+
+    @Benchmark
+    public SampleBuffer uniformGrid () {
+        UniformSampler.sample (grid, START, STEP, END, MAX_SAMPLES, sampled);
+        return sampled;
+    }
+
+    /* a validation sized grid, serial and split across the common pool; the
+     * ratio of the two is the scaling over the cores */
+    @Benchmark
+    public SampleBuffer hugeSerial () {
+        UniformSampler.sample (grid, START, HUGE_STEP, END, HUGE_SAMPLES, huge);
+        return huge;
+    }
+
+    @Benchmark
+    public SampleBuffer hugeParallel () {
+        UniformSampler.sampleParallel (grid, START, HUGE_STEP, END, HUGE_SAMPLES, huge, ForkJoinPool.commonPool ());
+        return huge;
+    }
+
+    @Benchmark
+    public SampleBuffer adaptive () {
+        AdaptiveSampler.sample (grid, START, STEP, END,
+            PLOT_WIDTH, PLOT_HEIGHT, AdaptiveSampler.DEFAULT_TOLERANCE, sampled);
+        return sampled;
+    }
+
+    @Benchmark
+    public SampleBuffer decimateMinMax () {
+        Decimator.decimate (Decimator.Mode.MIN_MAX, samples, 0, samples.size (), START, END, (int) PLOT_WIDTH, shown);
+        return shown;
+    }
+
+    @Benchmark
+    public SampleBuffer decimateLttb () {
+        Decimator.decimate (Decimator.Mode.LTTB, samples, 0, samples.size (), START, END, (int) PLOT_WIDTH, shown);
+        return shown;
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.mkmax.opticview.units;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/* Unit conversion, which runs for every displayed sample. */
+@State (Scope.Thread)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.NANOSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class MetricDistanceBenchmark {
+
+    /* read from fields so the JIT cannot constant fold the conversions */
+    private MetricDistance
+        source = MetricDistance.NANOMETERS,
+        dest = MetricDistance.MILLIMETERS;
+    private double value = 632.8d;
+
+    private final ConversionPlan plan = MetricDistance.MILLIMETERS.planFrom (MetricDistance.NANOMETERS);
+    private final double[]
+        values = new double[4096],
+        converted = new double[4096];
+
+    @Benchmark
+    public double convertFrom () {
+        return dest.convertFrom (source, value);
+    }
+
+    @Benchmark
+    public double getMultiplierTo () {
+        return source.getMultiplierTo (dest);
+    }
+
+    @Benchmark
+    public double planConvert () {
+        return plan.convert (value);
+    }
+
+    @Benchmark
+    public double[] convertEachFrom () {
+        for (int i = 0; i < values.length; ++i)
+            converted[i] = dest.convertFrom (source, values[i]);
+        return converted;
+    }
+
+    @Benchmark
+    public double[] planConvertBulk () {
+        plan.convert (values, converted, 0, values.length);
+        return converted;
+    }
+}
@@ -0,0 +1,36 @@
+package io.github.mkmax.opticview.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/* Pair iteration, as used to validate the graph's supported units, over
+ * lists far larger than any unit list. */
+@State (Scope.Thread)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class ListUtilsBenchmark {
+
+    @Param ({ "16", "256", "2048" })
+    public int size;
+
+    private List<Integer> list;
+
+    @Setup
+    public void setup () {
+        list = new ArrayList<> (size);
+        for (int i = 0; i < size; ++i)
+            list.add (i);
+    }
+
+    @Benchmark
+    public void pairCombinationIterator (Blackhole bh) {
+        ListUtils.pairCombinationIterator (list, (a, b) -> bh.consume (a + b));
+    }
+}
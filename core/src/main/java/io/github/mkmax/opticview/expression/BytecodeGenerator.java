@@ -0,0 +1,316 @@
+package io.github.mkmax.opticview.expression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/* Writes the class file of a final class implementing a single abstract
+ * method that evaluates an expression tree.
+ *
+ * The method takes its variables as double parameters and runs the tree as
+ * straight line code: loads, constants, arithmetic and static calls into
+ * java.lang.Math. There are no branches, so the class needs no stack map
+ * frames, and the JIT compiles it exactly like the equivalent Java source.
+ */
+final class BytecodeGenerator {
+
+    /* +-----------+ */
+    /* | CONSTANTS | */
+    /* +-----------+ */
+
+    /* class file version 52 (Java 8) is the oldest that carries everything
+     * used here, and a straight line method needs no StackMapTable */
+    private static final int
+        MAJOR_VERSION = 52,
+        ACC_PUBLIC    = 0x0001,
+        ACC_FINAL     = 0x0010,
+        ACC_SUPER     = 0x0020;
+
+    /* constant pool tags */
+    private static final int
+        CONSTANT_UTF8         = 1,
+        CONSTANT_DOUBLE       = 6,
+        CONSTANT_CLASS        = 7,
+        CONSTANT_METHODREF    = 10,
+        CONSTANT_NAME_AND_TYPE = 12;
+
+    /* opcodes */
+    private static final int
+        DCONST_0      = 0x0e,
+        DCONST_1      = 0x0f,
+        LDC2_W        = 0x14,
+        DLOAD         = 0x18,
+        ALOAD_0       = 0x2a,
+        DUP2          = 0x5c,
+        DADD          = 0x63,
+        DSUB          = 0x67,
+        DMUL          = 0x6b,
+        DDIV          = 0x6f,
+        DREM          = 0x73,
+        DNEG          = 0x77,
+        DRETURN       = 0xaf,
+        RETURN        = 0xb1,
+        INVOKESPECIAL = 0xb7,
+        INVOKESTATIC  = 0xb8;
+
+    /* +---------------+ */
+    /* | CONSTANT POOL | */
+    /* +---------------+ */
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream ();
+    private final DataOutputStream pool = new DataOutputStream (poolBytes);
+    private final Map<String, Integer> poolIndices = new HashMap<> ();
+    private int poolCount = 1;
+
+    private int utf8 (String value) throws IOException {
+        final Integer known = poolIndices.get ("U" + value);
+        if (known != null)
+            return known;
+        pool.writeByte (CONSTANT_UTF8);
+        pool.writeUTF (value);
+        poolIndices.put ("U" + value, poolCount);
+        return poolCount++;
+    }
+
+    private int classRef (String internalName) throws IOException {
+        final Integer known = poolIndices.get ("C" + internalName);
+        if (known != null)
+            return known;
+        final int name = utf8 (internalName);
+        pool.writeByte (CONSTANT_CLASS);
+        pool.writeShort (name);
+        poolIndices.put ("C" + internalName, poolCount);
+        return poolCount++;
+    }
+
+    private int methodRef (String owner, String name, String descriptor) throws IOException {
+        final String key = "M" + owner + "." + name + descriptor;
+        final Integer known = poolIndices.get (key);
+        if (known != null)
+            return known;
+        final int ownerIndex = classRef (owner);
+        final int nameIndex = utf8 (name), descriptorIndex = utf8 (descriptor);
+        pool.writeByte (CONSTANT_NAME_AND_TYPE);
+        pool.writeShort (nameIndex);
+        pool.writeShort (descriptorIndex);
+        final int nameAndType = poolCount++;
+        pool.writeByte (CONSTANT_METHODREF);
+        pool.writeShort (ownerIndex);
+        pool.writeShort (nameAndType);
+        poolIndices.put (key, poolCount);
+        return poolCount++;
+    }
+
+    private int doubleConstant (double value) throws IOException {
+        final String key = "D" + Double.doubleToRawLongBits (value);
+        final Integer known = poolIndices.get (key);
+        if (known != null)
+            return known;
+        pool.writeByte (CONSTANT_DOUBLE);
+        pool.writeDouble (value);
+        poolIndices.put (key, poolCount);
+        final int index = poolCount;
+        poolCount += 2; /* doubles take two pool entries */
+        return index;
+    }
+
+    /* +------------+ */
+    /* | GENERATION | */
+    /* +------------+ */
+
+    /* Returns the class file of a public final class with the given internal
+     * name, implementing the interface method (taking one double per
+     * variable and returning a double) by evaluating root. Variables are read
+     * from the parameters named in order, and constants from the map.
+     */
+    static byte[] generate (
+        String              className,
+        String              interfaceName,
+        String              methodName,
+        Node                root,
+        List<String>        variables,
+        Map<String, Double> constants)
+    {
+        try {
+            return new BytecodeGenerator ().write (className, interfaceName, methodName, root, variables, constants);
+        }
+        catch (IOException e) {
+            /* only in-memory streams are written */
+            throw new UncheckedIOException (e);
+        }
+    }
+
+    private byte[] write (
+        String              className,
+        String              interfaceName,
+        String              methodName,
+        Node                root,
+        List<String>        variables,
+        Map<String, Double> constants) throws IOException
+    {
+        final int thisClass = classRef (className);
+        final int superClass = classRef ("java/lang/Object");
+        final int iface = classRef (interfaceName);
+        final int codeName = utf8 ("Code");
+
+        /* constructor: super () */
+        final int objectInit = methodRef ("java/lang/Object", "<init>", "()V");
+        final ByteArrayOutputStream initCode = new ByteArrayOutputStream ();
+        initCode.write (ALOAD_0);
+        initCode.write (INVOKESPECIAL);
+        writeShort (initCode, objectInit);
+        initCode.write (RETURN);
+
+        /* the evaluating method; parameter k sits in local slot 1 + 2k */
+        final StringBuilder descriptor = new StringBuilder ("(");
+        for (int i = 0; i < variables.size (); ++i)
+            descriptor.append ('D');
+        descriptor.append (")D");
+        final ByteArrayOutputStream evalCode = new ByteArrayOutputStream ();
+        emit (evalCode, root, variables, constants);
+        evalCode.write (DRETURN);
+
+        final List<byte[]> methods = new ArrayList<> ();
+        methods.add (method (ACC_PUBLIC, utf8 ("<init>"), utf8 ("()V"), codeName, 1, 1, initCode.toByteArray ()));
+        methods.add (method (ACC_PUBLIC | ACC_FINAL, utf8 (methodName), utf8 (descriptor.toString ()), codeName,
+            root.stackSlots (), 1 + 2 * variables.size (), evalCode.toByteArray ()));
+
+        /* assemble the class file */
+        final ByteArrayOutputStream classBytes = new ByteArrayOutputStream ();
+        final DataOutputStream out = new DataOutputStream (classBytes);
+        out.writeInt (0xCAFEBABE);
+        out.writeShort (0);
+        out.writeShort (MAJOR_VERSION);
+        out.writeShort (poolCount);
+        pool.flush ();
+        out.write (poolBytes.toByteArray ());
+        out.writeShort (ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+        out.writeShort (thisClass);
+        out.writeShort (superClass);
+        out.writeShort (1);
+        out.writeShort (iface);
+        out.writeShort (0); /* fields */
+        out.writeShort (methods.size ());
+        for (byte[] method : methods)
+            out.write (method);
+        out.writeShort (0); /* attributes */
+        out.flush ();
+        return classBytes.toByteArray ();
+    }
+
+    private static byte[] method (int access, int name, int descriptor, int codeName, int maxStack, int maxLocals, byte[] code)
+        throws IOException
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream ();
+        final DataOutputStream out = new DataOutputStream (bytes);
+        out.writeShort (access);
+        out.writeShort (name);
+        out.writeShort (descriptor);
+        out.writeShort (1); /* attributes: Code */
+        out.writeShort (codeName);
+        out.writeInt (2 + 2 + 4 + code.length + 2 + 2);
+        out.writeShort (maxStack);
+        out.writeShort (maxLocals);
+        out.writeInt (code.length);
+        out.write (code);
+        out.writeShort (0); /* exception table */
+        out.writeShort (0); /* attributes */
+        out.flush ();
+        return bytes.toByteArray ();
+    }
+
+    /* +--------------+ */
+    /* | INSTRUCTIONS | */
+    /* +--------------+ */
+
+    /* recurses once per level of the tree, which the parser keeps shallow */
+    private void emit (ByteArrayOutputStream code, Node node, List<String> variables, Map<String, Double> constants)
+        throws IOException
+    {
+        if (node instanceof Node.Constant)
+            emitConstant (code, ((Node.Constant) node).value);
+        else if (node instanceof Node.Variable) {
+            final Node.Variable variable = (Node.Variable) node;
+            final int index = variables.indexOf (variable.name);
+            if (index >= 0) {
+                code.write (DLOAD);
+                code.write (1 + 2 * index);
+            }
+            else if (constants.containsKey (variable.name))
+                emitConstant (code, constants.get (variable.name));
+            else
+                throw new ExpressionException ("unknown name " + variable.name, variable.position);
+        }
+        else if (node instanceof Node.Negate) {
+            emit (code, ((Node.Negate) node).operand, variables, constants);
+            code.write (DNEG);
+        }
+        else if (node instanceof Node.Binary) {
+            final Node.Binary binary = (Node.Binary) node;
+            emit (code, binary.left, variables, constants);
+            emit (code, binary.right, variables, constants);
+            switch (binary.operator) {
+                case '+': code.write (DADD); break;
+                case '-': code.write (DSUB); break;
+                case '*': code.write (DMUL); break;
+                case '/': code.write (DDIV); break;
+                case '%': code.write (DREM); break;
+                default:  throw new IllegalStateException ("unknown operator " + binary.operator);
+            }
+        }
+        else if (node instanceof Node.IntegerPower) {
+            final Node.IntegerPower power = (Node.IntegerPower) node;
+            emit (code, power.base, variables, constants);
+            switch (power.exponent) {
+                case 2:
+                    code.write (DUP2);
+                    code.write (DMUL);
+                    break;
+                case 3:
+                    code.write (DUP2);
+                    code.write (DUP2);
+                    code.write (DMUL);
+                    code.write (DMUL);
+                    break;
+                case 4:
+                    code.write (DUP2);
+                    code.write (DMUL);
+                    code.write (DUP2);
+                    code.write (DMUL);
+                    break;
+                default:
+                    throw new IllegalStateException ("unexpanded exponent " + power.exponent);
+            }
+        }
+        else if (node instanceof Node.Call) {
+            final Node.Call call = (Node.Call) node;
+            for (Node arg : call.args)
+                emit (code, arg, variables, constants);
+            code.write (INVOKESTATIC);
+            writeShort (code, methodRef ("java/lang/Math", call.function.NAME, call.function.descriptor ()));
+        }
+        else
+            throw new IllegalStateException ("unknown node " + node.getClass ());
+    }
+
+    private void emitConstant (ByteArrayOutputStream code, double value) throws IOException {
+        /* raw bits, so -0.0 is not mistaken for 0.0 */
+        if (Double.doubleToRawLongBits (value) == Double.doubleToRawLongBits (0d))
+            code.write (DCONST_0);
+        else if (value == 1d)
+            code.write (DCONST_1);
+        else {
+            code.write (LDC2_W);
+            writeShort (code, doubleConstant (value));
+        }
+    }
+
+    private static void writeShort (ByteArrayOutputStream code, int value) {
+        code.write ((value >>> 8) & 0xFF);
+        code.write (value & 0xFF);
+    }
+}
@@ -0,0 +1,131 @@
+package io.github.mkmax.opticview.expression;
+
+import io.github.mkmax.opticview.model.IRealFunction;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleBinaryOperator;
+
+/* A user supplied arithmetic expression, compiled to JVM bytecode.
+ *
+ * Expressions support + - * / % and ^ (power), parentheses, the constants pi
+ * and e, and the functions of java.lang.Math listed in Node.Function, such
+ * as sqrt, exp, log, sin and pow. Every other name is either a variable or a
+ * constant bound when compiling, for example
+ *
+ *     1.4580 + 0.00354 / lambda^2      (a Cauchy fit)
+ *     R / (n - 1)                      (a plano-convex lens)
+ *
+ * Compiling generates a small class whose method is the expression written
+ * out as straight line bytecode, with bound constants inlined, so once the
+ * JIT has compiled it an evaluation costs the same as a hand-written lambda.
+ * No interpreter runs in the sampling loop. Each class gets a class loader
+ * of its own, so it is unloaded once its function is no longer used.
+ */
+public final class Expression {
+
+    /* every compiled expression is a new class, numbered for stack traces */
+    private static final String CLASS_PREFIX =
+        Expression.class.getPackageName () + ".compiled.CompiledExpression$";
+    private static final AtomicInteger CLASS_COUNTER = new AtomicInteger ();
+
+    /* +--------------------------+ */
+    /* | MEMBERS & INITIALIZATION | */
+    /* +--------------------------+ */
+    private final String source;
+    private final Node root;
+    private final Set<String> names;
+
+    private Expression (String pSource, Node pRoot) {
+        source = pSource;
+        root = pRoot;
+        final Set<String> collected = new TreeSet<> ();
+        root.collectNames (collected);
+        names = Collections.unmodifiableSet (collected);
+    }
+
+    /* Parses an expression, throwing an ExpressionException pointing at the
+     * first problem found.
+     */
+    public static Expression parse (String source) {
+        Objects.requireNonNull (source, "an expression must be specified");
+        return new Expression (source, ExpressionParser.parse (source));
+    }
+
+    /* +-----------+ */
+    /* | INTERFACE | */
+    /* +-----------+ */
+    public String getSource () {
+        return source;
+    }
+
+    /* Returns the names the expression reads, other than pi and e. */
+    public Set<String> getNames () {
+        return names;
+    }
+
+    /* Evaluates the expression without compiling it, reading every name
+     * from values. Meant for one-off evaluations; compile for loops.
+     */
+    public double evaluate (Map<String, Double> values) {
+        return root.evaluate (Objects.requireNonNull (values));
+    }
+
+    /* Compiles the expression into a function of one variable. Every other
+     * name must be bound in constants.
+     */
+    public IRealFunction compile (String variable, Map<String, Double> constants) {
+        return (IRealFunction) define (IRealFunction.class, "eval", List.of (variable), constants);
+    }
+
+    /* Compiles the expression into a function of two variables, taken in the
+     * order given. Every other name must be bound in constants.
+     */
+    public DoubleBinaryOperator compile (String first, String second, Map<String, Double> constants) {
+        return (DoubleBinaryOperator) define (DoubleBinaryOperator.class, "applyAsDouble", List.of (first, second), constants);
+    }
+
+    @Override
+    public String toString () {
+        return source;
+    }
+
+    /* +----------+ */
+    /* | INTERNAL | */
+    /* +----------+ */
+    private Object define (Class<?> iface, String method, List<String> variables, Map<String, Double> constants) {
+        Objects.requireNonNull (constants, "constants must be specified, even if empty");
+        for (String name : names)
+            if (!variables.contains (name) && !constants.containsKey (name))
+                throw new ExpressionException ("unknown name " + name, -1);
+
+        final String className = CLASS_PREFIX + CLASS_COUNTER.incrementAndGet ();
+        final byte[] bytes = BytecodeGenerator.generate (
+            className.replace ('.', '/'), iface.getName ().replace ('.', '/'), method, root, variables, constants);
+        try {
+            final Class<?> compiled = new CompiledLoader (Expression.class.getClassLoader ()).define (className, bytes);
+            return compiled.getConstructor ().newInstance ();
+        }
+        catch (ReflectiveOperationException | LinkageError e) {
+            throw new ExpressionException ("failed to compile: " + e, -1);
+        }
+    }
+
+    /* Holds a single compiled class. The class keeps its loader alive and
+     * nothing else refers to either, so both go as soon as the function does.
+     */
+    private static final class CompiledLoader extends ClassLoader {
+        CompiledLoader (ClassLoader pParent) {
+            super (pParent);
+        }
+
+        Class<?> define (String name, byte[] bytes) {
+            return defineClass (name, bytes, 0, bytes.length);
+        }
+    }
+}
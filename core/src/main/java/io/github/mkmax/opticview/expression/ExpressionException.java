@@ -0,0 +1,19 @@
+package io.github.mkmax.opticview.expression;
+
+/* An exception thrown for an expression that cannot be parsed or compiled.
+ * The position is the character offset in the source the problem was found
+ * at, or -1 when it concerns the expression as a whole.
+ */
+public class ExpressionException extends RuntimeException {
+
+    private final int position;
+
+    public ExpressionException (String pMessage, int pPosition) {
+        super (pPosition < 0 ? pMessage : pMessage + " (at character " + (pPosition + 1) + ")");
+        position = pPosition;
+    }
+
+    public int getPosition () {
+        return position;
+    }
+}
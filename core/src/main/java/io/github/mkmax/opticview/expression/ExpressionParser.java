@@ -0,0 +1,259 @@
+package io.github.mkmax.opticview.expression;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/* A recursive descent parser for arithmetic expressions:
+ *
+ *     sum     := product (('+' | '-') product)*
+ *     product := unary (('*' | '/' | '%') unary)*
+ *     unary   := ('-' | '+') unary | power
+ *     power   := primary ('^' unary)?
+ *     primary := number | name | name '(' sum (',' sum)* ')' | '(' sum ')'
+ *
+ * Powers bind tighter than a leading minus and associate to the right, so
+ * -x^2 is -(x^2) and 2^3^2 is 2^9. Constant sub-expressions are folded as
+ * they are parsed.
+ *
+ * Parsing, compiling and evaluating all recurse down the tree, so the
+ * source length, the nesting and the depth of the tree are limited, well
+ * within what any thread's stack holds.
+ */
+final class ExpressionParser {
+
+    /* +-----------+ */
+    /* | CONSTANTS | */
+    /* +-----------+ */
+    static final int
+        MAX_LENGTH = 4096,
+        MAX_DEPTH  = 256;
+
+    /* the names every expression knows */
+    private static final Map<String, Double> BUILTIN_CONSTANTS = Map.of (
+        "pi", Math.PI,
+        "e",  Math.E);
+
+    /* +--------------------------+ */
+    /* | MEMBERS & INITIALIZATION | */
+    /* +--------------------------+ */
+    private final String source;
+    private int position = 0;
+    private int nesting = 0;
+
+    private ExpressionParser (String pSource) {
+        source = pSource;
+    }
+
+    static Node parse (String source) {
+        if (source.length () > MAX_LENGTH)
+            throw new ExpressionException ("the expression is too long (over " + MAX_LENGTH + " characters)", -1);
+        final ExpressionParser parser = new ExpressionParser (source);
+        parser.skipSpace ();
+        if (parser.atEnd ())
+            throw new ExpressionException ("the expression is empty", -1);
+        final Node root = parser.sum ();
+        if (!parser.atEnd ())
+            throw new ExpressionException ("unexpected '" + source.charAt (parser.position) + "'", parser.position);
+        return root;
+    }
+
+    /* +---------+ */
+    /* | GRAMMAR | */
+    /* +---------+ */
+    private Node sum () {
+        Node node = product ();
+        while (peek ('+') || peek ('-')) {
+            final int at = position;
+            final char operator = next ();
+            node = limit (binary (operator, node, product ()), at);
+        }
+        return node;
+    }
+
+    private Node product () {
+        Node node = unary ();
+        while (peek ('*') || peek ('/') || peek ('%')) {
+            final int at = position;
+            final char operator = next ();
+            node = limit (binary (operator, node, unary ()), at);
+        }
+        return node;
+    }
+
+    /* every level of nesting, be it parentheses, signs, powers or calls,
+     * passes through here */
+    private Node unary () {
+        final int at = position;
+        if (++nesting > MAX_DEPTH)
+            throw new ExpressionException ("the expression is nested too deeply (over " + MAX_DEPTH + " levels)", at);
+        try {
+            if (peek ('-')) {
+                next ();
+                final Node operand = unary ();
+                return operand.isConstant () ?
+                    new Node.Constant (-((Node.Constant) operand).value) :
+                    limit (new Node.Negate (operand), at);
+            }
+            if (peek ('+')) {
+                next ();
+                return unary ();
+            }
+            return limit (power (), at);
+        }
+        finally {
+            --nesting;
+        }
+    }
+
+    private Node power () {
+        final Node base = primary ();
+        if (!peek ('^'))
+            return base;
+        next ();
+        final Node exponent = unary ();
+
+        /* small integer powers are multiplied out */
+        if (exponent.isConstant () && !base.isConstant ()) {
+            final double value = ((Node.Constant) exponent).value;
+            if (value == 1d)
+                return base;
+            if (value == 2d || value == 3d || value == 4d)
+                return new Node.IntegerPower (base, (int) value);
+        }
+        return call (Node.Function.POW, new Node[] { base, exponent });
+    }
+
+    private Node primary () {
+        final int start = position;
+        if (peek ('(')) {
+            next ();
+            final Node inner = sum ();
+            expect (')');
+            return inner;
+        }
+        if (!atEnd () && (Character.isDigit (source.charAt (position)) || source.charAt (position) == '.'))
+            return number ();
+        if (!atEnd () && isNameStart (source.charAt (position))) {
+            final String name = name ();
+            if (peek ('('))
+                return function (name, start);
+            final Double constant = BUILTIN_CONSTANTS.get (name);
+            return constant != null ? new Node.Constant (constant) : new Node.Variable (name, start);
+        }
+        if (atEnd ())
+            throw new ExpressionException ("the expression ends too early", position);
+        throw new ExpressionException ("unexpected '" + source.charAt (position) + "'", position);
+    }
+
+    private Node function (String name, int start) {
+        final Node.Function function = Node.Function.find (name);
+        if (function == null)
+            throw new ExpressionException ("unknown function " + name, start);
+
+        expect ('(');
+        final List<Node> args = new ArrayList<> ();
+        args.add (sum ());
+        while (peek (',')) {
+            next ();
+            args.add (sum ());
+        }
+        expect (')');
+        if (args.size () != function.ARITY)
+            throw new ExpressionException (name + " takes " + function.ARITY + " argument(s)", start);
+        return call (function, args.toArray (new Node[0]));
+    }
+
+    /* +--------+ */
+    /* | LIMITS | */
+    /* +--------+ */
+
+    /* rejects trees too deep to be walked safely; long sums and products
+     * grow the tree without nesting the source */
+    private static Node limit (Node node, int at) {
+        if (node.depth () > MAX_DEPTH)
+            throw new ExpressionException ("the expression is nested too deeply (over " + MAX_DEPTH + " levels)", at);
+        return node;
+    }
+
+    /* +------------------+ */
+    /* | CONSTANT FOLDING | */
+    /* +------------------+ */
+    private static Node binary (char operator, Node left, Node right) {
+        final Node node = new Node.Binary (operator, left, right);
+        return left.isConstant () && right.isConstant () ? new Node.Constant (node.evaluate (Map.of ())) : node;
+    }
+
+    private static Node call (Node.Function function, Node[] args) {
+        final Node node = new Node.Call (function, args);
+        for (Node arg : args)
+            if (!arg.isConstant ())
+                return node;
+        return new Node.Constant (node.evaluate (Map.of ()));
+    }
+
+    /* +--------+ */
+    /* | TOKENS | */
+    /* +--------+ */
+    private Node number () {
+        final int start = position;
+        while (!atEnd () && (Character.isDigit (source.charAt (position)) || source.charAt (position) == '.'))
+            ++position;
+        if (!atEnd () && (source.charAt (position) == 'e' || source.charAt (position) == 'E')) {
+            final int mark = position++;
+            if (!atEnd () && (source.charAt (position) == '+' || source.charAt (position) == '-'))
+                ++position;
+            if (atEnd () || !Character.isDigit (source.charAt (position)))
+                position = mark; /* the e belongs to whatever follows */
+            else
+                while (!atEnd () && Character.isDigit (source.charAt (position)))
+                    ++position;
+        }
+        final String text = source.substring (start, position);
+        skipSpace ();
+        try {
+            return new Node.Constant (Double.parseDouble (text));
+        }
+        catch (NumberFormatException e) {
+            throw new ExpressionException ("malformed number " + text, start);
+        }
+    }
+
+    private String name () {
+        final int start = position;
+        while (!atEnd () && (isNameStart (source.charAt (position)) || Character.isDigit (source.charAt (position))))
+            ++position;
+        final String name = source.substring (start, position);
+        skipSpace ();
+        return name;
+    }
+
+    private static boolean isNameStart (char c) {
+        return Character.isLetter (c) || c == '_';
+    }
+
+    private boolean peek (char c) {
+        return !atEnd () && source.charAt (position) == c;
+    }
+
+    private char next () {
+        final char c = source.charAt (position++);
+        skipSpace ();
+        return c;
+    }
+
+    private void expect (char c) {
+        if (!peek (c))
+            throw new ExpressionException ("expected '" + c + "'", position);
+        next ();
+    }
+
+    private boolean atEnd () {
+        return position >= source.length ();
+    }
+
+    private void skipSpace () {
+        while (!atEnd () && Character.isWhitespace (source.charAt (position)))
+            ++position;
+    }
+}
@@ -0,0 +1,304 @@
+package io.github.mkmax.opticview.expression;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/* The syntax tree of a parsed expression. Nodes are immutable; anything
+ * that only involves constants is folded away while the tree is built.
+ */
+abstract class Node {
+
+    /* +-----------+ */
+    /* | FUNCTIONS | */
+    /* +-----------+ */
+
+    /* the functions an expression may call, each one a static method of
+     * java.lang.Math taking and returning doubles */
+    enum Function {
+        SQRT  ("sqrt",  Math::sqrt),
+        CBRT  ("cbrt",  Math::cbrt),
+        EXP   ("exp",   Math::exp),
+        LOG   ("log",   Math::log),
+        LOG10 ("log10", Math::log10),
+        SIN   ("sin",   Math::sin),
+        COS   ("cos",   Math::cos),
+        TAN   ("tan",   Math::tan),
+        ASIN  ("asin",  Math::asin),
+        ACOS  ("acos",  Math::acos),
+        ATAN  ("atan",  Math::atan),
+        SINH  ("sinh",  Math::sinh),
+        COSH  ("cosh",  Math::cosh),
+        TANH  ("tanh",  Math::tanh),
+        ABS   ("abs",   Math::abs),
+        FLOOR ("floor", Math::floor),
+        CEIL  ("ceil",  Math::ceil),
+        POW   ("pow",   Math::pow),
+        ATAN2 ("atan2", Math::atan2),
+        HYPOT ("hypot", Math::hypot),
+        MIN   ("min",   Math::min),
+        MAX   ("max",   Math::max);
+
+        final String NAME;
+        final int ARITY;
+        private final DoubleUnaryOperator unary;
+        private final DoubleBinaryOperator binary;
+
+        Function (String pName, DoubleUnaryOperator pUnary) {
+            NAME = pName;
+            ARITY = 1;
+            unary = pUnary;
+            binary = null;
+        }
+
+        Function (String pName, DoubleBinaryOperator pBinary) {
+            NAME = pName;
+            ARITY = 2;
+            unary = null;
+            binary = pBinary;
+        }
+
+        double apply (double[] args) {
+            return ARITY == 1 ? unary.applyAsDouble (args[0]) : binary.applyAsDouble (args[0], args[1]);
+        }
+
+        /* the JVM descriptor of the Math method */
+        String descriptor () {
+            return ARITY == 1 ? "(D)D" : "(DD)D";
+        }
+
+        static Function find (String name) {
+            for (Function function : values ())
+                if (function.NAME.equals (name))
+                    return function;
+            return null;
+        }
+    }
+
+    /* +--------------------------+ */
+    /* | MEMBERS & INITIALIZATION | */
+    /* +--------------------------+ */
+    private final int depth;
+
+    Node (int pDepth) {
+        depth = pDepth;
+    }
+
+    /* +-----------+ */
+    /* | INTERFACE | */
+    /* +-----------+ */
+
+    /* Evaluates the tree directly; used for constant folding and as the
+     * reference the compiled code is checked against.
+     */
+    abstract double evaluate (Map<String, Double> values);
+
+    /* Adds the names of every variable the tree reads. */
+    abstract void collectNames (Set<String> names);
+
+    /* Returns the number of operand stack slots the tree needs; a double
+     * takes two.
+     */
+    abstract int stackSlots ();
+
+    boolean isConstant () {
+        return this instanceof Constant;
+    }
+
+    /* Returns the number of nodes on the longest path down from this one;
+     * known when the node is built, so it costs no walk of the tree.
+     */
+    final int depth () {
+        return depth;
+    }
+
+    /* +-------+ */
+    /* | NODES | */
+    /* +-------+ */
+    static final class Constant extends Node {
+        final double value;
+
+        Constant (double pValue) {
+            super (1);
+            value = pValue;
+        }
+
+        @Override
+        double evaluate (Map<String, Double> values) {
+            return value;
+        }
+
+        @Override
+        void collectNames (Set<String> names) {
+        }
+
+        @Override
+        int stackSlots () {
+            return 2;
+        }
+    }
+
+    static final class Variable extends Node {
+        final String name;
+        final int position;
+
+        Variable (String pName, int pPosition) {
+            super (1);
+            name = pName;
+            position = pPosition;
+        }
+
+        @Override
+        double evaluate (Map<String, Double> values) {
+            final Double value = values.get (name);
+            if (value == null)
+                throw new ExpressionException ("unknown name " + name, position);
+            return value;
+        }
+
+        @Override
+        void collectNames (Set<String> names) {
+            names.add (name);
+        }
+
+        @Override
+        int stackSlots () {
+            return 2;
+        }
+    }
+
+    static final class Negate extends Node {
+        final Node operand;
+
+        Negate (Node pOperand) {
+            super (1 + pOperand.depth);
+            operand = pOperand;
+        }
+
+        @Override
+        double evaluate (Map<String, Double> values) {
+            return -operand.evaluate (values);
+        }
+
+        @Override
+        void collectNames (Set<String> names) {
+            operand.collectNames (names);
+        }
+
+        @Override
+        int stackSlots () {
+            return operand.stackSlots ();
+        }
+    }
+
+    static final class Binary extends Node {
+        final char operator;
+        final Node left, right;
+
+        Binary (char pOperator, Node pLeft, Node pRight) {
+            super (1 + Math.max (pLeft.depth, pRight.depth));
+            operator = pOperator;
+            left = pLeft;
+            right = pRight;
+        }
+
+        @Override
+        double evaluate (Map<String, Double> values) {
+            final double a = left.evaluate (values), b = right.evaluate (values);
+            switch (operator) {
+                case '+': return a + b;
+                case '-': return a - b;
+                case '*': return a * b;
+                case '/': return a / b;
+                case '%': return a % b;
+                default:  throw new IllegalStateException ("unknown operator " + operator);
+            }
+        }
+
+        @Override
+        void collectNames (Set<String> names) {
+            left.collectNames (names);
+            right.collectNames (names);
+        }
+
+        @Override
+        int stackSlots () {
+            return Math.max (left.stackSlots (), 2 + right.stackSlots ());
+        }
+    }
+
+    /* a power with a small non-negative integer exponent, compiled to
+     * repeated multiplication instead of a call to Math.pow */
+    static final class IntegerPower extends Node {
+        final Node base;
+        final int exponent;
+
+        IntegerPower (Node pBase, int pExponent) {
+            super (1 + pBase.depth);
+            base = pBase;
+            exponent = pExponent;
+        }
+
+        @Override
+        double evaluate (Map<String, Double> values) {
+            final double b = base.evaluate (values);
+            switch (exponent) {
+                case 2:  return b * b;
+                case 3:  return b * b * b;
+                case 4:  { final double sq = b * b; return sq * sq; }
+                default: throw new IllegalStateException ("unexpanded exponent " + exponent);
+            }
+        }
+
+        @Override
+        void collectNames (Set<String> names) {
+            base.collectNames (names);
+        }
+
+        @Override
+        int stackSlots () {
+            return base.stackSlots () + (exponent == 3 ? 4 : 2);
+        }
+    }
+
+    static final class Call extends Node {
+        final Function function;
+        final Node[] args;
+
+        Call (Function pFunction, Node[] pArgs) {
+            super (1 + maxDepth (pArgs));
+            function = pFunction;
+            args = pArgs;
+        }
+
+        @Override
+        double evaluate (Map<String, Double> values) {
+            final double[] evaluated = new double[args.length];
+            for (int i = 0; i < args.length; ++i)
+                evaluated[i] = args[i].evaluate (values);
+            return function.apply (evaluated);
+        }
+
+        @Override
+        void collectNames (Set<String> names) {
+            for (Node arg : args)
+                arg.collectNames (names);
+        }
+
+        @Override
+        int stackSlots () {
+            int slots = 0;
+            for (int i = 0; i < args.length; ++i)
+                slots = Math.max (slots, 2 * i + args[i].stackSlots ());
+            return slots;
+        }
+
+        private static int maxDepth (Node[] nodes) {
+            int depth = 0;
+            for (Node node : nodes)
+                depth = Math.max (depth, node.depth);
+            return depth;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package io.github.mkmax.opticview.io;
+
+/* The text fields of the CSV files written here. A field holding anything
+ * MappedSamples could take for a separator or a line break is quoted, so
+ * exported files read back with their columns where they were written.
+ */
+public final class CsvFields {
+
+    private CsvFields () {
+        /* static only */
+    }
+
+    /* Returns the value as a CSV field, in double quotes with its own
+     * quotes doubled if it needs them, and as it is otherwise.
+     */
+    public static String quote (String value) {
+        for (int i = 0; i < value.length (); ++i) {
+            switch (value.charAt (i)) {
+                case ',': case ';': case ' ': case '\t':
+                case '\r': case '\n': case '"':
+                    return '"' + value.replace ("\"", "\"\"") + '"';
+                default:
+                    break;
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,417 @@
+package io.github.mkmax.opticview.io;
+
+import io.github.mkmax.opticview.sampling.ISampleView;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Objects;
+
+/* Measured samples, such as a refractometer scan, read from a file that is
+ * memory-mapped rather than loaded, so the heap holds none of them however
+ * large the file.
+ *
+ * Binary files hold little-endian (double x, double y) records, either
+ * bare or as the first series of a file written by SeriesExporter. CSV
+ * files are scanned once, without a string per number, into a temporary
+ * binary file that is mapped in their place. The temporary file is deleted
+ * as soon as it is mapped where the system allows it, which keeps the
+ * mapping readable; elsewhere it is deleted on close, or else when the
+ * virtual machine exits. A CSV
+ * row is split at commas, semicolons, tabs or spaces, outside of double
+ * quotes; rows whose x column is not a number, such as headers, and lines
+ * starting with '#' are skipped, and a y that is empty or not a number
+ * reads as NaN. A CSV written by SeriesExporter is recognized by its
+ * header, and only its first series is read, as with binary files.
+ *
+ * The samples must be ordered by x, ascending or descending; descending
+ * files are viewed in reverse. Views are read-only and may be read from any
+ * number of threads.
+ */
+public final class MappedSamples implements ISampleView, Closeable {
+
+    /* +-----------+ */
+    /* | CONSTANTS | */
+    /* +-----------+ */
+    public enum Format {
+        CSV,
+        BINARY
+    }
+
+    private static final int RECORD_BYTES = 2 * Double.BYTES;
+
+    /* records per mapping; a single mapping cannot exceed 2 GiB */
+    private static final int
+        SEGMENT_SHIFT   = 26,
+        SEGMENT_RECORDS = 1 << SEGMENT_SHIFT,
+        SEGMENT_MASK    = SEGMENT_RECORDS - 1;
+
+    /* CSV text is mapped this many bytes at a time, each window ending on a
+     * line break, so no line may be longer */
+    private static final int CSV_WINDOW_BYTES = 1 << 28;
+
+    /* bytes read from the start of a CSV file when looking for a header */
+    private static final int CSV_PROBE_BYTES = 1 << 12;
+
+    /* bytes of records converted from CSV between writes */
+    private static final int CONVERSION_BUFFER_BYTES = 1 << 16;
+
+    /* +--------------------------+ */
+    /* | MEMBERS & INITIALIZATION | */
+    /* +--------------------------+ */
+    private final MappedByteBuffer[] segments;
+    private final int size;
+    private final boolean reversed;
+    private final Path temporary;
+
+    private MappedSamples (MappedByteBuffer[] pSegments, int pSize, Path pTemporary) {
+        segments = pSegments;
+        size = pSize;
+        temporary = pTemporary;
+        reversed = size > 1 && rawX (0) > rawX (size - 1);
+        checkOrder ();
+    }
+
+    /* Opens a file as CSV if it ends in .csv or .txt, and as binary
+     * otherwise, taking x and y from the first two CSV columns, or from the
+     * two after the series name in a CSV written by SeriesExporter.
+     */
+    public static MappedSamples open (Path path) throws IOException {
+        final String name = path.getFileName ().toString ().toLowerCase (Locale.ROOT);
+        if (!name.endsWith (".csv") && !name.endsWith (".txt"))
+            return open (path, Format.BINARY, 0, 1);
+        final boolean exported = isExportedCsv (path);
+        return open (path, Format.CSV, exported ? 1 : 0, exported ? 2 : 1);
+    }
+
+    /* Opens a file in the given format; the columns only matter to CSV. */
+    public static MappedSamples open (Path path, Format format, int xColumn, int yColumn) throws IOException {
+        Objects.requireNonNull (path, "a path must be specified");
+        Objects.requireNonNull (format, "a format must be specified");
+        if (xColumn < 0 || yColumn < 0 || xColumn == yColumn)
+            throw new RuntimeException ("x and y must be read from two different columns");
+
+        switch (format) {
+            case CSV: {
+                final Path converted = Files.createTempFile ("opticview", ".samples");
+                try {
+                    convertCsv (path, converted, xColumn, yColumn, isExportedCsv (path));
+                    return map (converted, 0L, -1L, converted);
+                }
+                catch (IOException | RuntimeException e) {
+                    try {
+                        Files.deleteIfExists (converted);
+                    }
+                    catch (IOException suppressed) {
+                        converted.toFile ().deleteOnExit ();
+                        e.addSuppressed (suppressed);
+                    }
+                    throw e;
+                }
+            }
+            case BINARY:
+            default: {
+                final long[] range = binaryRange (path);
+                return map (path, range[0], range[1], null);
+            }
+        }
+    }
+
+    @Override
+    public int size () {
+        return size;
+    }
+
+    @Override
+    public double getX (int index) {
+        return rawX (position (index));
+    }
+
+    @Override
+    public double getY (int index) {
+        final int record = position (index);
+        return segments[record >>> SEGMENT_SHIFT].getDouble (((record & SEGMENT_MASK) * RECORD_BYTES) + Double.BYTES);
+    }
+
+    /* Releases the file. The mapping itself goes once the view is no longer
+     * reachable, so the view must not be read afterwards. Throws if a
+     * temporary file that could not be deleted when it was mapped still
+     * cannot be; it is then left for the virtual machine to delete on exit.
+     */
+    @Override
+    public void close () throws IOException {
+        if (temporary != null)
+            Files.deleteIfExists (temporary);
+    }
+
+    /* +----------+ */
+    /* | INTERNAL | */
+    /* +----------+ */
+    private int position (int index) {
+        Objects.checkIndex (index, size);
+        return reversed ? size - 1 - index : index;
+    }
+
+    private double rawX (int record) {
+        return segments[record >>> SEGMENT_SHIFT].getDouble ((record & SEGMENT_MASK) * RECORD_BYTES);
+    }
+
+    private void checkOrder () {
+        for (int i = 1; i < size; ++i) {
+            final double previous = getX (i - 1), x = getX (i);
+            if (!(previous <= x))
+                throw new RuntimeException ("samples must be ordered by x (sample " + i + " is not)");
+        }
+        if (size == 1 && Double.isNaN (getX (0)))
+            throw new RuntimeException ("samples must be ordered by x (sample 0 is not)");
+    }
+
+    /* maps the given number of records from offset on, in segments; a
+     * negative count maps every record up to the end of the file, and a
+     * temporary file is deleted once mapped when the system allows it */
+    private static MappedSamples map (Path path, long offset, long count, Path temporary) throws IOException {
+        final MappedByteBuffer[] segments;
+        final int size;
+        try (FileChannel channel = FileChannel.open (path, StandardOpenOption.READ)) {
+            final long records = count < 0L ? (channel.size () - offset) / RECORD_BYTES : count;
+            if (records == 0L)
+                throw new RuntimeException ("the file holds no samples");
+            if (records > Integer.MAX_VALUE)
+                throw new RuntimeException ("too many samples to view (" + records + ")");
+            size = (int) records;
+            segments = new MappedByteBuffer[(int) ((records + SEGMENT_RECORDS - 1) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; ++i) {
+                final long first = (long) i << SEGMENT_SHIFT;
+                final long length = Math.min (SEGMENT_RECORDS, records - first);
+                segments[i] = channel.map (FileChannel.MapMode.READ_ONLY, offset + first * RECORD_BYTES, length * RECORD_BYTES);
+                segments[i].order (ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+        return new MappedSamples (segments, size, unlink (temporary));
+    }
+
+    /* Deletes a mapped temporary file, returning null, or returns the file
+     * if the system refuses while it is mapped, as Windows does, after
+     * scheduling it for deletion on exit in case close never manages to.
+     */
+    private static Path unlink (Path temporary) {
+        if (temporary == null)
+            return null;
+        try {
+            Files.delete (temporary);
+            return null;
+        }
+        catch (IOException e) {
+            temporary.toFile ().deleteOnExit ();
+            return temporary;
+        }
+    }
+
+    /* Returns the offset and count of the records in a binary file: the
+     * first series of a SeriesExporter file, or else the whole file. */
+    private static long[] binaryRange (Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open (path, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate (3 * Integer.BYTES).order (ByteOrder.LITTLE_ENDIAN);
+            if (channel.read (header, 0L) < header.capacity () || header.getInt (0) != SeriesExporter.BINARY_MAGIC)
+                return new long[] {0L, -1L};
+            if (header.getInt (4) != SeriesExporter.BINARY_VERSION)
+                throw new RuntimeException ("unsupported series file version " + header.getInt (4));
+            if (header.getInt (8) < 1)
+                throw new RuntimeException ("the series file holds no series");
+
+            /* name and units of the first series, then its sample count */
+            long position = header.capacity ();
+            final ByteBuffer field = ByteBuffer.allocate (Long.BYTES).order (ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < 3; ++i) {
+                field.clear ().limit (Integer.BYTES);
+                if (channel.read (field, position) < Integer.BYTES)
+                    throw new RuntimeException ("the series file is truncated");
+                position += Integer.BYTES + field.getInt (0);
+            }
+            field.clear ();
+            if (channel.read (field, position) < Long.BYTES)
+                throw new RuntimeException ("the series file is truncated");
+            final long count = field.getLong (0);
+            position += Long.BYTES;
+            if (count < 0 || position + count * RECORD_BYTES > channel.size ())
+                throw new RuntimeException ("the series file is truncated");
+            return new long[] {position, count};
+        }
+    }
+
+    /* Returns whether the first line of the CSV that is not a comment is the
+     * header SeriesExporter writes. */
+    private static boolean isExportedCsv (Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open (path, StandardOpenOption.READ)) {
+            final ByteBuffer head = ByteBuffer.allocate (CSV_PROBE_BYTES);
+            channel.read (head, 0L);
+            final String text = new String (head.array (), 0, head.position (), StandardCharsets.UTF_8);
+            for (String line : text.split ("\n", -1))
+                if (!line.startsWith ("#"))
+                    return line.startsWith (SeriesExporter.CSV_HEADER);
+            return false;
+        }
+    }
+
+    /* Scans the CSV a window at a time, writing its (x, y) records out. With
+     * firstSeries set, the first column names the series of each row, and
+     * the scan stops at the first row of another series.
+     */
+    private static void convertCsv (
+        Path    source,
+        Path    target,
+        int     xColumn,
+        int     yColumn,
+        boolean firstSeries) throws IOException
+    {
+        final NumberScanner scanner = new NumberScanner ();
+        final ByteBuffer out = ByteBuffer.allocateDirect (CONVERSION_BUFFER_BYTES).order (ByteOrder.LITTLE_ENDIAN);
+        final int[] bounds = new int[2];
+        byte[] series = null;
+        try (FileChannel in = FileChannel.open (source, StandardOpenOption.READ);
+             FileChannel sink = FileChannel.open (target, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            final long length = in.size ();
+            scan:
+            for (long start = 0L; start < length; ) {
+                final int window = (int) Math.min (CSV_WINDOW_BYTES, length - start);
+                final boolean last = start + window == length;
+                final MappedByteBuffer text = in.map (FileChannel.MapMode.READ_ONLY, start, window);
+
+                /* stop before a line the window cuts off, unless the file ends here */
+                int line = 0;
+                while (line < window) {
+                    final int next = lineEnd (text, line, window);
+                    if (next == window && !last)
+                        break;
+                    if (text.get (line) != '#') {
+                        final double x = column (text, line, next, xColumn, scanner, bounds);
+                        if (scanner.isValid () && !Double.isNaN (x)) {
+                            if (firstSeries) {
+                                field (text, line, next, 0, bounds);
+                                if (series == null)
+                                    series = copy (text, bounds[0], bounds[1]);
+                                else if (!matches (text, bounds[0], bounds[1], series))
+                                    break scan;
+                            }
+                            final double y = column (text, line, next, yColumn, scanner, bounds);
+                            if (out.remaining () < RECORD_BYTES)
+                                drain (out, sink);
+                            out.putDouble (x).putDouble (scanner.isValid () ? y : Double.NaN);
+                        }
+                    }
+                    line = next + 1;
+                }
+                if (line == 0)
+                    throw new RuntimeException ("a line is longer than " + CSV_WINDOW_BYTES + " bytes");
+                start += Math.min (line, window);
+            }
+            drain (out, sink);
+        }
+    }
+
+    /* returns the line break ending the line at from, or to if there is
+     * none; breaks inside double quotes belong to a field */
+    private static int lineEnd (ByteBuffer text, int from, int to) {
+        boolean quoted = false;
+        int i = from;
+        for (; i < to; ++i) {
+            final byte b = text.get (i);
+            if (b == '"')
+                quoted = !quoted;
+            else if (b == '\n' && !quoted)
+                break;
+        }
+        return i;
+    }
+
+    /* parses the given column of the line [from, to) */
+    private static double column (ByteBuffer text, int from, int to, int column, NumberScanner scanner, int[] bounds) {
+        field (text, from, to, column, bounds);
+        return scanner.parse (text, bounds[0], bounds[1]);
+    }
+
+    /* Finds the given column of the line [from, to), setting bounds to the
+     * start and end of its text; a missing column is empty. A field runs up
+     * to the next separator and spaces around a comma or semicolon belong
+     * to it. The text of a quoted field is what lies between its quotes,
+     * escaped quotes still doubled.
+     */
+    private static void field (ByteBuffer text, int from, int to, int column, int[] bounds) {
+        int field = 0;
+        int i = from;
+        while (true) {
+            while (i < to && isBlank (text.get (i)))
+                ++i;
+            int start = i, end;
+            if (i < to && text.get (i) == '"') {
+                start = ++i;
+                while (i < to && (text.get (i) != '"' || (i + 1 < to && text.get (i + 1) == '"')))
+                    i += text.get (i) == '"' ? 2 : 1;
+                end = i;
+                if (i < to)
+                    ++i;
+                while (i < to && !isSeparator (text.get (i)))
+                    ++i;
+            }
+            else {
+                while (i < to && !isSeparator (text.get (i)))
+                    ++i;
+                end = i;
+            }
+            while (i < to && isBlank (text.get (i)))
+                ++i;
+            if (i < to && (text.get (i) == ',' || text.get (i) == ';'))
+                ++i;
+            if (field == column) {
+                bounds[0] = start;
+                bounds[1] = end;
+                return;
+            }
+            if (i >= to) {
+                bounds[0] = bounds[1] = to;
+                return;
+            }
+            ++field;
+        }
+    }
+
+    private static byte[] copy (ByteBuffer text, int from, int to) {
+        final byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; ++i)
+            bytes[i] = text.get (from + i);
+        return bytes;
+    }
+
+    private static boolean matches (ByteBuffer text, int from, int to, byte[] bytes) {
+        if (to - from != bytes.length)
+            return false;
+        for (int i = 0; i < bytes.length; ++i)
+            if (text.get (from + i) != bytes[i])
+                return false;
+        return true;
+    }
+
+    private static void drain (ByteBuffer out, FileChannel sink) throws IOException {
+        out.flip ();
+        while (out.hasRemaining ())
+            sink.write (out);
+        out.clear ();
+    }
+
+    private static boolean isBlank (byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static boolean isSeparator (byte b) {
+        return b == ',' || b == ';' || isBlank (b);
+    }
+}
@@ -0,0 +1,272 @@
+package io.github.mkmax.opticview.io;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+/* Parses decimal numbers straight out of a byte buffer holding ASCII text,
+ * such as a memory-mapped CSV file, without creating a string per number.
+ *
+ * Numbers with at most 19 significant digits, which covers what
+ * instruments, spreadsheets and Double.toString print, are rounded
+ * correctly in arithmetic: exactly when the digits and the decimal exponent
+ * fit a double, and otherwise by the Eisel-Lemire method, from a 128 bit
+ * product with a power of five. Only longer numbers fall back to
+ * Double.parseDouble on a reused character buffer, which gives the same
+ * result at the cost of a string. "NaN", "Infinity" and "inf", in any case
+ * and with an optional sign, are understood too.
+ *
+ * A scanner keeps the outcome of the last parse, so it is not thread-safe.
+ */
+public final class NumberScanner {
+
+    /* powers of ten a double holds exactly */
+    private static final double[] EXACT_POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20,
+        1e21, 1e22
+    };
+
+    /* the largest integer every smaller one of which a double holds exactly */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /* decimal exponents beyond which every 19 digit number rounds to zero
+     * or to infinity */
+    private static final int
+        MIN_POWER_OF_TEN = -342,
+        MAX_POWER_OF_TEN = 308;
+
+    /* 5^q for every q in [MIN_POWER_OF_TEN, MAX_POWER_OF_TEN], scaled by a
+     * power of two to 128 bits and stored as (high, low) pairs; negative
+     * powers are rounded up */
+    private static final long[] POWERS_OF_FIVE = powersOfFive ();
+
+    /* longer numbers cannot be valid, so are rejected before the fallback */
+    private static final int MAX_NUMBER_LENGTH = 64;
+
+    private final char[] fallback = new char[MAX_NUMBER_LENGTH];
+    private boolean valid;
+
+    /* Parses the bytes [from, to) of the buffer as one number, ignoring
+     * surrounding spaces. The buffer's position is left alone. Returns NaN
+     * when the text is not a number; isValid tells the two NaNs apart.
+     */
+    public double parse (ByteBuffer buffer, int from, int to) {
+        while (from < to && isSpace (buffer.get (from)))
+            ++from;
+        while (to > from && isSpace (buffer.get (to - 1)))
+            --to;
+        valid = false;
+        if (from == to || to - from > MAX_NUMBER_LENGTH)
+            return Double.NaN;
+
+        int i = from;
+        boolean negative = false;
+        if (buffer.get (i) == '-' || buffer.get (i) == '+')
+            negative = buffer.get (i++) == '-';
+        if (i < to && !isDigit (buffer.get (i)) && buffer.get (i) != '.')
+            return parseWord (buffer, i, to, negative);
+
+        /* mantissa, counting the digits after the point as a negative exponent */
+        long mantissa = 0L;
+        int digits = 0, exponent = 0;
+        boolean point = false, any = false, truncated = false;
+        for (; i < to; ++i) {
+            final byte b = buffer.get (i);
+            if (isDigit (b)) {
+                any = true;
+                if (mantissa == 0L && b == '0') {
+                    if (point)
+                        --exponent;
+                    continue;
+                }
+                if (digits < 19) {
+                    mantissa = mantissa * 10L + (b - '0');
+                    ++digits;
+                    if (point)
+                        --exponent;
+                }
+                else {
+                    truncated |= b != '0';
+                    if (!point)
+                        ++exponent;
+                }
+            }
+            else if (b == '.' && !point)
+                point = true;
+            else
+                break;
+        }
+        if (!any)
+            return Double.NaN;
+
+        if (i < to) {
+            final byte b = buffer.get (i);
+            if (b != 'e' && b != 'E')
+                return Double.NaN;
+            ++i;
+            boolean negativeExponent = false;
+            if (i < to && (buffer.get (i) == '-' || buffer.get (i) == '+'))
+                negativeExponent = buffer.get (i++) == '-';
+            if (i == to)
+                return Double.NaN;
+            int written = 0;
+            for (; i < to; ++i) {
+                final byte d = buffer.get (i);
+                if (!isDigit (d))
+                    return Double.NaN;
+                written = Math.min (written * 10 + (d - '0'), 1 << 20);
+            }
+            exponent += negativeExponent ? -written : written;
+        }
+
+        valid = true;
+        if (mantissa == 0L)
+            return negative ? -0d : 0d;
+        if (digits < 19 && mantissa <= MAX_EXACT_MANTISSA && Math.abs (exponent) < EXACT_POWERS_OF_TEN.length) {
+            final double value = exponent < 0 ?
+                mantissa / EXACT_POWERS_OF_TEN[-exponent] :
+                mantissa * EXACT_POWERS_OF_TEN[exponent];
+            return negative ? -value : value;
+        }
+        if (!truncated)
+            return eiselLemire (mantissa, exponent, negative);
+        return parseSlow (buffer, from, to);
+    }
+
+    /* Whether the last parse read a number. */
+    public boolean isValid () {
+        return valid;
+    }
+
+    /* +----------+ */
+    /* | INTERNAL | */
+    /* +----------+ */
+    private double parseWord (ByteBuffer buffer, int from, int to, boolean negative) {
+        if (matches (buffer, from, to, "nan")) {
+            valid = true;
+            return Double.NaN;
+        }
+        if (matches (buffer, from, to, "inf") || matches (buffer, from, to, "infinity")) {
+            valid = true;
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        return Double.NaN;
+    }
+
+    /* Rounds mantissa * 10^exponent to the nearest double, ties to even,
+     * following fast_float: the mantissa is multiplied by a truncated 5^q,
+     * and a 128 bit product always holds enough bits to decide the
+     * rounding (Mushtak and Lemire, "Fast number parsing without fallback").
+     */
+    private static double eiselLemire (long mantissa, int exponent, boolean negative) {
+        final long sign = negative ? Long.MIN_VALUE : 0L;
+        if (exponent < MIN_POWER_OF_TEN)
+            return Double.longBitsToDouble (sign);
+        if (exponent > MAX_POWER_OF_TEN)
+            return Double.longBitsToDouble (sign | 0x7FF0000000000000L);
+
+        final int zeros = Long.numberOfLeadingZeros (mantissa);
+        final long w = mantissa << zeros;
+
+        /* 55 significant bits are needed; the second half of the power only
+         * matters when the bits below them are all ones */
+        final int index = 2 * (exponent - MIN_POWER_OF_TEN);
+        long high = multiplyHigh (w, POWERS_OF_FIVE[index]);
+        long low = w * POWERS_OF_FIVE[index];
+        if ((high & 0x1FFL) == 0x1FFL) {
+            final long carry = multiplyHigh (w, POWERS_OF_FIVE[index + 1]);
+            low += carry;
+            if (Long.compareUnsigned (carry, low) > 0)
+                ++high;
+        }
+
+        final int upper = (int) (high >>> 63);
+        final int shift = upper + 64 - 52 - 3;
+        long bits = high >>> shift;
+        int power = ((217706 * exponent) >> 16) + 63 + upper - zeros + 1023;
+
+        if (power <= 0) {
+            /* subnormal */
+            if (-power + 1 >= 64)
+                return Double.longBitsToDouble (sign);
+            bits >>>= -power + 1;
+            bits += bits & 1L;
+            bits >>>= 1;
+            power = bits < (1L << 52) ? 0 : 1;
+            return Double.longBitsToDouble (sign | ((long) power << 52) | (bits & ((1L << 52) - 1L)));
+        }
+
+        /* a product lying exactly halfway rounds to even; only powers of ten
+         * in [-4, 23] can give one */
+        if (Long.compareUnsigned (low, 1L) <= 0 && exponent >= -4 && exponent <= 23 &&
+            (bits & 3L) == 1L && (bits << shift) == high)
+            bits &= ~1L;
+        bits += bits & 1L;
+        bits >>>= 1;
+        if (bits >= (2L << 52)) {
+            bits = 1L << 52;
+            ++power;
+        }
+        if (power >= 0x7FF)
+            return Double.longBitsToDouble (sign | 0x7FF0000000000000L);
+        return Double.longBitsToDouble (sign | ((long) power << 52) | (bits & ((1L << 52) - 1L)));
+    }
+
+    /* the high half of the unsigned 128 bit product */
+    private static long multiplyHigh (long a, long b) {
+        return Math.multiplyHigh (a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+    }
+
+    /* computed once, as fast_float generates its table */
+    private static long[] powersOfFive () {
+        final long[] table = new long[2 * (MAX_POWER_OF_TEN - MIN_POWER_OF_TEN + 1)];
+        final BigInteger five = BigInteger.valueOf (5L);
+        for (int q = MIN_POWER_OF_TEN; q <= MAX_POWER_OF_TEN; ++q) {
+            BigInteger power;
+            if (q < 0) {
+                final BigInteger divisor = five.pow (-q);
+                final int bits = divisor.bitLength ();
+                power = BigInteger.ONE.shiftLeft (q >= -27 ? bits + 127 : 2 * bits + 128)
+                    .divide (divisor).add (BigInteger.ONE);
+            }
+            else
+                power = five.pow (q);
+            power = power.bitLength () > 128 ?
+                power.shiftRight (power.bitLength () - 128) :
+                power.shiftLeft (128 - power.bitLength ());
+            final int index = 2 * (q - MIN_POWER_OF_TEN);
+            table[index] = power.shiftRight (64).longValue ();
+            table[index + 1] = power.longValue ();
+        }
+        return table;
+    }
+
+    private double parseSlow (ByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to; ++i)
+            fallback[i - from] = (char) buffer.get (i);
+        try {
+            return Double.parseDouble (new String (fallback, 0, to - from));
+        }
+        catch (NumberFormatException e) {
+            valid = false;
+            return Double.NaN;
+        }
+    }
+
+    private static boolean matches (ByteBuffer buffer, int from, int to, String word) {
+        if (to - from != word.length ())
+            return false;
+        for (int i = 0; i < word.length (); ++i)
+            if (Character.toLowerCase ((char) buffer.get (from + i)) != word.charAt (i))
+                return false;
+        return true;
+    }
+
+    private static boolean isDigit (byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isSpace (byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+}
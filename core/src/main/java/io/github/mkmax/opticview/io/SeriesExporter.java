@@ -0,0 +1,223 @@
+package io.github.mkmax.opticview.io;
+
+import io.github.mkmax.opticview.sampling.ISampleView;
+import io.github.mkmax.opticview.units.IUnit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+
+/* Writes sample series, such as the plots of a graph, to CSV or to a
+ * compact binary file.
+ *
+ * Samples are read straight from their primitive views and encoded into
+ * one direct buffer that is written out whenever it fills, so the heap
+ * holds no copy of the data however many samples are exported.
+ *
+ * CSV has a header row, then one row per sample: series name, x, y and the
+ * units of both. The binary format is little endian:
+ *
+ *   int magic, int version, int series count, then per series:
+ *     string name, string input units, string output units,
+ *     long sample count, then (double x, double y) per sample
+ *
+ * where a string is an int byte count followed by that many UTF-8 bytes and
+ * units are given by their mnemonic.
+ */
+public final class SeriesExporter {
+
+    /* +-----------+ */
+    /* | CONSTANTS | */
+    /* +-----------+ */
+    public static final int
+        BINARY_MAGIC   = 0x5345564F, /* "OVES" */
+        BINARY_VERSION = 1;
+
+    /* the first line of a CSV file */
+    static final String CSV_HEADER = "series,x,y,x units,y units";
+
+    /* bytes encoded between writes to the channel */
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    /* the longest a double prints as, sign and exponent included */
+    private static final int MAX_NUMBER_CHARS = 32;
+
+    public enum Format {
+        CSV,
+        BINARY
+    }
+
+    /* +--------+ */
+    /* | SERIES | */
+    /* +--------+ */
+
+    /* One named run of samples with its units. The samples are only read, so
+     * they must not change while being exported.
+     */
+    public static final class Series {
+        private final String name;
+        private final IUnit
+            inputUnits,
+            outputUnits;
+        private final ISampleView samples;
+
+        public Series (String pName, IUnit pInputUnits, IUnit pOutputUnits, ISampleView pSamples) {
+            name = pName == null ? "" : pName;
+            inputUnits = Objects.requireNonNull (pInputUnits, "input units must be specified");
+            outputUnits = Objects.requireNonNull (pOutputUnits, "output units must be specified");
+            samples = Objects.requireNonNull (pSamples, "samples must be specified");
+        }
+
+        public String getName () {
+            return name;
+        }
+
+        public IUnit getInputUnits () {
+            return inputUnits;
+        }
+
+        public IUnit getOutputUnits () {
+            return outputUnits;
+        }
+
+        public ISampleView getSamples () {
+            return samples;
+        }
+    }
+
+    /* +--------------------------+ */
+    /* | MEMBERS & INITIALIZATION | */
+    /* +--------------------------+ */
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect (BUFFER_BYTES).order (ByteOrder.LITTLE_ENDIAN);
+    private final StringBuilder number = new StringBuilder (MAX_NUMBER_CHARS);
+
+    private SeriesExporter (WritableByteChannel pChannel) {
+        channel = pChannel;
+    }
+
+    /* +-----------+ */
+    /* | INTERFACE | */
+    /* +-----------+ */
+
+    /* Writes the series to a file, replacing whatever it held. */
+    public static void write (Path path, Format format, List<Series> series) throws IOException {
+        Objects.requireNonNull (path, "a path must be specified");
+        try (FileChannel channel = FileChannel.open (path,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            write (channel, format, series);
+        }
+    }
+
+    /* Writes the series to the channel, which is left open. */
+    public static void write (WritableByteChannel channel, Format format, List<Series> series) throws IOException {
+        Objects.requireNonNull (channel, "a channel must be specified");
+        Objects.requireNonNull (format, "a format must be specified");
+        Objects.requireNonNull (series, "the series must be specified");
+
+        final SeriesExporter exporter = new SeriesExporter (channel);
+        switch (format) {
+            case BINARY:
+                exporter.writeBinary (series);
+                break;
+            case CSV:
+            default:
+                exporter.writeCsv (series);
+                break;
+        }
+        exporter.drain ();
+    }
+
+    /* +----------+ */
+    /* | INTERNAL | */
+    /* +----------+ */
+    private void writeBinary (List<Series> series) throws IOException {
+        buffer.putInt (BINARY_MAGIC).putInt (BINARY_VERSION).putInt (series.size ());
+        for (Series s : series) {
+            putString (s.getName ());
+            putString (s.getInputUnits ().getMnemonic ());
+            putString (s.getOutputUnits ().getMnemonic ());
+
+            final ISampleView samples = s.getSamples ();
+            final int size = samples.size ();
+            reserve (Long.BYTES);
+            buffer.putLong (size);
+            for (int i = 0; i < size; ++i) {
+                reserve (2 * Double.BYTES);
+                buffer.putDouble (samples.getX (i)).putDouble (samples.getY (i));
+            }
+        }
+    }
+
+    private void writeCsv (List<Series> series) throws IOException {
+        putBytes ((CSV_HEADER + '\n').getBytes (StandardCharsets.UTF_8));
+        for (Series s : series) {
+            /* the text around the numbers is the same on every row */
+            final byte[]
+                prefix = (CsvFields.quote (s.getName ()) + ',').getBytes (StandardCharsets.UTF_8),
+                suffix = (',' + CsvFields.quote (s.getInputUnits ().getMnemonic ()) +
+                          ',' + CsvFields.quote (s.getOutputUnits ().getMnemonic ()) + '\n').getBytes (StandardCharsets.UTF_8);
+
+            final ISampleView samples = s.getSamples ();
+            final int size = samples.size ();
+            for (int i = 0; i < size; ++i) {
+                putBytes (prefix);
+                reserve (2 * MAX_NUMBER_CHARS + 1);
+                putNumber (samples.getX (i));
+                buffer.put ((byte) ',');
+                putNumber (samples.getY (i));
+                putBytes (suffix);
+            }
+        }
+    }
+
+    /* Encodes a double the way Double.toString prints it, without creating a
+     * string; the digits are ASCII, so every char is one byte.
+     */
+    private void putNumber (double value) throws IOException {
+        number.setLength (0);
+        number.append (value);
+        reserve (number.length ());
+        for (int i = 0; i < number.length (); ++i)
+            buffer.put ((byte) number.charAt (i));
+    }
+
+    private void putString (String value) throws IOException {
+        final byte[] bytes = value.getBytes (StandardCharsets.UTF_8);
+        reserve (Integer.BYTES);
+        buffer.putInt (bytes.length);
+        putBytes (bytes);
+    }
+
+    /* copes with arrays larger than the buffer */
+    private void putBytes (byte[] bytes) throws IOException {
+        for (int from = 0; from < bytes.length; ) {
+            reserve (1);
+            final int count = Math.min (buffer.remaining (), bytes.length - from);
+            buffer.put (bytes, from, count);
+            from += count;
+        }
+    }
+
+    /* makes room for the given number of bytes, writing out the buffer if
+     * it lacks it */
+    private void reserve (int bytes) throws IOException {
+        if (buffer.remaining () < bytes)
+            drain ();
+    }
+
+    private void drain () throws IOException {
+        buffer.flip ();
+        while (buffer.hasRemaining ())
+            channel.write (buffer);
+        buffer.clear ();
+    }
+}
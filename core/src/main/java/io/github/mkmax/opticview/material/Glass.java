@@ -0,0 +1,137 @@
+package io.github.mkmax.opticview.material;
+
+import io.github.mkmax.opticview.util.DoubleDouble;
+
+import java.util.Objects;
+
+public enum Glass implements IGlass {
+
+    /* +-------------+ */
+    /* | GLASS TYPES | */
+    /* +-------------+ */
+
+    /* Every glass follows the Sellmeier form
+     *
+     *     n^2 = A + sum (B[k] * lambda^2 / (lambda^2 - C[k]))
+     *
+     * with lambda in micro-meters.
+     */
+    UVFS ("Fused Silica", 1d,
+        new double[] { 0.6961663d,        0.4079426d,           0.8974794d          },
+        new double[] { 0.00467914825849d, 0.013512063073959999d, 97.93400253792099d }),
+
+    N_BK7 ("N-BK7", 1d,
+        new double[] { 1.03961212d,    0.231792344d,  1.01046945d },
+        new double[] { 0.00600069867d, 0.0200179144d, 103.560653d }),
+
+    CaF2 ("CaF2", 1d,
+        new double[] { 0.5675888d,            0.4710914d,             3.8484723d       },
+        new double[] { 0.002526429987596025d, 0.010078332802810001d, 1200.5559729216d }),
+
+    ZnSe ("ZnSe", 4d,
+        new double[] { 1.9d   },
+        new double[] { 0.113d });
+
+    /* +------------------+ */
+    /* | GLASS DEFINITION | */
+    /* +------------------+ */
+    public final String NAME;
+
+    /* Sellmeier constant term and coefficients */
+    private final double A;
+    private final double[] B, C;
+
+    /* scratch for the double-double form; glasses are shared between
+     * threads, so each thread keeps its own */
+    private static final ThreadLocal<DoubleDouble[]> REGISTERS = ThreadLocal.withInitial (
+        () -> new DoubleDouble[] { new DoubleDouble (), new DoubleDouble (), new DoubleDouble () });
+
+    Glass (String pName, double pA, double[] pB, double[] pC) {
+        NAME = Objects.requireNonNull (pName, "The name of a glass is required");
+        if (pB.length != pC.length)
+            throw new RuntimeException ("Sellmeier coefficients must come in pairs");
+        A = pA;
+        B = pB;
+        C = pC;
+    }
+
+    @Override
+    public String getName () {
+        return NAME;
+    }
+
+    /**
+     * Compute the refractive index <i>n</i> given some wavelength
+     * in micro-meters.
+     *
+     * @param lambda The wavelength in micro-meters.
+     */
+    @Override
+    public double calcRefractiveIndex (double lambda) {
+        final double lambdaSq = lambda * lambda;
+        double nSq = A;
+        for (int k = 0; k < B.length; ++k)
+            nSq += B[k] * lambdaSq / (lambdaSq - C[k]);
+        return Math.sqrt (nSq);
+    }
+
+    /**
+     * Compute the refractive indices for the wavelengths in
+     * <code>lambda[from, to)</code>, writing them to the same positions of
+     * <code>out</code>. The results are identical to calling
+     * {@link #calcRefractiveIndex(double)} for each wavelength.
+     *
+     * @param lambda The wavelengths in micro-meters.
+     * @param out    Receives the refractive indices; must not be <code>lambda</code>.
+     * @param from   The first index to compute, inclusive.
+     * @param to     The last index to compute, exclusive.
+     */
+    @Override
+    public void calcRefractiveIndex (double[] lambda, double[] out, int from, int to) {
+        Objects.checkFromToIndex (from, to, lambda.length);
+        Objects.checkFromToIndex (from, to, out.length);
+
+        if (lambda == out)
+            throw new RuntimeException ("the output array cannot be the wavelength array");
+
+        /* terms run in the outer loop so each inner loop is a flat, branch
+         * free pass over the arrays that the JIT can unroll and vectorize;
+         * the sum is built in the same order as the scalar method */
+        for (int i = from; i < to; ++i)
+            out[i] = A;
+        for (int k = 0; k < B.length; ++k) {
+            final double b = B[k], c = C[k];
+            for (int i = from; i < to; ++i) {
+                final double lambdaSq = lambda[i] * lambda[i];
+                out[i] += b * lambdaSq / (lambdaSq - c);
+            }
+        }
+        for (int i = from; i < to; ++i)
+            out[i] = Math.sqrt (out[i]);
+    }
+
+    /**
+     * Compute the refractive index in double-double precision. The
+     * coefficients are taken exactly as stored, so the only rounding is that
+     * of the roughly 106 bit arithmetic; differences between similar glasses
+     * survive the subtraction that would cancel them in plain doubles.
+     *
+     * @param lambda The wavelength in micro-meters.
+     * @param out    Receives the refractive index.
+     */
+    @Override
+    public void calcRefractiveIndex (double lambda, DoubleDouble out) {
+        final DoubleDouble[] registers = REGISTERS.get ();
+        final DoubleDouble
+            lambdaSq = registers[0].set (lambda).mul (lambda),
+            term = registers[1],
+            denominator = registers[2];
+        out.set (A);
+        for (int k = 0; k < B.length; ++k) {
+            denominator.set (lambdaSq).sub (C[k]);
+            term.set (lambdaSq).mul (B[k]).div (denominator);
+            out.add (term);
+        }
+        out.sqrt ();
+    }
+}
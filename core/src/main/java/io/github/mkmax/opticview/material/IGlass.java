@@ -0,0 +1,34 @@
+package io.github.mkmax.opticview.material;
+
+import io.github.mkmax.opticview.util.DoubleDouble;
+
+public interface IGlass {
+
+    /* Obtains the human readable name of this glass.
+     * For example, N_BK7 should return "N-BK7".
+     */
+    String getName ();
+
+    /* Computes the refractive index n given some wavelength in
+     * micro-meters.
+     */
+    double calcRefractiveIndex (double lambda);
+
+    /* Computes the refractive indices for the wavelengths in
+     * lambda[from, to), writing them to the same positions of out. The
+     * results must be identical to the scalar method, and out is never the
+     * same array as lambda.
+     */
+    default void calcRefractiveIndex (double[] lambda, double[] out, int from, int to) {
+        for (int i = from; i < to; ++i)
+            out[i] = calcRefractiveIndex (lambda[i]);
+    }
+
+    /* Computes the refractive index in double-double precision, for
+     * comparing glasses whose indices differ in the last digits of a double.
+     * Glasses that cannot do better fall back to the double result.
+     */
+    default void calcRefractiveIndex (double lambda, DoubleDouble out) {
+        out.set (calcRefractiveIndex (lambda));
+    }
+}
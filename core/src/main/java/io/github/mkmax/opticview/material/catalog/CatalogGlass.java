@@ -0,0 +1,84 @@
+package io.github.mkmax.opticview.material.catalog;
+
+import io.github.mkmax.opticview.material.IGlass;
+import io.github.mkmax.opticview.util.DoubleDouble;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/* A glass read from a catalog: a name, a dispersion formula and its
+ * coefficients. Instances are small, immutable and safe to evaluate from
+ * any thread.
+ */
+public final class CatalogGlass implements IGlass {
+
+    private final String name;
+    private final DispersionFormula formula;
+    private final double[] coefficients;
+
+    public CatalogGlass (String pName, DispersionFormula pFormula, double[] pCoefficients) {
+        name = Objects.requireNonNull (pName, "The name of a glass is required");
+        formula = Objects.requireNonNull (pFormula, "A dispersion formula is required");
+        coefficients = Objects.requireNonNull (pCoefficients, "Coefficients are required").clone ();
+        if (!formula.isValid (coefficients))
+            throw new RuntimeException ("invalid " + formula + " coefficients for glass " + name);
+    }
+
+    /* +-----------+ */
+    /* | INTERFACE | */
+    /* +-----------+ */
+    public DispersionFormula getFormula () {
+        return formula;
+    }
+
+    public double[] getCoefficients () {
+        return coefficients.clone ();
+    }
+
+    @Override
+    public String getName () {
+        return name;
+    }
+
+    @Override
+    public double calcRefractiveIndex (double lambda) {
+        return formula.calcRefractiveIndex (coefficients, lambda);
+    }
+
+    @Override
+    public void calcRefractiveIndex (double[] lambda, double[] out, int from, int to) {
+        Objects.checkFromToIndex (from, to, lambda.length);
+        Objects.checkFromToIndex (from, to, out.length);
+        formula.calcRefractiveIndex (coefficients, lambda, out, from, to);
+    }
+
+    @Override
+    public void calcRefractiveIndex (double lambda, DoubleDouble out) {
+        formula.calcRefractiveIndex (coefficients, lambda, out);
+    }
+
+    /* +----------+ */
+    /* | IDENTITY | */
+    /* +----------+ */
+    @Override
+    public boolean equals (Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof CatalogGlass))
+            return false;
+        final CatalogGlass other = (CatalogGlass) o;
+        return name.equals (other.name) &&
+               formula == other.formula &&
+               Arrays.equals (coefficients, other.coefficients);
+    }
+
+    @Override
+    public int hashCode () {
+        return name.hashCode ();
+    }
+
+    @Override
+    public String toString () {
+        return name;
+    }
+}
@@ -0,0 +1,212 @@
+package io.github.mkmax.opticview.material.catalog;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/* Reads glass definitions from the text formats vendors and databases ship:
+ *
+ *  - Zemax AGF catalogs (Schott, Ohara, CDGM, Hoya, ...), holding many
+ *    glasses per file as NM/CD record pairs
+ *  - refractiveindex.info YAML pages, holding one material per file
+ *
+ * Only the dispersion formulas a compiled catalog can evaluate are kept;
+ * glasses using any other formula are skipped.
+ */
+public final class DispersionFileParser {
+
+    private DispersionFileParser () {
+        /* static only */
+    }
+
+    /* Zemax AGF formula numbers */
+    private static final int
+        AGF_SCHOTT      = 1,
+        AGF_SELLMEIER_1 = 2,
+        AGF_SELLMEIER_3 = 6,
+        AGF_SELLMEIER_4 = 9,
+        AGF_SELLMEIER_5 = 11;
+
+    /* +-----------+ */
+    /* | INTERFACE | */
+    /* +-----------+ */
+
+    /* Parses a file, choosing the format from its extension: ".agf" for
+     * Zemax catalogs and ".yml"/".yaml" for refractiveindex.info pages, named
+     * after the file.
+     */
+    public static List<CatalogGlass> parseFile (Path file) throws IOException {
+        final String fileName = file.getFileName ().toString ();
+        final String lower = fileName.toLowerCase (Locale.ROOT);
+        final String text = decode (Files.readAllBytes (file));
+        if (lower.endsWith (".agf"))
+            return parseAgf (new StringReader (text));
+        if (lower.endsWith (".yml") || lower.endsWith (".yaml")) {
+            final String name = fileName.substring (0, fileName.lastIndexOf ('.'));
+            final CatalogGlass glass = parseYaml (name, new StringReader (text));
+            return glass == null ? List.of () : List.of (glass);
+        }
+        throw new IOException ("unrecognized dispersion file: " + fileName);
+    }
+
+    /* Parses a Zemax AGF catalog. */
+    public static List<CatalogGlass> parseAgf (Reader in) throws IOException {
+        final List<CatalogGlass> glasses = new ArrayList<> ();
+        final BufferedReader reader = new BufferedReader (in);
+
+        String name = null;
+        int formula = -1;
+        String line;
+        while ((line = reader.readLine ()) != null) {
+            final String[] tokens = line.trim ().split ("\\s+");
+            if (tokens.length == 0)
+                continue;
+            switch (tokens[0]) {
+                /* NM <name> <formula> <MIL#> <Nd> <Vd> ... */
+                case "NM":
+                    if (tokens.length < 3)
+                        throw new IOException ("malformed NM record: " + line);
+                    name = tokens[1];
+                    formula = (int) parseNumber (tokens[2], line);
+                    break;
+
+                /* CD <c0> <c1> ... <c9> */
+                case "CD":
+                    if (name == null)
+                        throw new IOException ("CD record without a preceding NM record");
+                    final double[] cd = new double[tokens.length - 1];
+                    for (int i = 0; i < cd.length; ++i)
+                        cd[i] = parseNumber (tokens[i + 1], line);
+                    final CatalogGlass glass = fromAgf (name, formula, cd);
+                    if (glass != null)
+                        glasses.add (glass);
+                    name = null;
+                    break;
+
+                default:
+                    break;
+            }
+        }
+        return glasses;
+    }
+
+    /* Parses the first formula-based dispersion entry of a
+     * refractiveindex.info YAML page, returning null if it has none that
+     * can be compiled.
+     */
+    public static CatalogGlass parseYaml (String name, Reader in) throws IOException {
+        final BufferedReader reader = new BufferedReader (in);
+
+        int formula = -1;
+        String line;
+        while ((line = reader.readLine ()) != null) {
+            String trimmed = line.trim ();
+            if (trimmed.startsWith ("- "))
+                trimmed = trimmed.substring (2).trim ();
+
+            if (trimmed.startsWith ("type:")) {
+                final String type = trimmed.substring (5).trim ();
+                formula = type.startsWith ("formula ")
+                    ? (int) parseNumber (type.substring (8).trim (), line)
+                    : -1;
+            }
+            else if (trimmed.startsWith ("coefficients:") && formula != -1) {
+                final String[] tokens = trimmed.substring (13).trim ().split ("\\s+");
+                final double[] c = new double[tokens.length];
+                for (int i = 0; i < c.length; ++i)
+                    c[i] = parseNumber (tokens[i], line);
+                final CatalogGlass glass = fromYaml (name, formula, c);
+                if (glass != null)
+                    return glass;
+            }
+        }
+        return null;
+    }
+
+    /* +----------+ */
+    /* | INTERNAL | */
+    /* +----------+ */
+    private static CatalogGlass fromAgf (String name, int formula, double[] cd) {
+        switch (formula) {
+            case AGF_SCHOTT:
+                return new CatalogGlass (name, DispersionFormula.SCHOTT, pad (cd, 6));
+            case AGF_SELLMEIER_1:
+                return sellmeier (name, 1d, cd, 3);
+            case AGF_SELLMEIER_3:
+                return sellmeier (name, 1d, cd, 4);
+            case AGF_SELLMEIER_5:
+                return sellmeier (name, 1d, cd, 5);
+            case AGF_SELLMEIER_4: {
+                /* n^2 = A + B l^2 / (l^2 - C) + D l^2 / (l^2 - E) */
+                final double[] k = pad (cd, 5);
+                final double[] terms = { k[1], k[2], k[3], k[4] };
+                return sellmeier (name, k[0], terms, 2);
+            }
+            default:
+                return null;
+        }
+    }
+
+    private static CatalogGlass fromYaml (String name, int formula, double[] c) {
+        /* formula 1: n^2 - 1 = C0 + sum (Ci l^2 / (l^2 - Ci+1^2))
+         * formula 2: n^2 - 1 = C0 + sum (Ci l^2 / (l^2 - Ci+1)) */
+        if (formula != 1 && formula != 2 || c.length < 1)
+            return null;
+        final double[] terms = new double[c.length - 1];
+        for (int i = 0; i + 1 < terms.length; i += 2) {
+            terms[i] = c[i + 1];
+            terms[i + 1] = formula == 1 ? c[i + 2] * c[i + 2] : c[i + 2];
+        }
+        return sellmeier (name, 1d + c[0], terms, terms.length / 2);
+    }
+
+    /* builds a Sellmeier glass from (B, C) pairs, dropping unused terms */
+    private static CatalogGlass sellmeier (String name, double a, double[] pairs, int terms) {
+        final double[] padded = pad (pairs, 2 * terms);
+        final List<Double> k = new ArrayList<> ();
+        k.add (a);
+        for (int t = 0; t < terms; ++t) {
+            if (padded[2 * t] == 0d)
+                continue;
+            k.add (padded[2 * t]);
+            k.add (padded[2 * t + 1]);
+        }
+        final double[] coefficients = new double[k.size ()];
+        for (int i = 0; i < coefficients.length; ++i)
+            coefficients[i] = k.get (i);
+        return new CatalogGlass (name, DispersionFormula.SELLMEIER, coefficients);
+    }
+
+    private static double[] pad (double[] values, int length) {
+        final double[] padded = new double[length];
+        System.arraycopy (values, 0, padded, 0, Math.min (length, values.length));
+        return padded;
+    }
+
+    private static double parseNumber (String token, String line) throws IOException {
+        try {
+            return Double.parseDouble (token);
+        }
+        catch (NumberFormatException e) {
+            throw new IOException ("malformed number '" + token + "' in line: " + line, e);
+        }
+    }
+
+    /* AGF files are commonly saved as UTF-16 with a byte order mark */
+    private static String decode (byte[] bytes) {
+        if (bytes.length >= 2 && (bytes[0] & 0xFF) == 0xFF && (bytes[1] & 0xFF) == 0xFE)
+            return new String (bytes, 2, bytes.length - 2, StandardCharsets.UTF_16LE);
+        if (bytes.length >= 2 && (bytes[0] & 0xFF) == 0xFE && (bytes[1] & 0xFF) == 0xFF)
+            return new String (bytes, 2, bytes.length - 2, StandardCharsets.UTF_16BE);
+        if (bytes.length >= 3 && (bytes[0] & 0xFF) == 0xEF && (bytes[1] & 0xFF) == 0xBB && (bytes[2] & 0xFF) == 0xBF)
+            return new String (bytes, 3, bytes.length - 3, StandardCharsets.UTF_8);
+        return new String (bytes, StandardCharsets.UTF_8);
+    }
+}
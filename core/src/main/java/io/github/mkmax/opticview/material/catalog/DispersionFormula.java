@@ -0,0 +1,127 @@
+package io.github.mkmax.opticview.material.catalog;
+
+import io.github.mkmax.opticview.util.DoubleDouble;
+
+/* The dispersion formulas a compiled catalog can hold. Every formula
+ * evaluated by a catalog is reduced to one of these when it is compiled,
+ * with lambda always in micro-meters.
+ */
+public enum DispersionFormula {
+
+    /* n^2 = K[0] + sum (K[2i+1] * lambda^2 / (lambda^2 - K[2i+2]))
+     *
+     * Covers the Sellmeier variants of Zemax and refractiveindex.info. */
+    SELLMEIER (1) {
+        @Override
+        public double calcRefractiveIndex (double[] k, double lambda) {
+            final double lambdaSq = lambda * lambda;
+            double nSq = k[0];
+            for (int t = 1; t + 1 < k.length; t += 2)
+                nSq += k[t] * lambdaSq / (lambdaSq - k[t + 1]);
+            return Math.sqrt (nSq);
+        }
+
+        @Override
+        public void calcRefractiveIndex (double[] k, double[] lambda, double[] out, int from, int to) {
+            /* terms outer, samples inner, summed in the scalar order */
+            for (int i = from; i < to; ++i)
+                out[i] = k[0];
+            for (int t = 1; t + 1 < k.length; t += 2) {
+                final double b = k[t], c = k[t + 1];
+                for (int i = from; i < to; ++i) {
+                    final double lambdaSq = lambda[i] * lambda[i];
+                    out[i] += b * lambdaSq / (lambdaSq - c);
+                }
+            }
+            for (int i = from; i < to; ++i)
+                out[i] = Math.sqrt (out[i]);
+        }
+
+        @Override
+        public void calcRefractiveIndex (double[] k, double lambda, DoubleDouble out) {
+            final DoubleDouble[] registers = REGISTERS.get ();
+            final DoubleDouble
+                lambdaSq = registers[0].set (lambda).mul (lambda),
+                term = registers[1],
+                denominator = registers[2];
+            out.set (k[0]);
+            for (int t = 1; t + 1 < k.length; t += 2) {
+                denominator.set (lambdaSq).sub (k[t + 1]);
+                out.add (term.set (lambdaSq).mul (k[t]).div (denominator));
+            }
+            out.sqrt ();
+        }
+    },
+
+    /* n^2 = K[0] + K[1] lambda^2 + K[2] lambda^-2 + K[3] lambda^-4
+     *            + K[4] lambda^-6 + K[5] lambda^-8 */
+    SCHOTT (2) {
+        @Override
+        public double calcRefractiveIndex (double[] k, double lambda) {
+            final double lambdaSq = lambda * lambda;
+            final double inv = 1d / lambdaSq;
+            return Math.sqrt (k[0] + k[1] * lambdaSq + inv * (k[2] + inv * (k[3] + inv * (k[4] + inv * k[5]))));
+        }
+
+        @Override
+        public void calcRefractiveIndex (double[] k, double[] lambda, double[] out, int from, int to) {
+            final double k0 = k[0], k1 = k[1], k2 = k[2], k3 = k[3], k4 = k[4], k5 = k[5];
+            for (int i = from; i < to; ++i) {
+                final double lambdaSq = lambda[i] * lambda[i];
+                final double inv = 1d / lambdaSq;
+                out[i] = Math.sqrt (k0 + k1 * lambdaSq + inv * (k2 + inv * (k3 + inv * (k4 + inv * k5))));
+            }
+        }
+
+        @Override
+        public void calcRefractiveIndex (double[] k, double lambda, DoubleDouble out) {
+            final DoubleDouble[] registers = REGISTERS.get ();
+            final DoubleDouble
+                lambdaSq = registers[0].set (lambda).mul (lambda),
+                inv = registers[1].set (lambdaSq).reciprocal ();
+
+            /* the same Horner scheme as the double form */
+            out.set (k[5]).mul (inv).add (k[4]).mul (inv).add (k[3]).mul (inv).add (k[2]).mul (inv);
+            out.add (lambdaSq.mul (k[1])).add (k[0]).sqrt ();
+        }
+
+        @Override
+        boolean isValid (double[] k) {
+            return k.length == 6;
+        }
+    };
+
+    /* the code identifying the formula in a compiled catalog */
+    public final int CODE;
+
+    /* scratch for the double-double forms; formulas are shared between
+     * threads, so each thread keeps its own */
+    private static final ThreadLocal<DoubleDouble[]> REGISTERS = ThreadLocal.withInitial (
+        () -> new DoubleDouble[] { new DoubleDouble (), new DoubleDouble (), new DoubleDouble () });
+
+    DispersionFormula (int pCode) {
+        CODE = pCode;
+    }
+
+    public static DispersionFormula fromCode (int code) {
+        for (DispersionFormula formula : values ())
+            if (formula.CODE == code)
+                return formula;
+        return null;
+    }
+
+    /* Computes the refractive index for a wavelength in micro-meters. */
+    public abstract double calcRefractiveIndex (double[] k, double lambda);
+
+    /* Computes the refractive indices for lambda[from, to) into out; the
+     * results are identical to the scalar method. */
+    public abstract void calcRefractiveIndex (double[] k, double[] lambda, double[] out, int from, int to);
+
+    /* Computes the refractive index in double-double precision. */
+    public abstract void calcRefractiveIndex (double[] k, double lambda, DoubleDouble out);
+
+    /* Returns true if the coefficients have the shape the formula needs. */
+    boolean isValid (double[] k) {
+        return k.length % 2 == 1;
+    }
+}
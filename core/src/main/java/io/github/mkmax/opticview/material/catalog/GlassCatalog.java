@@ -0,0 +1,266 @@
+package io.github.mkmax.opticview.material.catalog;
+
+import io.github.mkmax.opticview.material.IGlass;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/* A compiled, memory-mapped glass catalog.
+ *
+ * Catalogs are compiled once from AGF/YAML sources into a compact binary
+ * file, which is then mapped read-only. Opening a catalog reads nothing but
+ * its header, and glasses are only decoded when asked for, so startup time
+ * and heap use stay flat however many thousand glasses the file holds.
+ *
+ * File layout, little endian:
+ *
+ *     header      magic, version, glass count, coefficients offset,
+ *                 names offset, padding            (6 ints)
+ *     records     per glass, sorted by name: name offset, name length,
+ *                 formula code, coefficient count, first coefficient
+ *                                                  (5 ints)
+ *     coefficients  every glass's coefficients     (doubles)
+ *     names         every glass's name             (UTF-8)
+ *
+ * Records are sorted by name, so a glass is found by binary search directly
+ * on the mapping.
+ */
+public final class GlassCatalog {
+
+    /* +-----------+ */
+    /* | CONSTANTS | */
+    /* +-----------+ */
+    private static final int
+        MAGIC        = 0x4347564F, /* "OVGC" */
+        VERSION      = 1,
+        HEADER_BYTES = 6 * Integer.BYTES,
+        RECORD_BYTES = 5 * Integer.BYTES;
+
+    /* where the application looks for a catalog when none is configured */
+    public static final String CATALOG_PROPERTY = "opticview.glassCatalog";
+    private static final Path DEFAULT_CATALOG =
+        Paths.get (System.getProperty ("user.home"), ".opticview", "glasses.ovgc");
+
+    /* +--------------------------+ */
+    /* | MEMBERS & INITIALIZATION | */
+    /* +--------------------------+ */
+    private final ByteBuffer map;
+    private final int
+        count,
+        coefficientsOffset,
+        namesOffset;
+
+    private GlassCatalog (ByteBuffer pMap) throws IOException {
+        map = pMap.order (ByteOrder.LITTLE_ENDIAN);
+        if (map.capacity () < HEADER_BYTES || map.getInt (0) != MAGIC)
+            throw new IOException ("not a compiled glass catalog");
+        if (map.getInt (4) != VERSION)
+            throw new IOException ("unsupported glass catalog version " + map.getInt (4));
+        count = map.getInt (8);
+        coefficientsOffset = map.getInt (12);
+        namesOffset = map.getInt (16);
+        if (count < 0 ||
+            HEADER_BYTES + (long) count * RECORD_BYTES > coefficientsOffset ||
+            coefficientsOffset > namesOffset ||
+            namesOffset > map.capacity ())
+            throw new IOException ("corrupt glass catalog header");
+    }
+
+    /* Maps a compiled catalog. The mapping stays valid after the channel is
+     * closed and is released once the catalog is garbage collected.
+     */
+    public static GlassCatalog open (Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open (file, StandardOpenOption.READ)) {
+            return new GlassCatalog (channel.map (FileChannel.MapMode.READ_ONLY, 0, channel.size ()));
+        }
+    }
+
+    /* Opens the catalog named by the opticview.glassCatalog system property,
+     * or ~/.opticview/glasses.ovgc, returning null if there is none.
+     */
+    public static GlassCatalog openDefault () throws IOException {
+        final String configured = System.getProperty (CATALOG_PROPERTY);
+        final Path file = configured != null ? Paths.get (configured) : DEFAULT_CATALOG;
+        return Files.isRegularFile (file) ? open (file) : null;
+    }
+
+    /* +-----------+ */
+    /* | INTERFACE | */
+    /* +-----------+ */
+    public int size () {
+        return count;
+    }
+
+    /* Returns the name of the glass at the given index, in name order. */
+    public String getName (int index) {
+        Objects.checkIndex (index, count);
+        final int record = HEADER_BYTES + index * RECORD_BYTES;
+        final byte[] bytes = new byte[map.getInt (record + 4)];
+        final ByteBuffer view = map.duplicate ();
+        view.position (namesOffset + map.getInt (record));
+        view.get (bytes);
+        return new String (bytes, StandardCharsets.UTF_8);
+    }
+
+    /* Decodes the glass at the given index, in name order. */
+    public CatalogGlass get (int index) {
+        Objects.checkIndex (index, count);
+        final int record = HEADER_BYTES + index * RECORD_BYTES;
+        final DispersionFormula formula = DispersionFormula.fromCode (map.getInt (record + 8));
+        if (formula == null)
+            throw new RuntimeException ("unknown dispersion formula in glass catalog");
+        final double[] coefficients = new double[map.getInt (record + 12)];
+        final int first = coefficientsOffset + map.getInt (record + 16) * Double.BYTES;
+        for (int i = 0; i < coefficients.length; ++i)
+            coefficients[i] = map.getDouble (first + i * Double.BYTES);
+        return new CatalogGlass (getName (index), formula, coefficients);
+    }
+
+    /* Returns the index of the named glass, or a negative value if the
+     * catalog has no glass of that name.
+     */
+    public int indexOf (String name) {
+        int lo = 0, hi = count - 1;
+        while (lo <= hi) {
+            final int mid = (lo + hi) >>> 1;
+            final int cmp = getName (mid).compareTo (name);
+            if (cmp < 0)
+                lo = mid + 1;
+            else if (cmp > 0)
+                hi = mid - 1;
+            else
+                return mid;
+        }
+        return -1;
+    }
+
+    /* Returns the named glass, or null if the catalog has none. */
+    public CatalogGlass find (String name) {
+        final int index = indexOf (Objects.requireNonNull (name));
+        return index < 0 ? null : get (index);
+    }
+
+    /* Returns a read-only list over the catalog that decodes glasses as
+     * they are accessed, so only the glasses actually looked at, such as the
+     * visible rows of a list view, are ever materialized. Lookups go through
+     * the name index instead of scanning.
+     */
+    public List<IGlass> asList () {
+        return new AbstractList<IGlass> () {
+            @Override
+            public IGlass get (int index) {
+                return GlassCatalog.this.get (index);
+            }
+
+            @Override
+            public int size () {
+                return count;
+            }
+
+            @Override
+            public int indexOf (Object o) {
+                if (!(o instanceof CatalogGlass))
+                    return -1;
+                final int index = GlassCatalog.this.indexOf (((CatalogGlass) o).getName ());
+                return index >= 0 && get (index).equals (o) ? index : -1;
+            }
+
+            @Override
+            public int lastIndexOf (Object o) {
+                return indexOf (o);
+            }
+
+            @Override
+            public boolean contains (Object o) {
+                return indexOf (o) >= 0;
+            }
+        };
+    }
+
+    /* +-------------+ */
+    /* | COMPILATION | */
+    /* +-------------+ */
+
+    /* Writes the glasses to a compiled catalog file. Glasses are sorted by
+     * name; when a name occurs more than once the first occurrence wins.
+     */
+    public static void compile (List<CatalogGlass> glasses, Path file) throws IOException {
+        /* sort and de-duplicate */
+        final List<CatalogGlass> sorted = new ArrayList<> (glasses);
+        sorted.sort (Comparator.comparing (CatalogGlass::getName));
+        final List<CatalogGlass> unique = new ArrayList<> (sorted.size ());
+        for (CatalogGlass glass : sorted)
+            if (unique.isEmpty () || !unique.get (unique.size () - 1).getName ().equals (glass.getName ()))
+                unique.add (glass);
+
+        /* measure the sections */
+        final byte[][] names = new byte[unique.size ()][];
+        int coefficientCount = 0, nameBytes = 0;
+        for (int i = 0; i < names.length; ++i) {
+            names[i] = unique.get (i).getName ().getBytes (StandardCharsets.UTF_8);
+            nameBytes += names[i].length;
+            coefficientCount += unique.get (i).getCoefficients ().length;
+        }
+        final int coefficientsOffset = HEADER_BYTES + unique.size () * RECORD_BYTES;
+        final int alignedCoefficientsOffset = (coefficientsOffset + Double.BYTES - 1) & -Double.BYTES;
+        final int namesOffset = alignedCoefficientsOffset + coefficientCount * Double.BYTES;
+
+        /* fill the image */
+        final ByteBuffer out = ByteBuffer.allocate (namesOffset + nameBytes).order (ByteOrder.LITTLE_ENDIAN);
+        out.putInt (MAGIC).putInt (VERSION).putInt (unique.size ())
+           .putInt (alignedCoefficientsOffset).putInt (namesOffset).putInt (0);
+
+        int nextName = 0, nextCoefficient = 0;
+        for (int i = 0; i < names.length; ++i) {
+            final CatalogGlass glass = unique.get (i);
+            final double[] k = glass.getCoefficients ();
+            out.putInt (HEADER_BYTES + i * RECORD_BYTES, nextName)
+               .putInt (HEADER_BYTES + i * RECORD_BYTES + 4, names[i].length)
+               .putInt (HEADER_BYTES + i * RECORD_BYTES + 8, glass.getFormula ().CODE)
+               .putInt (HEADER_BYTES + i * RECORD_BYTES + 12, k.length)
+               .putInt (HEADER_BYTES + i * RECORD_BYTES + 16, nextCoefficient);
+            for (double v : k)
+                out.putDouble (alignedCoefficientsOffset + (nextCoefficient++) * Double.BYTES, v);
+            out.position (namesOffset + nextName);
+            out.put (names[i]);
+            nextName += names[i].length;
+        }
+
+        out.clear ();
+        try (FileChannel channel = FileChannel.open (file,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            while (out.hasRemaining ())
+                channel.write (out);
+        }
+    }
+
+    /* Compiles catalogs from the command line:
+     *
+     *     GlassCatalog <output> <source.agf|source.yml>...
+     */
+    public static void main (String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println ("usage: GlassCatalog <output> <source.agf|source.yml>...");
+            System.exit (1);
+        }
+
+        final List<CatalogGlass> glasses = new ArrayList<> ();
+        for (int i = 1; i < args.length; ++i)
+            glasses.addAll (DispersionFileParser.parseFile (Paths.get (args[i])));
+        compile (glasses, Paths.get (args[0]));
+        System.out.println ("compiled " + glasses.size () + " glasses into " + args[0]);
+    }
+}
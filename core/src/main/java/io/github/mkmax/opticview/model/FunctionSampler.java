@@ -0,0 +1,269 @@
+package io.github.mkmax.opticview.model;
+
+import io.github.mkmax.opticview.sampling.AdaptiveSampler;
+import io.github.mkmax.opticview.sampling.IGridFunction;
+import io.github.mkmax.opticview.sampling.ISampleView;
+import io.github.mkmax.opticview.sampling.SampleBuffer;
+import io.github.mkmax.opticview.sampling.SampleCache;
+import io.github.mkmax.opticview.sampling.UniformSampler;
+import io.github.mkmax.opticview.util.DoubleDouble;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+/* Turns function specs into samples, applying every sampling setting a
+ * spec carries: uniform or adaptive grids, extended precision, parallel
+ * slices for pure functions and shared samples for scaled functions.
+ *
+ * A sampler may be used from any number of threads at once. Sampling runs
+ * on the calling thread (parallel grids fork onto the pool) and honours
+ * its interrupts, so it can be driven by a SamplingEngine as easily as by
+ * a plain loop in a headless worker. Returned buffers are never touched by
+ * the sampler again.
+ */
+public class FunctionSampler {
+
+    /* the default memory kept for the samples of scaled functions' bases */
+    public static final long DEFAULT_SHARED_SAMPLES_BUDGET = 32L << 20;
+
+    /* +--------------------------+ */
+    /* | MEMBERS & INITIALIZATION | */
+    /* +--------------------------+ */
+    private final SampleCache sharedSamples;
+    private final ForkJoinPool pool;
+
+    public FunctionSampler (long pSharedSamplesBudget, ForkJoinPool pPool) {
+        sharedSamples = new SampleCache (pSharedSamplesBudget);
+        pool = Objects.requireNonNull (pPool, "a pool must be specified");
+    }
+
+    public FunctionSampler () {
+        this (DEFAULT_SHARED_SAMPLES_BUDGET, ForkJoinPool.commonPool ());
+    }
+
+    /* +-----------+ */
+    /* | INTERFACE | */
+    /* +-----------+ */
+
+    /* Samples the spec over its range. Width and height give the size, in
+     * pixels, of the area the curve is drawn into; only adaptive sampling
+     * looks at them.
+     */
+    public SampleBuffer sample (FunctionSpec spec, double width, double height) {
+        Objects.requireNonNull (spec, "a spec must be specified");
+
+        /* a scaled function copies the shared samples of its base */
+        final SharedSamplesKey sharedKey = SharedSamplesKey.of (spec, width, height);
+        if (sharedKey != null) {
+            SampleBuffer base = sharedSamples.get (sharedKey);
+            if (base == null) {
+                base = sample (asGridFunction (sharedKey.base, spec.getPrecision ()), spec.getSamplingMode (),
+                    spec.getStart (), spec.getStep (), spec.getEnd (), width, height, spec.getMaxSamples (), spec.isPure ());
+                sharedSamples.put (sharedKey, base);
+            }
+            final SampleBuffer buffer = new SampleBuffer (base.size ());
+            buffer.setScaled (base, ((IScaledFunction) spec.getFunction ()).getScale ());
+            return buffer;
+        }
+
+        return sample (asGridFunction (spec.getFunction (), spec.getPrecision ()), spec.getSamplingMode (),
+            spec.getStart (), spec.getStep (), spec.getEnd (), width, height, spec.getMaxSamples (), spec.isPure ());
+    }
+
+    /* Samples a uniform spec whose range moved from a previous full-step
+     * sampling of the same function and step, evaluating only the points
+     * the previous samples do not hold. Specs that cannot reuse them are
+     * simply sampled in full.
+     */
+    public SampleBuffer extend (FunctionSpec spec, ISampleView previous, double previousStart) {
+        Objects.requireNonNull (spec, "a spec must be specified");
+        if (spec.getSamplingMode () != SamplingMode.UNIFORM || SharedSamplesKey.of (spec, 0d, 0d) != null)
+            return sample (spec, 0d, 0d);
+
+        final SampleBuffer buffer = new SampleBuffer (
+            UniformSampler.countSamples (spec.getStart (), spec.getStep (), spec.getEnd (), spec.getMaxSamples ()));
+        UniformSampler.resample (asGridFunction (spec.getFunction (), spec.getPrecision ()), previous, previousStart,
+            spec.getStart (), spec.getStep (), spec.getEnd (), spec.getMaxSamples (), buffer);
+        return buffer;
+    }
+
+    /* Samples the spec's function over a window of its own, such as the
+     * visible part of a zoomed-in plot, on the calling thread and with no
+     * sharing. The step is not held to the spec's minimum.
+     */
+    public SampleBuffer sampleWindow (
+        FunctionSpec spec,
+        double       from,
+        double       step,
+        double       to,
+        double       width,
+        double       height,
+        int          maxSamples)
+    {
+        Objects.requireNonNull (spec, "a spec must be specified");
+        return sample (asGridFunction (spec.getFunction (), spec.getPrecision ()), spec.getSamplingMode (),
+            from, step, to, width, height, maxSamples, false);
+    }
+
+    /* Forgets every shared sample. */
+    public void clearSharedSamples () {
+        sharedSamples.clear ();
+    }
+
+    /* +-----------+ */
+    /* | UTILITIES | */
+    /* +-----------+ */
+
+    /* Adapts a function to the samplers, evaluating it in the given
+     * precision. An extended precision adapter evaluates single points into
+     * one accumulator of its own, so its scalar form must be called from one
+     * thread at a time, as adaptive sampling does; its bulk form may run on
+     * several threads at once.
+     */
+    public static IGridFunction asGridFunction (IRealFunction func, Precision precision) {
+        Objects.requireNonNull (func, "a function must be specified");
+        if (precision == Precision.EXTENDED) {
+            /* each sample is rounded once, from the double-double result; a
+             * run takes an accumulator of its own, and neither form allocates
+             * per sample */
+            return new IGridFunction () {
+                private final DoubleDouble value = new DoubleDouble ();
+
+                @Override
+                public double applyAsDouble (double x) {
+                    func.eval (x, value);
+                    return value.doubleValue ();
+                }
+
+                @Override
+                public void applyAsDouble (double[] x, double[] out, int from, int to) {
+                    final DoubleDouble run = new DoubleDouble ();
+                    for (int i = from; i < to; ++i) {
+                        func.eval (x[i], run);
+                        out[i] = run.doubleValue ();
+                    }
+                }
+            };
+        }
+        return new IGridFunction () {
+            @Override
+            public double applyAsDouble (double x) {
+                return func.eval (x);
+            }
+
+            @Override
+            public void applyAsDouble (double[] x, double[] out, int from, int to) {
+                func.eval (x, out, from, to);
+            }
+        };
+    }
+
+    /* +----------+ */
+    /* | INTERNAL | */
+    /* +----------+ */
+
+    /* A parallel uniform sampling spreads over the pool; adaptive sampling
+     * follows the curve and stays serial.
+     */
+    private SampleBuffer sample (
+        IGridFunction func,
+        SamplingMode  mode,
+        double        start,
+        double        step,
+        double        end,
+        double        width,
+        double        height,
+        int           maxSamples,
+        boolean       parallel)
+    {
+        final SampleBuffer buffer;
+        switch (mode) {
+            case ADAPTIVE:
+                buffer = new SampleBuffer ();
+                AdaptiveSampler.sample (func, start, step, end,
+                    width, height, AdaptiveSampler.DEFAULT_TOLERANCE, buffer);
+                break;
+            case UNIFORM:
+            default:
+                buffer = new SampleBuffer (UniformSampler.countSamples (start, step, end, maxSamples));
+                if (parallel)
+                    UniformSampler.sampleParallel (func, start, step, end, maxSamples, buffer, pool);
+                else
+                    UniformSampler.sample (func, start, step, end, maxSamples, buffer);
+                break;
+        }
+        return buffer;
+    }
+
+    /* Identifies the samples of a scaled function's base: everything that
+     * decides where the base is sampled and how it is evaluated. The plot
+     * size only matters to adaptive sampling, the sample cap only to
+     * uniform sampling.
+     */
+    private static final class SharedSamplesKey {
+        final IRealFunction base;
+        final SamplingMode mode;
+        final Precision precision;
+        final double start, step, end, width, height;
+        final int maxSamples;
+
+        private SharedSamplesKey (
+            IRealFunction pBase,
+            SamplingMode  pMode,
+            Precision     pPrecision,
+            double        pStart,
+            double        pStep,
+            double        pEnd,
+            double        pWidth,
+            double        pHeight,
+            int           pMaxSamples)
+        {
+            base = pBase;
+            mode = pMode;
+            precision = pPrecision;
+            start = pStart;
+            step = pStep;
+            end = pEnd;
+            width = pWidth;
+            height = pHeight;
+            maxSamples = pMaxSamples;
+        }
+
+        /* returns null for functions that are sampled directly */
+        static SharedSamplesKey of (FunctionSpec spec, double width, double height) {
+            if (!(spec.getFunction () instanceof IScaledFunction))
+                return null;
+            final IScaledFunction scaled = (IScaledFunction) spec.getFunction ();
+            final double scale = scaled.getScale ();
+            if (scale == 0d || !Double.isFinite (scale) || scaled.getBase () == null)
+                return null;
+            final boolean adaptive = spec.getSamplingMode () == SamplingMode.ADAPTIVE;
+            return new SharedSamplesKey (scaled.getBase (), spec.getSamplingMode (), spec.getPrecision (),
+                spec.getStart (), spec.getStep (), spec.getEnd (),
+                adaptive ? width : 0d, adaptive ? height : 0d, adaptive ? 0 : spec.getMaxSamples ());
+        }
+
+        @Override
+        public boolean equals (Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof SharedSamplesKey))
+                return false;
+            final SharedSamplesKey k = (SharedSamplesKey) o;
+            return base.equals (k.base) &&
+                mode == k.mode &&
+                precision == k.precision &&
+                Double.compare (start, k.start) == 0 &&
+                Double.compare (step, k.step) == 0 &&
+                Double.compare (end, k.end) == 0 &&
+                Double.compare (width, k.width) == 0 &&
+                Double.compare (height, k.height) == 0 &&
+                maxSamples == k.maxSamples;
+        }
+
+        @Override
+        public int hashCode () {
+            return Objects.hash (base, mode, precision, start, step, end, width, height, maxSamples);
+        }
+    }
+}
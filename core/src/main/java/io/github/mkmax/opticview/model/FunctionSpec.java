@@ -0,0 +1,225 @@
+package io.github.mkmax.opticview.model;
+
+import io.github.mkmax.opticview.sampling.UniformSampler;
+import io.github.mkmax.opticview.units.IUnit;
+
+import java.util.Objects;
+
+/* Everything that decides how a function is sampled: the function itself,
+ * its units, its range and the sampling settings.
+ *
+ * Specs are immutable, so they can be handed between threads freely; every
+ * with method returns a changed copy. The graph keeps an observable entry
+ * per plot and takes a spec of it whenever it samples, while a headless
+ * worker can build and sample specs directly.
+ */
+public final class FunctionSpec {
+
+    /* +-----------+ */
+    /* | CONSTANTS | */
+    /* +-----------+ */
+
+    /* the samples a uniform grid is capped at unless the spec sets its own
+     * cap, and the largest cap a spec may ask for */
+    public static final int
+        DEFAULT_MAX_SAMPLES = 1 << 16,
+        MAX_SAMPLES_LIMIT   = 1 << 24;
+
+    /* +--------------------------+ */
+    /* | MEMBERS & INITIALIZATION | */
+    /* +--------------------------+ */
+    private final IRealFunction function;
+    private final String name;
+    private final IUnit
+        inputUnits,
+        outputUnits;
+    private final double
+        start,
+        step,
+        end;
+    private final SamplingMode samplingMode;
+    private final Precision precision;
+    private final int maxSamples;
+    private final boolean pure;
+
+    public FunctionSpec (
+        IRealFunction pFunction,
+        String        pName,
+        IUnit         pInputUnits,
+        IUnit         pOutputUnits,
+        double        pStart,
+        double        pStep,
+        double        pEnd)
+    {
+        this (pFunction, pName, pInputUnits, pOutputUnits, pStart, pStep, pEnd,
+            SamplingMode.UNIFORM, Precision.DOUBLE, DEFAULT_MAX_SAMPLES, false);
+    }
+
+    private FunctionSpec (
+        IRealFunction pFunction,
+        String        pName,
+        IUnit         pInputUnits,
+        IUnit         pOutputUnits,
+        double        pStart,
+        double        pStep,
+        double        pEnd,
+        SamplingMode  pSamplingMode,
+        Precision     pPrecision,
+        int           pMaxSamples,
+        boolean       pPure)
+    {
+        function = Objects.requireNonNull (pFunction, "a function must be specified");
+        name = pName;
+        inputUnits = Objects.requireNonNull (pInputUnits, "input units must be specified");
+        outputUnits = Objects.requireNonNull (pOutputUnits, "output units must be specified");
+        validateRange (pStart, pStep, pEnd);
+        start = pStart;
+        step = pStep;
+        end = pEnd;
+        samplingMode = Objects.requireNonNull (pSamplingMode, "a sampling mode must be specified");
+        precision = Objects.requireNonNull (pPrecision, "a precision must be specified");
+        validateMaxSamples (pMaxSamples);
+        maxSamples = pMaxSamples;
+        pure = pPure;
+    }
+
+    /* +-----------+ */
+    /* | INTERFACE | */
+    /* +-----------+ */
+    public IRealFunction getFunction () {
+        return function;
+    }
+
+    public String getName () {
+        return name;
+    }
+
+    public IUnit getInputUnits () {
+        return inputUnits;
+    }
+
+    public IUnit getOutputUnits () {
+        return outputUnits;
+    }
+
+    public double getStart () {
+        return start;
+    }
+
+    public double getStep () {
+        return step;
+    }
+
+    public double getEnd () {
+        return end;
+    }
+
+    public SamplingMode getSamplingMode () {
+        return samplingMode;
+    }
+
+    public Precision getPrecision () {
+        return precision;
+    }
+
+    /* Uniform grids needing more points than this are stretched evenly over
+     * the range instead.
+     */
+    public int getMaxSamples () {
+        return maxSamples;
+    }
+
+    /* Whether the function is declared pure: free of shared mutable state,
+     * so safe to evaluate from several threads at once.
+     */
+    public boolean isPure () {
+        return pure;
+    }
+
+    /* Returns whether a uniform grid over the range keeps the requested
+     * step, rather than being stretched to fit the sample cap.
+     */
+    public boolean isFullStep () {
+        return UniformSampler.effectiveStep (start, step, end, maxSamples) == step;
+    }
+
+    /* Returns whether sampling this spec gives the same samples as the
+     * other: the same function over the same range, sampled the same way.
+     * Names, units and purity do not matter.
+     */
+    public boolean samplesLike (FunctionSpec other) {
+        return other != null &&
+            function == other.function &&
+            Double.compare (start, other.start) == 0 &&
+            Double.compare (step, other.step) == 0 &&
+            Double.compare (end, other.end) == 0 &&
+            samplingMode == other.samplingMode &&
+            precision == other.precision &&
+            maxSamples == other.maxSamples;
+    }
+
+    /* +--- COPIES ---+ */
+    public FunctionSpec withFunction (IRealFunction nFunction) {
+        return new FunctionSpec (nFunction, name, inputUnits, outputUnits, start, step, end,
+            samplingMode, precision, maxSamples, pure);
+    }
+
+    public FunctionSpec withName (String nName) {
+        return new FunctionSpec (function, nName, inputUnits, outputUnits, start, step, end,
+            samplingMode, precision, maxSamples, pure);
+    }
+
+    public FunctionSpec withRange (double nStart, double nStep, double nEnd) {
+        return new FunctionSpec (function, name, inputUnits, outputUnits, nStart, nStep, nEnd,
+            samplingMode, precision, maxSamples, pure);
+    }
+
+    public FunctionSpec withSamplingMode (SamplingMode nMode) {
+        return new FunctionSpec (function, name, inputUnits, outputUnits, start, step, end,
+            nMode, precision, maxSamples, pure);
+    }
+
+    public FunctionSpec withPrecision (Precision nPrecision) {
+        return new FunctionSpec (function, name, inputUnits, outputUnits, start, step, end,
+            samplingMode, nPrecision, maxSamples, pure);
+    }
+
+    public FunctionSpec withMaxSamples (int nMaxSamples) {
+        return new FunctionSpec (function, name, inputUnits, outputUnits, start, step, end,
+            samplingMode, precision, nMaxSamples, pure);
+    }
+
+    public FunctionSpec withPure (boolean nPure) {
+        return new FunctionSpec (function, name, inputUnits, outputUnits, start, step, end,
+            samplingMode, precision, maxSamples, nPure);
+    }
+
+    @Override
+    public String toString () {
+        return String.format ("%s [%s, %s, %s]", name, start, step, end);
+    }
+
+    /* +-----------+ */
+    /* | UTILITIES | */
+    /* +-----------+ */
+
+    /* The step may be as fine as the largest sample cap allows, whatever
+     * the units: a range of a few micrometers still takes millions of
+     * samples.
+     */
+    public static void validateRange (
+        double pStart,
+        double pStep,
+        double pEnd) throws RuntimeException
+    {
+        if (pStep == 0d || Math.abs (pStep) * MAX_SAMPLES_LIMIT < Math.abs (pEnd - pStart))
+            throw new RuntimeException ("step is too small (a range holds at most " + MAX_SAMPLES_LIMIT + " steps)");
+        if (Math.signum (pEnd - pStart) != Math.signum (pStep))
+            throw new RuntimeException ("step is heading out of interval bounds");
+    }
+
+    public static void validateMaxSamples (int pMaxSamples) throws RuntimeException {
+        if (pMaxSamples < 2 || pMaxSamples > MAX_SAMPLES_LIMIT)
+            throw new RuntimeException ("the sample cap must lie within [2, " + MAX_SAMPLES_LIMIT + "]");
+    }
+}
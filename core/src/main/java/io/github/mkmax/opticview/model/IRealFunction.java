@@ -0,0 +1,30 @@
+package io.github.mkmax.opticview.model;
+
+import io.github.mkmax.opticview.util.DoubleDouble;
+
+/* A real function of one variable, the thing every plot and sweep samples.
+ *
+ * Functions are sampled on background threads, so implementations must be
+ * safe to evaluate off the thread that created them.
+ *
+ * Uniform sampling evaluates whole runs of the grid through the bulk
+ * overload; functions with a cheaper array form should override it.
+ */
+@FunctionalInterface
+public interface IRealFunction {
+    double eval (double x);
+
+    /* Writes eval (x[i]) to out[i] for every i in [from, to). */
+    default void eval (double[] x, double[] out, int from, int to) {
+        for (int i = from; i < to; ++i)
+            out[i] = eval (x[i]);
+    }
+
+    /* Evaluates in double-double precision, used by functions sampled with
+     * Precision.EXTENDED; functions without a more precise form fall back to
+     * the double result.
+     */
+    default void eval (double x, DoubleDouble out) {
+        out.set (eval (x));
+    }
+}
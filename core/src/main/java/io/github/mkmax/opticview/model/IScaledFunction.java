@@ -0,0 +1,17 @@
+package io.github.mkmax.opticview.model;
+
+/* A function that is a constant multiple of a base function, like a family
+ * of curves differing only by a factor. Functions with equal bases, ranges
+ * and modes share the samples of the base: it is sampled once, and each
+ * function takes a scaled copy. Adaptive sampling places its points the
+ * same way whatever the factor, so the copy holds what sampling the
+ * function itself would have given, up to rounding.
+ *
+ * Bases are compared with equals, so they must be immutable values. A zero
+ * or non-finite scale is sampled directly.
+ */
+public interface IScaledFunction extends IRealFunction {
+    IRealFunction getBase ();
+
+    double getScale ();
+}
@@ -0,0 +1,10 @@
+package io.github.mkmax.opticview.model;
+
+public enum Precision {
+    /* plain double arithmetic */
+    DOUBLE,
+
+    /* evaluate through the double-double overload and round each sample
+     * once at the end; a small constant factor slower */
+    EXTENDED
+}
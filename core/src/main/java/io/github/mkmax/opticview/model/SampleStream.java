@@ -0,0 +1,225 @@
+package io.github.mkmax.opticview.model;
+
+import io.github.mkmax.opticview.sampling.IGridFunction;
+import io.github.mkmax.opticview.sampling.SampleBuffer;
+import io.github.mkmax.opticview.sampling.SampleChunk;
+import io.github.mkmax.opticview.sampling.UniformSampler;
+
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/* Publishes one sampling pass of a spec as a stream of chunks, so that any
+ * number of consumers (a plot, an exporter, a statistics panel) share a
+ * single evaluation of the function and each handles the samples as they
+ * arrive.
+ *
+ * Subscribe everyone first, then start the pass; a subscriber joining
+ * later only sees the chunks published after it joined. Every subscriber
+ * has a buffer of its own, and the pass waits whenever one of them is full,
+ * so a slow consumer holds the evaluation back rather than piling up
+ * chunks. Once every subscriber has cancelled, the pass stops early.
+ *
+ * The pass must not run on the executor that notifies the subscribers: a
+ * bounded one would have its threads waiting for room in buffers that only
+ * those same threads can drain. A pass stuck that way still ends on cancel.
+ *
+ * A uniform spec is evaluated a chunk at a time. Adaptive and scaled specs
+ * are sampled in full by the sampler (adaptive sampling needs the whole
+ * curve, scaled specs copy shared samples) and then published in chunks.
+ */
+public final class SampleStream implements Flow.Publisher<SampleChunk> {
+
+    /* samples per chunk unless the stream is given its own size */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 12;
+
+    /* how long a full buffer is waited on before checking for cancellation */
+    private static final long
+        OFFER_TIMEOUT_MILLIS = 50L,
+        ROOM_POLL_NANOS      = 1_000_000L;
+
+    private static final AtomicInteger threadCounter = new AtomicInteger ();
+
+    /* +--------------------------+ */
+    /* | MEMBERS & INITIALIZATION | */
+    /* +--------------------------+ */
+    private final FunctionSampler sampler;
+    private final FunctionSpec spec;
+    private final double
+        width,
+        height;
+    private final int chunkSize;
+    private final SubmissionPublisher<SampleChunk> publisher;
+    private final AtomicBoolean
+        started   = new AtomicBoolean (),
+        cancelled = new AtomicBoolean ();
+
+    /* Subscribers are notified on the given executor, each buffering up to
+     * bufferCapacity chunks. Width and height give the plot size adaptive
+     * sampling is done for.
+     */
+    public SampleStream (
+        FunctionSampler pSampler,
+        FunctionSpec    pSpec,
+        double          pWidth,
+        double          pHeight,
+        int             pChunkSize,
+        Executor        pExecutor,
+        int             pBufferCapacity)
+    {
+        this (pSampler, pSpec, pWidth, pHeight, pChunkSize, new SubmissionPublisher<> (
+            Objects.requireNonNull (pExecutor, "an executor must be specified"), pBufferCapacity));
+    }
+
+    /* Notifies subscribers on the common pool, with the default buffers. */
+    public SampleStream (FunctionSampler pSampler, FunctionSpec pSpec, double pWidth, double pHeight) {
+        this (pSampler, pSpec, pWidth, pHeight, DEFAULT_CHUNK_SIZE, new SubmissionPublisher<> ());
+    }
+
+    private SampleStream (
+        FunctionSampler                  pSampler,
+        FunctionSpec                     pSpec,
+        double                           pWidth,
+        double                           pHeight,
+        int                              pChunkSize,
+        SubmissionPublisher<SampleChunk> pPublisher)
+    {
+        sampler = Objects.requireNonNull (pSampler, "a sampler must be specified");
+        spec = Objects.requireNonNull (pSpec, "a spec must be specified");
+        if (pChunkSize < 1)
+            throw new RuntimeException ("chunks must hold at least one sample");
+        width = pWidth;
+        height = pHeight;
+        chunkSize = pChunkSize;
+        publisher = pPublisher;
+    }
+
+    /* +-----------+ */
+    /* | INTERFACE | */
+    /* +-----------+ */
+    @Override
+    public void subscribe (Flow.Subscriber<? super SampleChunk> subscriber) {
+        publisher.subscribe (subscriber);
+    }
+
+    public FunctionSpec getSpec () {
+        return spec;
+    }
+
+    /* Runs the pass on the given executor, which should not be the one the
+     * subscribers are notified on. The future completes once every chunk has
+     * been handed to the subscribers' buffers, or exceptionally when the
+     * function throws or the stream is cancelled; subscribers hear of either
+     * through onComplete or onError. A stream runs once.
+     */
+    public CompletableFuture<Void> start (Executor executor) {
+        Objects.requireNonNull (executor, "an executor must be specified");
+        if (!started.compareAndSet (false, true))
+            throw new RuntimeException ("the stream was already started");
+        return CompletableFuture.runAsync (this::run, executor);
+    }
+
+    /* Runs the pass on a daemon thread of its own. */
+    public CompletableFuture<Void> start () {
+        return start (r -> {
+            final Thread thread = new Thread (r, "opticview-stream-" + threadCounter.incrementAndGet ());
+            thread.setDaemon (true);
+            thread.start ();
+        });
+    }
+
+    /* Stops the pass after the chunk being evaluated, or while it waits for
+     * a full buffer; subscribers receive a CancellationException.
+     */
+    public void cancel () {
+        cancelled.set (true);
+    }
+
+    /* +----------+ */
+    /* | INTERNAL | */
+    /* +----------+ */
+    private void run () {
+        try {
+            if (spec.getSamplingMode () == SamplingMode.UNIFORM && !(spec.getFunction () instanceof IScaledFunction))
+                publishUniform ();
+            else
+                publishSampled ();
+            publisher.close ();
+        }
+        catch (RuntimeException e) {
+            publisher.closeExceptionally (e);
+            throw e;
+        }
+    }
+
+    /* evaluates the grid a chunk at a time, always in ascending x */
+    private void publishUniform () {
+        final double
+            start = spec.getStart (),
+            end = spec.getEnd ();
+        final int samples = UniformSampler.countSamples (start, spec.getStep (), end, spec.getMaxSamples ());
+        final double step = UniformSampler.effectiveStep (start, spec.getStep (), end, spec.getMaxSamples ());
+        final boolean descending = end < start;
+        final IGridFunction func = FunctionSampler.asGridFunction (spec.getFunction (), spec.getPrecision ());
+
+        for (int from = 0; from < samples; from += chunkSize) {
+            if (!proceed ())
+                return;
+            final int count = Math.min (chunkSize, samples - from);
+            final double[]
+                xs = new double[count],
+                ys = new double[count];
+            for (int i = 0; i < count; ++i) {
+                final int index = descending ? samples - 1 - (from + i) : from + i;
+                xs[i] = index + 1 == samples ? end : start + index * step;
+            }
+            func.applyAsDouble (xs, ys, 0, count);
+            publish (new SampleChunk (xs, ys, count, from));
+        }
+    }
+
+    private void publishSampled () {
+        final SampleBuffer buffer = sampler.sample (spec, width, height);
+        for (int from = 0; from < buffer.size (); from += chunkSize) {
+            if (!proceed ())
+                return;
+            publish (SampleChunk.copyOf (buffer, from, Math.min (buffer.size (), from + chunkSize), from));
+        }
+    }
+
+    /* Hands a chunk to every subscriber, waiting while any buffer is full.
+     * A subscriber the offer times out on is retried once its buffer has
+     * room, so none misses a chunk and none sees one twice; the wait gives
+     * up only when the stream is cancelled.
+     */
+    private void publish (SampleChunk chunk) {
+        publisher.offer (chunk, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS, (subscriber, dropped) -> awaitRoom ());
+        if (cancelled.get ())
+            throw new CancellationException ("the stream was cancelled");
+    }
+
+    /* true once every buffer has room again, false if cancelled first */
+    private boolean awaitRoom () {
+        final int capacity = publisher.getMaxBufferCapacity ();
+        while (publisher.estimateMaximumLag () >= capacity) {
+            if (cancelled.get ())
+                return false;
+            LockSupport.parkNanos (ROOM_POLL_NANOS);
+        }
+        return true;
+    }
+
+    /* false once nobody listens; a cancelled stream stops by throwing */
+    private boolean proceed () {
+        if (cancelled.get ())
+            throw new CancellationException ("the stream was cancelled");
+        return publisher.hasSubscribers ();
+    }
+}
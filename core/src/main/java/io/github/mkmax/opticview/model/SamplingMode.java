@@ -0,0 +1,11 @@
+package io.github.mkmax.opticview.model;
+
+public enum SamplingMode {
+    /* evaluate on the fixed step grid, capped at the function's maximum;
+     * pure functions are split across the cores */
+    UNIFORM,
+
+    /* start from the step grid and bisect wherever the curve bends or jumps
+     * by more than AdaptiveSampler.DEFAULT_TOLERANCE pixels */
+    ADAPTIVE
+}
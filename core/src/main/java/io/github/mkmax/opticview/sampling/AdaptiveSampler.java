@@ -0,0 +1,214 @@
+package io.github.mkmax.opticview.sampling;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.DoubleUnaryOperator;
+
+/* Samples a function by recursively bisecting intervals wherever the curve
+ * bends or jumps by more than a tolerance measured in pixels.
+ *
+ * Flat stretches end up with a handful of samples while poles and sharp
+ * bends are followed down to a fraction of a pixel. Where refinement runs
+ * out and the curve still jumps (an asymptote, or the edge of a region
+ * where the function is undefined), a NaN sample is written between the
+ * two sides so that the line is not drawn across the break.
+ */
+public class AdaptiveSampler {
+
+    /* default maximum deviation, in pixels, between the curve and its chords */
+    public static final double DEFAULT_TOLERANCE = 0.5d;
+
+    /* the most intervals the initial grid is split into before refining */
+    private static final int INITIAL_INTERVALS = 64;
+
+    /* intervals narrower than this (in pixels) are never bisected again */
+    private static final double MIN_INTERVAL_PIXELS = 0.25d;
+
+    /* fraction of the initial samples ignored at each end of the y range
+     * when estimating the vertical scale, so a pole does not flatten it */
+    private static final double SCALE_TRIM = 0.05d;
+
+    /* extra bisections used to tell a steep stretch from a real jump */
+    private static final int DISCONTINUITY_PROBES = 10;
+
+    /* how often (in evaluations) a running job checks whether it was cancelled */
+    private static final int CANCEL_CHECK_MASK = 0xFF;
+
+    /* +---------+ */
+    /* | CONTEXT | */
+    /* +---------+ */
+    private static final class Context {
+        final DoubleUnaryOperator func;
+        final double xScale, yScale, height, tolerance;
+        final SampleBuffer out;
+        int evaluations = 0;
+
+        Context (
+            DoubleUnaryOperator pFunc,
+            double pXScale,
+            double pYScale,
+            double pHeight,
+            double pTolerance,
+            SampleBuffer pOut)
+        {
+            func = pFunc;
+            xScale = pXScale;
+            yScale = pYScale;
+            height = pHeight;
+            tolerance = pTolerance;
+            out = pOut;
+        }
+
+        double eval (double x) {
+            if ((evaluations++ & CANCEL_CHECK_MASK) == 0)
+                SamplingEngine.throwIfCancelled ();
+            return func.applyAsDouble (x);
+        }
+    }
+
+    /* +-----------+ */
+    /* | INTERFACE | */
+    /* +-----------+ */
+
+    /* Samples the function over [start, end], replacing the contents of out.
+     *
+     * The step only determines the initial grid (at most INITIAL_INTERVALS
+     * intervals); width and height give the size, in pixels, of the area the
+     * interval is drawn into, and tolerance is the largest deviation in
+     * pixels accepted between the curve and the drawn line.
+     */
+    public static void sample (
+        DoubleUnaryOperator func,
+        double              start,
+        double              step,
+        double              end,
+        double              width,
+        double              height,
+        double              tolerance,
+        SampleBuffer        out)
+    {
+        Objects.requireNonNull (func, "a function must be specified");
+        Objects.requireNonNull (out, "an output buffer must be specified");
+        if (!(width > 0d && height > 0d))
+            throw new RuntimeException ("the target area must have a positive size");
+        if (!(tolerance > 0d))
+            throw new RuntimeException ("tolerance must be positive");
+
+        /* initial grid */
+        final int intervals = Math.max (1, UniformSampler.countSamples (start, step, end, INITIAL_INTERVALS + 1) - 1);
+        final double[]
+            gx = new double[intervals + 1],
+            gy = new double[intervals + 1];
+        for (int i = 0; i <= intervals; ++i) {
+            gx[i] = i == intervals ? end : start + (end - start) * i / intervals;
+            gy[i] = func.applyAsDouble (gx[i]);
+        }
+
+        /* pixel scales */
+        final double xScale = width / Math.abs (end - start);
+        final double yScale = height / estimateSpan (gy);
+        final Context ctx = new Context (func, xScale, yScale, height, tolerance, out);
+
+        /* refinement */
+        out.clear ();
+        out.ensureCapacity (4 * (intervals + 1));
+        out.add (gx[0], gy[0]);
+        for (int i = 0; i < intervals; ++i) {
+            refine (ctx, gx[i], gy[i], gx[i + 1], gy[i + 1]);
+            out.add (gx[i + 1], gy[i + 1]);
+        }
+        if (end < start)
+            out.reverse ();
+    }
+
+    /* +----------+ */
+    /* | INTERNAL | */
+    /* +----------+ */
+
+    /* Emits the samples strictly between a and b, in order. */
+    private static void refine (Context c, double a, double fa, double b, double fb) {
+        final double m = 0.5d * (a + b);
+        final double fm = c.eval (m);
+
+        if (Math.abs (b - a) * c.xScale <= MIN_INTERVAL_PIXELS) {
+            /* out of resolution: either accept the midpoint or mark a break */
+            c.out.add (m, isBreak (c, a, fa, m, fm, b, fb) ? Double.NaN : fm);
+            return;
+        }
+
+        if (needsRefinement (c, fa, fm, fb)) {
+            refine (c, a, fa, m, fm);
+            c.out.add (m, fm);
+            refine (c, m, fm, b, fb);
+        }
+        else
+            c.out.add (m, fm);
+    }
+
+    private static boolean needsRefinement (Context c, double fa, double fm, double fb) {
+        final boolean
+            da = Double.isFinite (fa),
+            dm = Double.isFinite (fm),
+            db = Double.isFinite (fb);
+
+        /* wholly undefined stretches are left alone, edges are hunted down */
+        if (!da && !dm && !db)
+            return false;
+        if (!(da && dm && db))
+            return true;
+
+        /* vertical distance between the midpoint and the chord, in pixels */
+        return Math.abs (fm - 0.5d * (fa + fb)) * c.yScale > c.tolerance;
+    }
+
+    private static boolean isBreak (Context c, double a, double fa, double m, double fm, double b, double fb) {
+        final boolean
+            da = Double.isFinite (fa),
+            dm = Double.isFinite (fm),
+            db = Double.isFinite (fb);
+        /* the edge of an undefined stretch, or a hole between defined ends */
+        if (!(da && dm && db))
+            return da || db;
+
+        /* a jump taller than the whole plot within a fraction of a pixel... */
+        final double jump = Math.abs (fb - fa);
+        if (jump * c.yScale <= c.height)
+            return false;
+
+        /* ...that does not shrink along with the interval; on a merely steep
+         * stretch the larger half-jump halves with every bisection, whereas
+         * across a pole or a step it never drops below half the original */
+        double lo = a, flo = fa, hi = b, fhi = fb, mid = m, fmid = fm;
+        for (int i = 0; i < DISCONTINUITY_PROBES; ++i) {
+            if (!Double.isFinite (fmid))
+                return true;
+            if (Math.abs (fmid - flo) >= Math.abs (fhi - fmid)) {
+                hi = mid;
+                fhi = fmid;
+            }
+            else {
+                lo = mid;
+                flo = fmid;
+            }
+            mid = 0.5d * (lo + hi);
+            fmid = c.eval (mid);
+        }
+        return Math.abs (fhi - flo) >= 0.5d * jump;
+    }
+
+    /* Returns a robust estimate of the vertical extent of the samples. */
+    private static double estimateSpan (double[] ys) {
+        final double[] finite = Arrays.stream (ys).filter (Double::isFinite).toArray ();
+        if (finite.length == 0)
+            return 1d;
+        Arrays.sort (finite);
+        final int trim = finite.length < 8 ? 0 : Math.max (1, (int) (finite.length * SCALE_TRIM));
+        final double
+            lo = finite[trim],
+            hi = finite[finite.length - 1 - trim];
+        final double span = hi - lo;
+        if (span > 0d && Double.isFinite (span))
+            return span;
+        return Math.max (1d, Math.abs (hi));
+    }
+}
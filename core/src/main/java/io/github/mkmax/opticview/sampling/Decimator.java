@@ -0,0 +1,222 @@
+package io.github.mkmax.opticview.sampling;
+
+import java.util.Objects;
+
+/* Reduces a run of samples to roughly two points per horizontal pixel
+ * before it is handed to a renderer, so that drawing cost depends on the
+ * size of the plot rather than on the number of samples.
+ *
+ * Both strategies keep NaN break samples, so gaps in the source survive
+ * decimation.
+ */
+public class Decimator {
+
+    public enum Mode {
+        /* keep the lowest and highest sample of every pixel column, which
+         * preserves the visual envelope of the curve exactly */
+        MIN_MAX,
+
+        /* Largest-Triangle-Three-Buckets: keep the sample of each bucket that
+         * spans the largest triangle with its neighbours, which preserves
+         * the shape of the curve with a smoother look */
+        LTTB
+    }
+
+    /* +-----------+ */
+    /* | INTERFACE | */
+    /* +-----------+ */
+
+    /* Decimates the samples [from, to) of src, which are drawn over
+     * [xMin, xMax] across the given number of pixel columns, replacing the
+     * contents of out.
+     */
+    public static void decimate (
+        Mode         mode,
+        ISampleView  src,
+        int          from,
+        int          to,
+        double       xMin,
+        double       xMax,
+        int          columns,
+        SampleBuffer out)
+    {
+        Objects.requireNonNull (mode, "a decimation mode must be specified");
+        switch (mode) {
+            case LTTB:
+                lttb (src, from, to, 2 * columns, out);
+                break;
+            case MIN_MAX:
+            default:
+                minMax (src, from, to, xMin, xMax, columns, out);
+                break;
+        }
+    }
+
+    /* Keeps the lowest and highest sample of every pixel column in
+     * [xMin, xMax]. Samples left or right of the window are folded into one
+     * extra column on either side.
+     */
+    public static void minMax (
+        ISampleView  src,
+        int          from,
+        int          to,
+        double       xMin,
+        double       xMax,
+        int          columns,
+        SampleBuffer out)
+    {
+        validate (src, from, to, out);
+        out.clear ();
+        if (columns <= 0 || !(xMax > xMin) || to - from <= 2 * columns + 2) {
+            copy (src, from, to, out);
+            return;
+        }
+
+        final double scale = columns / (xMax - xMin);
+        int i = from;
+        while (i < to) {
+            if (Double.isNaN (src.getY (i))) {
+                addBreak (out, src.getX (i));
+                ++i;
+                continue;
+            }
+
+            /* scan the defined samples falling into this column */
+            final int column = column (src.getX (i), xMin, scale, columns);
+            int minIndex = i, maxIndex = i;
+            double min = src.getY (i), max = min;
+            int j = i + 1;
+            for (; j < to; ++j) {
+                final double y = src.getY (j);
+                if (Double.isNaN (y) || column (src.getX (j), xMin, scale, columns) != column)
+                    break;
+                if (y < min) {
+                    min = y;
+                    minIndex = j;
+                }
+                else if (y > max) {
+                    max = y;
+                    maxIndex = j;
+                }
+            }
+
+            /* emit the extremes in the order they were sampled */
+            final int first = Math.min (minIndex, maxIndex), last = Math.max (minIndex, maxIndex);
+            out.add (src.getX (first), src.getY (first));
+            if (last != first)
+                out.add (src.getX (last), src.getY (last));
+            i = j;
+        }
+    }
+
+    /* Keeps threshold samples using Largest-Triangle-Three-Buckets. Every
+     * defined run between two breaks is reduced on its own, receiving a share
+     * of the threshold proportional to its length.
+     */
+    public static void lttb (
+        ISampleView  src,
+        int          from,
+        int          to,
+        int          threshold,
+        SampleBuffer out)
+    {
+        validate (src, from, to, out);
+        out.clear ();
+        if (threshold <= 0 || to - from <= threshold) {
+            copy (src, from, to, out);
+            return;
+        }
+
+        final int total = to - from;
+        int i = from;
+        while (i < to) {
+            if (Double.isNaN (src.getY (i))) {
+                addBreak (out, src.getX (i));
+                ++i;
+                continue;
+            }
+            int j = i + 1;
+            while (j < to && !Double.isNaN (src.getY (j)))
+                ++j;
+            final int share = (int) Math.max (3L, (long) threshold * (j - i) / total);
+            lttbRun (src, i, j, share, out);
+            i = j;
+        }
+    }
+
+    /* +----------+ */
+    /* | INTERNAL | */
+    /* +----------+ */
+    private static void lttbRun (ISampleView src, int from, int to, int threshold, SampleBuffer out) {
+        final int n = to - from;
+        if (n <= threshold) {
+            copy (src, from, to, out);
+            return;
+        }
+
+        final double every = (double) (n - 2) / (threshold - 2);
+        int a = from;
+        out.add (src.getX (a), src.getY (a));
+
+        for (int i = 0; i < threshold - 2; ++i) {
+            /* average of the next bucket, the third corner of the triangle */
+            final int avgStart = from + (int) ((i + 1) * every) + 1;
+            final int avgEnd = Math.min (from + (int) ((i + 2) * every) + 1, to);
+            double avgX = 0d, avgY = 0d;
+            for (int k = avgStart; k < avgEnd; ++k) {
+                avgX += src.getX (k);
+                avgY += src.getY (k);
+            }
+            final int avgCount = Math.max (1, avgEnd - avgStart);
+            avgX /= avgCount;
+            avgY /= avgCount;
+
+            /* the point of the current bucket spanning the largest triangle */
+            final int rangeStart = from + (int) (i * every) + 1;
+            final int rangeEnd = from + (int) ((i + 1) * every) + 1;
+            final double ax = src.getX (a), ay = src.getY (a);
+            double maxArea = -1d;
+            int chosen = rangeStart;
+            for (int k = rangeStart; k < rangeEnd; ++k) {
+                final double area = Math.abs (
+                    (ax - avgX) * (src.getY (k) - ay) -
+                    (ax - src.getX (k)) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = k;
+                }
+            }
+            out.add (src.getX (chosen), src.getY (chosen));
+            a = chosen;
+        }
+
+        out.add (src.getX (to - 1), src.getY (to - 1));
+    }
+
+    private static int column (double x, double xMin, double scale, int columns) {
+        final double c = Math.floor ((x - xMin) * scale);
+        if (c < 0d)
+            return -1;
+        return c >= columns ? columns : (int) c;
+    }
+
+    private static void addBreak (SampleBuffer out, double x) {
+        /* consecutive breaks collapse into one */
+        if (out.size () == 0 || !Double.isNaN (out.getY (out.size () - 1)))
+            out.add (x, Double.NaN);
+    }
+
+    private static void copy (ISampleView src, int from, int to, SampleBuffer out) {
+        out.ensureCapacity (to - from);
+        for (int i = from; i < to; ++i)
+            out.add (src.getX (i), src.getY (i));
+    }
+
+    private static void validate (ISampleView src, int from, int to, SampleBuffer out) {
+        Objects.requireNonNull (src, "a source must be specified");
+        Objects.requireNonNull (out, "an output buffer must be specified");
+        Objects.checkFromToIndex (from, to, src.size ());
+        if (src == out)
+            throw new RuntimeException ("cannot decimate a buffer into itself");
+    }
+}
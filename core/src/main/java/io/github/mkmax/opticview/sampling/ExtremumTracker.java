@@ -0,0 +1,55 @@
+package io.github.mkmax.opticview.sampling;
+
+/* Follows the smallest and largest defined value of a stream of sample
+ * chunks as they arrive. Undefined (NaN) samples are skipped; on a tie
+ * the first sample wins.
+ */
+public class ExtremumTracker extends SampleChunkSubscriber<ExtremumTracker.Extrema> {
+
+    /* The extrema of a stream. A stream without a single defined sample has
+     * NaN for every coordinate.
+     */
+    public static final class Extrema {
+        public final double minX, minY, maxX, maxY;
+
+        Extrema (double pMinX, double pMinY, double pMaxX, double pMaxY) {
+            minX = pMinX;
+            minY = pMinY;
+            maxX = pMaxX;
+            maxY = pMaxY;
+        }
+
+        @Override
+        public String toString () {
+            return String.format ("min %s at %s, max %s at %s", minY, minX, maxY, maxX);
+        }
+    }
+
+    private double
+        minX = Double.NaN,
+        minY = Double.NaN,
+        maxX = Double.NaN,
+        maxY = Double.NaN;
+
+    @Override
+    protected void accept (SampleChunk chunk) {
+        for (int i = 0; i < chunk.size (); ++i) {
+            final double y = chunk.getY (i);
+            if (Double.isNaN (y))
+                continue;
+            if (Double.isNaN (minY) || y < minY) {
+                minX = chunk.getX (i);
+                minY = y;
+            }
+            if (Double.isNaN (maxY) || y > maxY) {
+                maxX = chunk.getX (i);
+                maxY = y;
+            }
+        }
+    }
+
+    @Override
+    protected Extrema finish () {
+        return new Extrema (minX, minY, maxX, maxY);
+    }
+}
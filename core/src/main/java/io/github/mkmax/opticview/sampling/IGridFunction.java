@@ -0,0 +1,19 @@
+package io.github.mkmax.opticview.sampling;
+
+import java.util.function.DoubleUnaryOperator;
+
+/* A function that can also be evaluated over a whole array of arguments in
+ * one call. Samplers hand it their grid in chunks, so implementations with a
+ * tight bulk loop avoid paying a call per sample.
+ */
+@FunctionalInterface
+public interface IGridFunction extends DoubleUnaryOperator {
+
+    /* Writes f(x[i]) to out[i] for every i in [from, to). The two arrays are
+     * never the same.
+     */
+    default void applyAsDouble (double[] x, double[] out, int from, int to) {
+        for (int i = from; i < to; ++i)
+            out[i] = applyAsDouble (x[i]);
+    }
+}
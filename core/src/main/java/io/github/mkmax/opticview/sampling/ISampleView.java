@@ -0,0 +1,25 @@
+package io.github.mkmax.opticview.sampling;
+
+/* Read-only access to a run of (x, y) samples ordered by ascending x.
+ *
+ * Views are handed to consumers (charts, exporters, etc.) in place of
+ * boxed point objects so that the primitive store remains the single
+ * source of truth.
+ */
+public interface ISampleView {
+
+    /* Returns the number of samples available through this view. */
+    int size ();
+
+    /* Returns the x coordinate of the sample at the specified index. */
+    double getX (int index);
+
+    /* Returns the y coordinate of the sample at the specified index.
+     * A NaN value marks a sample where the function is undefined.
+     */
+    double getY (int index);
+
+    default boolean isEmpty () {
+        return size () == 0;
+    }
+}
@@ -0,0 +1,141 @@
+package io.github.mkmax.opticview.sampling;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/* A growable store of (x, y) samples packed into two primitive arrays.
+ *
+ * No per-sample objects are ever created; the arrays are only reallocated
+ * when the capacity is exceeded, so refilling a buffer with a similar
+ * sample count is allocation free.
+ */
+public final class SampleBuffer implements ISampleView {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /* +--------------------------+ */
+    /* | MEMBERS & INITIALIZATION | */
+    /* +--------------------------+ */
+    private double[] xs, ys;
+    private int size = 0;
+
+    public SampleBuffer (int initialCapacity) {
+        if (initialCapacity < 0)
+            throw new RuntimeException ("capacity cannot be negative");
+        xs = new double[initialCapacity];
+        ys = new double[initialCapacity];
+    }
+
+    public SampleBuffer () {
+        this (DEFAULT_CAPACITY);
+    }
+
+    /* +-----------+ */
+    /* | INTERFACE | */
+    /* +-----------+ */
+    @Override
+    public int size () {
+        return size;
+    }
+
+    @Override
+    public double getX (int index) {
+        return xs[Objects.checkIndex (index, size)];
+    }
+
+    @Override
+    public double getY (int index) {
+        return ys[Objects.checkIndex (index, size)];
+    }
+
+    public int capacity () {
+        return xs.length;
+    }
+
+    public void add (double x, double y) {
+        if (size == xs.length)
+            grow (size + 1);
+        xs[size] = x;
+        ys[size] = y;
+        ++size;
+    }
+
+    public void set (int index, double x, double y) {
+        Objects.checkIndex (index, size);
+        xs[index] = x;
+        ys[index] = y;
+    }
+
+    public void clear () {
+        size = 0;
+    }
+
+    /* Reverses the order of the samples in place. */
+    public void reverse () {
+        for (int i = 0, j = size - 1; i < j; ++i, --j) {
+            final double
+                x = xs[i],
+                y = ys[i];
+            xs[i] = xs[j];
+            ys[i] = ys[j];
+            xs[j] = x;
+            ys[j] = y;
+        }
+    }
+
+    /* Replaces the contents with the samples of source, every y multiplied
+     * by factor. A single pass over the arrays; source may be this buffer.
+     */
+    public void setScaled (SampleBuffer source, double factor) {
+        Objects.requireNonNull (source, "a source buffer must be specified");
+        setSize (source.size);
+        System.arraycopy (source.xs, 0, xs, 0, size);
+        final double[] sys = source.ys;
+        for (int i = 0; i < size; ++i)
+            ys[i] = sys[i] * factor;
+    }
+
+    /* Makes room for at least the given number of samples, keeping the
+     * current contents.
+     */
+    public void ensureCapacity (int capacity) {
+        if (capacity > xs.length)
+            grow (capacity);
+    }
+
+    /* Resizes the buffer to exactly the given number of samples. Samples
+     * past the previous size are left unspecified and are expected to be
+     * written directly through the backing arrays.
+     */
+    public void setSize (int nSize) {
+        if (nSize < 0)
+            throw new RuntimeException ("size cannot be negative");
+        ensureCapacity (nSize);
+        size = nSize;
+    }
+
+    /* +---------------+ */
+    /* | DIRECT ACCESS | */
+    /* +---------------+ */
+
+    /* The backing arrays are exposed for tight loops. Only indices below
+     * size() hold meaningful samples, and the arrays are replaced whenever
+     * the buffer grows, so they must be re-fetched after any resize.
+     */
+    public double[] getXArray () {
+        return xs;
+    }
+
+    public double[] getYArray () {
+        return ys;
+    }
+
+    /* +----------+ */
+    /* | INTERNAL | */
+    /* +----------+ */
+    private void grow (int minCapacity) {
+        final int nCapacity = Math.max (minCapacity, xs.length + (xs.length >> 1) + 1);
+        xs = Arrays.copyOf (xs, nCapacity);
+        ys = Arrays.copyOf (ys, nCapacity);
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.mkmax.opticview.sampling;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/* A least recently used cache of finished sample buffers, bounded by the
+ * memory their arrays take rather than by a count.
+ *
+ * A buffer handed to the cache must never be written to again: every later
+ * lookup gets the same instance. Buffers larger than the whole budget are
+ * simply not kept. All methods may be called from any thread.
+ */
+public class SampleCache {
+
+    /* +--------------------------+ */
+    /* | MEMBERS & INITIALIZATION | */
+    /* +--------------------------+ */
+    private final long budget;
+    private long used = 0L;
+
+    /* in access order, so the eldest entry is the least recently used */
+    private final LinkedHashMap<Object, SampleBuffer> buffers = new LinkedHashMap<> (16, 0.75f, true);
+
+    public SampleCache (long pBudget) {
+        if (pBudget < 0L)
+            throw new RuntimeException ("the budget cannot be negative");
+        budget = pBudget;
+    }
+
+    /* +-----------+ */
+    /* | INTERFACE | */
+    /* +-----------+ */
+
+    /* Returns the buffer cached under key, or null. */
+    public synchronized SampleBuffer get (Object key) {
+        return buffers.get (key);
+    }
+
+    /* Caches the buffer under key, replacing any previous one, then evicts
+     * the least recently used buffers until the budget is met again.
+     */
+    public synchronized void put (Object key, SampleBuffer buffer) {
+        Objects.requireNonNull (key, "a key must be specified");
+        Objects.requireNonNull (buffer, "a buffer must be specified");
+
+        final SampleBuffer previous = buffers.remove (key);
+        if (previous != null)
+            used -= bytes (previous);
+
+        final long size = bytes (buffer);
+        if (size > budget)
+            return;
+        buffers.put (key, buffer);
+        used += size;
+
+        final Iterator<SampleBuffer> eldest = buffers.values ().iterator ();
+        while (used > budget) {
+            used -= bytes (eldest.next ());
+            eldest.remove ();
+        }
+    }
+
+    public synchronized void clear () {
+        buffers.clear ();
+        used = 0L;
+    }
+
+    public synchronized int size () {
+        return buffers.size ();
+    }
+
+    /* Returns the memory, in bytes, held by the cached buffers. */
+    public synchronized long getUsedBytes () {
+        return used;
+    }
+
+    public long getBudget () {
+        return budget;
+    }
+
+    /* +----------+ */
+    /* | INTERNAL | */
+    /* +----------+ */
+
+    /* two arrays of doubles, counted at their capacity */
+    private static long bytes (SampleBuffer buffer) {
+        return 2L * Double.BYTES * buffer.capacity ();
+    }
+}
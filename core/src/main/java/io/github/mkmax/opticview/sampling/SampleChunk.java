@@ -0,0 +1,64 @@
+package io.github.mkmax.opticview.sampling;
+
+import java.util.Objects;
+
+/* A consecutive run of samples taken from a longer sampling pass, as handed
+ * to the subscribers of a sample stream. Chunks of one pass arrive in
+ * ascending x, and the offset of a chunk is the index of its first sample
+ * within the pass.
+ *
+ * A chunk owns its arrays and is never written to once published, so every
+ * subscriber may read it from its own thread.
+ */
+public final class SampleChunk implements ISampleView {
+
+    private final double[] xs;
+    private final double[] ys;
+    private final int size;
+    private final long offset;
+
+    public SampleChunk (double[] pXs, double[] pYs, int pSize, long pOffset) {
+        xs = Objects.requireNonNull (pXs, "the x coordinates must be specified");
+        ys = Objects.requireNonNull (pYs, "the y coordinates must be specified");
+        if (pSize < 0 || pSize > xs.length || pSize > ys.length)
+            throw new RuntimeException ("chunk size out of bounds");
+        if (pOffset < 0)
+            throw new RuntimeException ("chunk offset cannot be negative");
+        size = pSize;
+        offset = pOffset;
+    }
+
+    /* Copies samples [from, to) of a view into a new chunk. */
+    public static SampleChunk copyOf (ISampleView view, int from, int to, long offset) {
+        final double[]
+            xs = new double[to - from],
+            ys = new double[to - from];
+        for (int i = from; i < to; ++i) {
+            xs[i - from] = view.getX (i);
+            ys[i - from] = view.getY (i);
+        }
+        return new SampleChunk (xs, ys, to - from, offset);
+    }
+
+    @Override
+    public int size () {
+        return size;
+    }
+
+    @Override
+    public double getX (int index) {
+        Objects.checkIndex (index, size);
+        return xs[index];
+    }
+
+    @Override
+    public double getY (int index) {
+        Objects.checkIndex (index, size);
+        return ys[index];
+    }
+
+    /* Returns the index of the chunk's first sample within its pass. */
+    public long getOffset () {
+        return offset;
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.mkmax.opticview.sampling;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/* A subscriber to a stream of sample chunks that folds the chunks into a
+ * result one at a time, requesting the next chunk only once it is done
+ * with the last. The result completes with the stream, or exceptionally
+ * when the stream fails or accept throws.
+ */
+public abstract class SampleChunkSubscriber<T> implements Flow.Subscriber<SampleChunk> {
+
+    private final CompletableFuture<T> result = new CompletableFuture<> ();
+    private Flow.Subscription subscription;
+
+    /* +-----------+ */
+    /* | INTERFACE | */
+    /* +-----------+ */
+    public CompletableFuture<T> getResult () {
+        return result;
+    }
+
+    /* +--- SUBSCRIBER ---+ */
+    @Override
+    public final void onSubscribe (Flow.Subscription nSubscription) {
+        if (subscription != null) {
+            nSubscription.cancel ();
+            return;
+        }
+        subscription = Objects.requireNonNull (nSubscription, "a subscription must be specified");
+        subscription.request (1);
+    }
+
+    @Override
+    public final void onNext (SampleChunk chunk) {
+        try {
+            accept (chunk);
+        }
+        catch (RuntimeException e) {
+            subscription.cancel ();
+            result.completeExceptionally (e);
+            return;
+        }
+        subscription.request (1);
+    }
+
+    @Override
+    public final void onError (Throwable error) {
+        result.completeExceptionally (error);
+    }
+
+    @Override
+    public final void onComplete () {
+        try {
+            result.complete (finish ());
+        }
+        catch (RuntimeException e) {
+            result.completeExceptionally (e);
+        }
+    }
+
+    /* +----------+ */
+    /* | INTERNAL | */
+    /* +----------+ */
+
+    /* handles the next chunk; chunks arrive one at a time, in order */
+    protected abstract void accept (SampleChunk chunk);
+
+    /* returns the result once every chunk was accepted */
+    protected abstract T finish ();
+}
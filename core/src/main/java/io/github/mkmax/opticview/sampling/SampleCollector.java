@@ -0,0 +1,29 @@
+package io.github.mkmax.opticview.sampling;
+
+/* Gathers a stream of sample chunks back into one sample buffer, such as
+ * the samples a plot draws.
+ */
+public class SampleCollector extends SampleChunkSubscriber<SampleBuffer> {
+
+    private final SampleBuffer buffer;
+
+    public SampleCollector (int initialCapacity) {
+        buffer = new SampleBuffer (initialCapacity);
+    }
+
+    public SampleCollector () {
+        buffer = new SampleBuffer ();
+    }
+
+    @Override
+    protected void accept (SampleChunk chunk) {
+        buffer.ensureCapacity (buffer.size () + chunk.size ());
+        for (int i = 0; i < chunk.size (); ++i)
+            buffer.add (chunk.getX (i), chunk.getY (i));
+    }
+
+    @Override
+    protected SampleBuffer finish () {
+        return buffer;
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.mkmax.opticview.sampling;
+
+public class SampleUtils {
+
+    /* Returns the index of the first sample whose x is not below the given
+     * value, or view.size() if there is none.
+     */
+    public static int lowerBound (ISampleView view, double x) {
+        int lo = 0, hi = view.size ();
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (view.getX (mid) < x)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    /* Returns the index of the first sample whose x is above the given
+     * value, or view.size() if there is none.
+     */
+    public static int upperBound (ISampleView view, double x) {
+        int lo = 0, hi = view.size ();
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (view.getX (mid) <= x)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    /* Returns the value at x, interpolated linearly between the samples
+     * around it. Returns NaN outside the samples, or when either of the two
+     * samples is undefined. Finding the samples is a binary search.
+     */
+    public static double interpolate (ISampleView view, double x) {
+        final int hi = lowerBound (view, x);
+        if (hi >= view.size ())
+            return Double.NaN;
+
+        final double x1 = view.getX (hi), y1 = view.getY (hi);
+        if (x1 == x)
+            return y1;
+        if (hi == 0)
+            return Double.NaN;
+
+        final double x0 = view.getX (hi - 1), y0 = view.getY (hi - 1);
+        final double t = (x - x0) / (x1 - x0);
+        return y0 + t * (y1 - y0);
+    }
+}
@@ -0,0 +1,140 @@
+package io.github.mkmax.opticview.sampling;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/* Runs sampling work on background threads and hands the finished results
+ * back through a publishing executor (for example Platform::runLater).
+ *
+ * Work is keyed: submitting a job under a key cancels the job still in
+ * flight for that key, and the result of a superseded job is never
+ * published, so a quick series of edits never queues up outdated work.
+ */
+public final class SamplingEngine<K> {
+
+    /* +-----+ */
+    /* | JOB | */
+    /* +-----+ */
+    private final class Job<R> extends FutureTask<R> {
+
+        private final K key;
+        private final Consumer<? super R> onDone;
+        private final Consumer<? super Throwable> onFailure;
+
+        Job (K pKey, Callable<R> pTask, Consumer<? super R> pOnDone, Consumer<? super Throwable> pOnFailure) {
+            super (pTask);
+            key = pKey;
+            onDone = pOnDone;
+            onFailure = pOnFailure;
+        }
+
+        @Override
+        protected void done () {
+            if (!isCancelled ())
+                publisher.execute (this::publish);
+        }
+
+        private void publish () {
+            /* only the latest job submitted for a key may publish */
+            if (!jobs.remove (key, this))
+                return;
+            final R result;
+            try {
+                result = get ();
+            }
+            catch (ExecutionException e) {
+                if (!(e.getCause () instanceof CancellationException))
+                    onFailure.accept (e.getCause ());
+                return;
+            }
+            catch (InterruptedException | CancellationException e) {
+                return;
+            }
+            onDone.accept (result);
+        }
+    }
+
+    /* +--------------------------+ */
+    /* | MEMBERS & INITIALIZATION | */
+    /* +--------------------------+ */
+    private final ExecutorService executor;
+    private final Executor publisher;
+    private final Map<K, Job<?>> jobs = new ConcurrentHashMap<> ();
+
+    public SamplingEngine (ExecutorService pExecutor, Executor pPublisher) {
+        executor = Objects.requireNonNull (pExecutor, "an executor must be specified");
+        publisher = Objects.requireNonNull (pPublisher, "a publisher must be specified");
+    }
+
+    public SamplingEngine (Executor pPublisher) {
+        this (createDefaultExecutor (), pPublisher);
+    }
+
+    private static ExecutorService createDefaultExecutor () {
+        final AtomicInteger counter = new AtomicInteger ();
+        final int threads = Math.max (1, Runtime.getRuntime ().availableProcessors () - 1);
+        return Executors.newFixedThreadPool (threads, r -> {
+            final Thread thread = new Thread (r, "opticview-sampler-" + counter.incrementAndGet ());
+            thread.setDaemon (true);
+            return thread;
+        });
+    }
+
+    /* +-----------+ */
+    /* | INTERFACE | */
+    /* +-----------+ */
+
+    /* Schedules a task under the given key, cancelling any task still in
+     * flight for that key. Exactly one of onDone/onFailure is invoked on
+     * the publisher, and only if the task has not been superseded.
+     */
+    public <R> void submit (
+        K                           key,
+        Callable<R>                 task,
+        Consumer<? super R>         onDone,
+        Consumer<? super Throwable> onFailure)
+    {
+        Objects.requireNonNull (key, "a key must be specified");
+        Objects.requireNonNull (task, "a task must be specified");
+        Objects.requireNonNull (onDone, "a completion handler must be specified");
+        Objects.requireNonNull (onFailure, "a failure handler must be specified");
+
+        final Job<R> job = new Job<> (key, task, onDone, onFailure);
+        final Job<?> previous = jobs.put (key, job);
+        if (previous != null)
+            previous.cancel (true);
+        executor.execute (job);
+    }
+
+    /* Cancels the task in flight for the given key, if there is one. */
+    public void cancel (K key) {
+        final Job<?> job = jobs.remove (key);
+        if (job != null)
+            job.cancel (true);
+    }
+
+    public boolean isBusy (K key) {
+        return jobs.containsKey (key);
+    }
+
+    public void shutdown () {
+        jobs.values ().forEach (i -> i.cancel (true));
+        jobs.clear ();
+        executor.shutdownNow ();
+    }
+
+    /* +-----------+ */
+    /* | UTILITIES | */
+    /* +-----------+ */
+
+    /* Polled by sampling loops so that a superseded job running on a worker
+     * thread stops early instead of finishing work nobody will see.
+     */
+    public static void throwIfCancelled () {
+        if (Thread.currentThread ().isInterrupted ())
+            throw new CancellationException ("sampling was cancelled");
+    }
+}
@@ -0,0 +1,65 @@
+package io.github.mkmax.opticview.sampling;
+
+import java.util.Objects;
+
+/* Presents a base run of samples with the stretch covered by a second,
+ * finer run replaced by that run, without copying either.
+ *
+ * Base samples up to the first detail sample and past the last one are kept,
+ * so the view still ascends in x and spans the whole base run. This is how a
+ * detailed sampling of a zoomed-in window is shown on top of a coarse
+ * overview of the full range.
+ */
+public final class SplicedSampleView implements ISampleView {
+
+    /* +--------------------------+ */
+    /* | MEMBERS & INITIALIZATION | */
+    /* +--------------------------+ */
+    private final ISampleView
+        base,
+        detail;
+
+    /* base samples [0, head) come before the detail, [tail, size) after it */
+    private final int
+        head,
+        tail;
+
+    public SplicedSampleView (ISampleView pBase, ISampleView pDetail) {
+        base = Objects.requireNonNull (pBase, "base samples must be specified");
+        detail = Objects.requireNonNull (pDetail, "detail samples must be specified");
+        if (detail.isEmpty ()) {
+            head = base.size ();
+            tail = base.size ();
+        }
+        else {
+            head = SampleUtils.lowerBound (base, detail.getX (0));
+            tail = Math.max (head, SampleUtils.upperBound (base, detail.getX (detail.size () - 1)));
+        }
+    }
+
+    /* +-----------+ */
+    /* | INTERFACE | */
+    /* +-----------+ */
+    @Override
+    public int size () {
+        return head + detail.size () + base.size () - tail;
+    }
+
+    @Override
+    public double getX (int index) {
+        if (index < head)
+            return base.getX (index);
+        if (index < head + detail.size ())
+            return detail.getX (index - head);
+        return base.getX (index - head - detail.size () + tail);
+    }
+
+    @Override
+    public double getY (int index) {
+        if (index < head)
+            return base.getY (index);
+        if (index < head + detail.size ())
+            return detail.getY (index - head);
+        return base.getY (index - head - detail.size () + tail);
+    }
+}
@@ -0,0 +1,265 @@
+package io.github.mkmax.opticview.sampling;
+
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoubleUnaryOperator;
+
+/* Evaluates a function over a fixed-step grid [start, end], writing the
+ * results straight into a primitive sample store.
+ */
+public class UniformSampler {
+
+    /* how often (in samples) a running job checks whether it was cancelled */
+    private static final int CANCEL_CHECK_MASK = 0xFF;
+
+    /* grid functions are evaluated in chunks of this many samples, so a
+     * cancelled job still stops promptly */
+    private static final int GRID_CHUNK = CANCEL_CHECK_MASK + 1;
+
+    /* parallel sampling hands each worker slices of at least this many
+     * samples, enough to outweigh the cost of forking */
+    private static final int PARALLEL_CHUNK = 1 << 14;
+
+    /* the smallest grid sampleParallel splits into slices */
+    public static final int MIN_PARALLEL_SAMPLES = 2 * PARALLEL_CHUNK;
+
+    /* Returns the number of grid points needed to cover [start, end] with
+     * the given step, including both end points, capped at maxSamples.
+     */
+    public static int countSamples (double start, double step, double end, int maxSamples) {
+        final double ratio = Math.abs ((end - start) / step);
+        return (int) Math.min (Math.ceil (ratio) + 1d, maxSamples);
+    }
+
+    /* Returns the effective step for the grid. When the requested step
+     * would exceed maxSamples, the interval is split evenly instead.
+     */
+    public static double effectiveStep (double start, double step, double end, int maxSamples) {
+        final int samples = countSamples (start, step, end, maxSamples);
+        return samples < maxSamples ? step : (end - start) / maxSamples;
+    }
+
+    /* Samples the function over the grid, replacing the contents of out.
+     * Samples where the function is undefined are kept as NaN so that the
+     * index of a sample always corresponds to its grid position. Grids
+     * running from a larger start to a smaller end are stored reversed, so
+     * the samples always ascend in x.
+     *
+     * An IGridFunction is evaluated a chunk of the grid at a time.
+     *
+     * When run on a worker thread, an interrupt aborts the loop with a
+     * CancellationException.
+     */
+    public static void sample (
+        DoubleUnaryOperator func,
+        double              start,
+        double              step,
+        double              end,
+        int                 maxSamples,
+        SampleBuffer        out)
+    {
+        Objects.requireNonNull (func, "a function must be specified");
+        Objects.requireNonNull (out, "an output buffer must be specified");
+
+        final int samples = countSamples (start, step, end, maxSamples);
+        final double realstep = effectiveStep (start, step, end, maxSamples);
+
+        out.setSize (samples);
+        final double[] xs = out.getXArray ();
+        final double[] ys = out.getYArray ();
+        for (int i = 0; i < samples; ++i)
+            xs[i] = i + 1 == samples ? end : start + i * realstep;
+        evaluate (func, xs, ys, 0, samples);
+        if (end < start)
+            out.reverse ();
+    }
+
+    /* Samples like sample(), but splits the grid into slices evaluated in
+     * parallel on the pool, each writing straight into its stretch of the
+     * buffer's arrays. The function must be safe to call from several
+     * threads at once. Grids too small to split are sampled on the calling
+     * thread.
+     *
+     * Cancellation follows the calling thread: once it is interrupted, the
+     * slices not yet started are skipped and a CancellationException is
+     * thrown.
+     */
+    public static void sampleParallel (
+        DoubleUnaryOperator func,
+        double              start,
+        double              step,
+        double              end,
+        int                 maxSamples,
+        SampleBuffer        out,
+        ForkJoinPool        pool)
+    {
+        Objects.requireNonNull (func, "a function must be specified");
+        Objects.requireNonNull (out, "an output buffer must be specified");
+        Objects.requireNonNull (pool, "a pool must be specified");
+
+        final int samples = countSamples (start, step, end, maxSamples);
+        if (samples < MIN_PARALLEL_SAMPLES || pool.getParallelism () < 2) {
+            sample (func, start, step, end, maxSamples, out);
+            return;
+        }
+
+        final double realstep = effectiveStep (start, step, end, maxSamples);
+        out.setSize (samples);
+        final Slice whole = new Slice (func, start, realstep, end, samples,
+            out.getXArray (), out.getYArray (), 0, samples, Thread.currentThread ());
+        pool.invoke (whole);
+        if (end < start)
+            out.reverse ();
+    }
+
+    /* Samples like sample(), but reuses the points of a previous uniform
+     * sampling of the same function wherever the new grid lands on them, so
+     * only the added head and tail segments are evaluated. The previous
+     * samples must have been taken with the same step from previousStart
+     * and not been capped; grids that do not line up simply share no points.
+     * Returns the number of points that had to be evaluated.
+     *
+     * The previous samples are only read, so they may still be on display.
+     */
+    public static int resample (
+        DoubleUnaryOperator func,
+        ISampleView         previous,
+        double              previousStart,
+        double              start,
+        double              step,
+        double              end,
+        int                 maxSamples,
+        SampleBuffer        out)
+    {
+        Objects.requireNonNull (func, "a function must be specified");
+        Objects.requireNonNull (previous, "previous samples must be specified");
+        Objects.requireNonNull (out, "an output buffer must be specified");
+        if (out == previous)
+            throw new RuntimeException ("cannot resample into the previous samples");
+
+        final int samples = countSamples (start, step, end, maxSamples);
+        if (effectiveStep (start, step, end, maxSamples) != step) {
+            /* a capped grid has a stretched step, nothing lines up */
+            sample (func, start, step, end, maxSamples, out);
+            return samples;
+        }
+
+        /* lay out the new grid in grid order and copy every point that the
+         * previous grid already holds; previous samples ascend in x, so a
+         * descending grid is stored reversed */
+        final int previousSize = previous.size ();
+        final double tolerance = Math.abs (step) * 1e-9d;
+        out.setSize (samples);
+        final double[] xs = out.getXArray ();
+        final double[] ys = out.getYArray ();
+        final boolean[] missing = new boolean[samples];
+        for (int i = 0; i < samples; ++i) {
+            final double x = i + 1 == samples ? end : start + i * step;
+            xs[i] = x;
+
+            final long g = Math.round ((x - previousStart) / step);
+            final int at = (int) (step > 0d ? g : previousSize - 1 - g);
+            if (g >= 0 && g < previousSize && Math.abs (previous.getX (at) - x) <= tolerance)
+                ys[i] = previous.getY (at);
+            else
+                missing[i] = true;
+        }
+
+        /* evaluate the missing runs, a whole run at a time for grid functions */
+        int evaluated = 0;
+        for (int from = 0; from < samples; ) {
+            if (!missing[from]) {
+                ++from;
+                continue;
+            }
+            int to = from;
+            while (to < samples && missing[to])
+                ++to;
+            evaluate (func, xs, ys, from, to);
+            evaluated += to - from;
+            from = to;
+        }
+
+        if (end < start)
+            out.reverse ();
+        return evaluated;
+    }
+
+    /* one stretch of a parallel sampling; splits in halves down to a chunk */
+    private static final class Slice extends RecursiveAction {
+        private final DoubleUnaryOperator func;
+        private final double start, step, end;
+        private final int samples;
+        private final double[] xs, ys;
+        private final int from, to;
+        private final Thread caller;
+
+        Slice (
+            DoubleUnaryOperator pFunc,
+            double              pStart,
+            double              pStep,
+            double              pEnd,
+            int                 pSamples,
+            double[]            pXs,
+            double[]            pYs,
+            int                 pFrom,
+            int                 pTo,
+            Thread              pCaller)
+        {
+            func = pFunc;
+            start = pStart;
+            step = pStep;
+            end = pEnd;
+            samples = pSamples;
+            xs = pXs;
+            ys = pYs;
+            from = pFrom;
+            to = pTo;
+            caller = pCaller;
+        }
+
+        private Slice slice (int nFrom, int nTo) {
+            return new Slice (func, start, step, end, samples, xs, ys, nFrom, nTo, caller);
+        }
+
+        @Override
+        protected void compute () {
+            if (to - from > PARALLEL_CHUNK) {
+                final int mid = (from + to) >>> 1;
+                invokeAll (slice (from, mid), slice (mid, to));
+                return;
+            }
+
+            /* workers are never interrupted themselves, so ask the caller */
+            if (caller.isInterrupted ())
+                throw new CancellationException ("sampling was cancelled");
+            for (int i = from; i < to; ++i)
+                xs[i] = i + 1 == samples ? end : start + i * step;
+            if (func instanceof IGridFunction)
+                ((IGridFunction) func).applyAsDouble (xs, ys, from, to);
+            else
+                for (int i = from; i < to; ++i)
+                    ys[i] = func.applyAsDouble (xs[i]);
+        }
+    }
+
+    /* evaluates func over [from, to), checking for cancellation as it goes */
+    private static void evaluate (DoubleUnaryOperator func, double[] xs, double[] ys, int from, int to) {
+        if (func instanceof IGridFunction) {
+            final IGridFunction grid = (IGridFunction) func;
+            for (int i = from; i < to; i += GRID_CHUNK) {
+                SamplingEngine.throwIfCancelled ();
+                grid.applyAsDouble (xs, ys, i, Math.min (to, i + GRID_CHUNK));
+            }
+        }
+        else {
+            for (int i = from; i < to; ++i) {
+                if (((i - from) & CANCEL_CHECK_MASK) == 0)
+                    SamplingEngine.throwIfCancelled ();
+                ys[i] = func.applyAsDouble (xs[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package io.github.mkmax.opticview.sweep;
+
+import io.github.mkmax.opticview.io.CsvFields;
+import io.github.mkmax.opticview.material.Glass;
+import io.github.mkmax.opticview.material.IGlass;
+import io.github.mkmax.opticview.material.catalog.GlassCatalog;
+import io.github.mkmax.opticview.sampling.UniformSampler;
+import io.github.mkmax.opticview.units.MetricDistance;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/* Computes focal length tables, f = R / (n(lambda) - 1), for every
+ * combination of a list of glasses, a list of lens radii and a wavelength
+ * grid, without the user interface.
+ *
+ * The sweep is cut into blocks of at most ROWS_PER_BLOCK rows: one glass
+ * over a run of wavelengths, or, when a single wavelength has more radii
+ * than that, over part of the radii of one wavelength. Blocks are computed
+ * in parallel on a fork/join pool, each evaluating its refractive indices
+ * in bulk once for all of its radii, and are written out in order as they
+ * finish. Only a bounded number of blocks is ever in flight, so the sweep
+ * streams however many rows it produces, whatever the number of radii.
+ *
+ * Rows are ordered by glass, then wavelength, then radius. Radii and focal
+ * lengths share the radius units, and wavelengths keep the units they were
+ * given in.
+ */
+public final class FocalLengthSweep {
+
+    /* +-----------+ */
+    /* | CONSTANTS | */
+    /* +-----------+ */
+
+    /* the most rows a block holds */
+    private static final int ROWS_PER_BLOCK = 1 << 14;
+
+    /* blocks in flight per worker, enough to keep every core busy while the
+     * writer waits on the oldest */
+    private static final int BLOCKS_PER_WORKER = 4;
+
+    /* binary output: a header naming the glasses, then fixed size records of
+     * glass index, radius, wavelength and focal length, little endian */
+    public static final int
+        BINARY_MAGIC        = 0x5346564F, /* "OVFS" */
+        BINARY_VERSION      = 1,
+        BINARY_RECORD_BYTES = Integer.BYTES + 3 * Double.BYTES;
+
+    public enum Format {
+        CSV,
+        BINARY
+    }
+
+    /* +--------------------------+ */
+    /* | MEMBERS & INITIALIZATION | */
+    /* +--------------------------+ */
+    private final List<IGlass> glasses;
+    private final double[] radii;
+    private final MetricDistance
+        radiusUnits,
+        lambdaUnits;
+    private final double
+        lambdaStart,
+        lambdaStep,
+        lambdaEnd;
+    private final int lambdaCount;
+
+    public FocalLengthSweep (
+        List<? extends IGlass> pGlasses,
+        double[]               pRadii,
+        MetricDistance         pRadiusUnits,
+        double                 pLambdaStart,
+        double                 pLambdaStep,
+        double                 pLambdaEnd,
+        MetricDistance         pLambdaUnits)
+    {
+        glasses = List.copyOf (Objects.requireNonNull (pGlasses, "glasses must be specified"));
+        radii = Objects.requireNonNull (pRadii, "radii must be specified").clone ();
+        radiusUnits = Objects.requireNonNull (pRadiusUnits, "radius units must be specified");
+        lambdaUnits = Objects.requireNonNull (pLambdaUnits, "wavelength units must be specified");
+        if (glasses.isEmpty () || radii.length == 0)
+            throw new RuntimeException ("a sweep needs at least one glass and one radius");
+        if (!(Double.isFinite (pLambdaStart) && Double.isFinite (pLambdaEnd) && Double.isFinite (pLambdaStep)))
+            throw new RuntimeException ("the wavelength grid must be finite");
+        if (pLambdaStep == 0d || (pLambdaEnd != pLambdaStart && Math.signum (pLambdaEnd - pLambdaStart) != Math.signum (pLambdaStep)))
+            throw new RuntimeException ("the wavelength step is heading outside of the interval");
+        lambdaStart = pLambdaStart;
+        lambdaStep = pLambdaStep;
+        lambdaEnd = pLambdaEnd;
+        lambdaCount = UniformSampler.countSamples (lambdaStart, lambdaStep, lambdaEnd, Integer.MAX_VALUE);
+    }
+
+    /* +-----------+ */
+    /* | INTERFACE | */
+    /* +-----------+ */
+    public long getRowCount () {
+        return (long) glasses.size () * lambdaCount * radii.length;
+    }
+
+    /* Writes the whole sweep to out, which is flushed but left open. */
+    public void write (OutputStream out, Format format) throws IOException {
+        write (out, format, ForkJoinPool.commonPool ());
+    }
+
+    public void write (OutputStream out, Format format, ForkJoinPool pool) throws IOException {
+        Objects.requireNonNull (out, "an output stream must be specified");
+        Objects.requireNonNull (format, "a format must be specified");
+        Objects.requireNonNull (pool, "a pool must be specified");
+
+        final OutputStream sink = new BufferedOutputStream (out, 1 << 16);
+        sink.write (header (format));
+
+        /* a block takes as many whole wavelengths as fit, or a single one
+         * split over several blocks of radii when even that does not fit */
+        final int lambdasPerBlock = Math.max (1, ROWS_PER_BLOCK / radii.length);
+        final int radiiPerBlock = Math.min (radii.length, ROWS_PER_BLOCK);
+        final long lambdaBlocks = ((long) lambdaCount + lambdasPerBlock - 1) / lambdasPerBlock;
+        final long radiusBlocks = ((long) radii.length + radiiPerBlock - 1) / radiiPerBlock;
+        final long blocksPerGlass = lambdaBlocks * radiusBlocks;
+        final long blocks = glasses.size () * blocksPerGlass;
+
+        /* blocks are submitted in row order and written in the same order,
+         * keeping at most a fixed number in flight */
+        final int window = Math.max (2, pool.getParallelism () * BLOCKS_PER_WORKER);
+        final ArrayDeque<ForkJoinTask<byte[]>> inFlight = new ArrayDeque<> (window);
+        try {
+            for (long next = 0; next < blocks || !inFlight.isEmpty (); ) {
+                while (next < blocks && inFlight.size () < window) {
+                    final int glass = (int) (next / blocksPerGlass);
+                    final long inGlass = next % blocksPerGlass;
+                    final int from = (int) (inGlass / radiusBlocks * lambdasPerBlock);
+                    final int to = (int) Math.min (lambdaCount, (long) from + lambdasPerBlock);
+                    final int radiusFrom = (int) (inGlass % radiusBlocks * radiiPerBlock);
+                    final int radiusTo = Math.min (radii.length, radiusFrom + radiiPerBlock);
+                    inFlight.add (pool.submit (() -> block (glass, from, to, radiusFrom, radiusTo, format)));
+                    ++next;
+                }
+                sink.write (inFlight.poll ().join ());
+            }
+        }
+        finally {
+            inFlight.forEach (i -> i.cancel (true));
+        }
+        sink.flush ();
+    }
+
+    /* +----------+ */
+    /* | INTERNAL | */
+    /* +----------+ */
+    private byte[] header (Format format) {
+        switch (format) {
+            case BINARY: {
+                final byte[][] names = new byte[glasses.size ()][];
+                int bytes = 3 * Integer.BYTES;
+                for (int i = 0; i < names.length; ++i) {
+                    names[i] = glasses.get (i).getName ().getBytes (StandardCharsets.UTF_8);
+                    bytes += Integer.BYTES + names[i].length;
+                }
+                final ByteBuffer header = ByteBuffer.allocate (bytes).order (ByteOrder.LITTLE_ENDIAN);
+                header.putInt (BINARY_MAGIC).putInt (BINARY_VERSION).putInt (names.length);
+                for (byte[] name : names)
+                    header.putInt (name.length).put (name);
+                return header.array ();
+            }
+            case CSV:
+            default:
+                return String.format ("glass,radius (%s),lambda (%s),focal length (%s)\n",
+                    radiusUnits.getMnemonic (), lambdaUnits.getMnemonic (), radiusUnits.getMnemonic ())
+                    .getBytes (StandardCharsets.UTF_8);
+        }
+    }
+
+    /* Computes and encodes the rows of one glass over wavelengths [from, to)
+     * and radii [radiusFrom, radiusTo). */
+    private byte[] block (int glassIndex, int from, int to, int radiusFrom, int radiusTo, Format format) {
+        final IGlass glass = glasses.get (glassIndex);
+        final int count = to - from;
+        final long rows = (long) count * (radiusTo - radiusFrom);
+
+        /* wavelengths in the given units for output, micrometers for the glass */
+        final double[]
+            lambda = new double[count],
+            micrometers = new double[count],
+            n = new double[count];
+        for (int i = 0; i < count; ++i) {
+            final int k = from + i;
+            lambda[i] = k + 1 == lambdaCount ? lambdaEnd : lambdaStart + k * lambdaStep;
+        }
+        lambdaUnits.planTo (MetricDistance.MICROMETERS).convert (lambda, micrometers, 0, count);
+        glass.calcRefractiveIndex (micrometers, n, 0, count);
+
+        switch (format) {
+            case BINARY: {
+                final ByteBuffer out = ByteBuffer.allocate (Math.toIntExact (rows * BINARY_RECORD_BYTES))
+                    .order (ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < count; ++i)
+                    for (int r = radiusFrom; r < radiusTo; ++r) {
+                        final double radius = radii[r];
+                        out.putInt (glassIndex)
+                           .putDouble (radius)
+                           .putDouble (lambda[i])
+                           .putDouble (radius / (n[i] - 1d));
+                    }
+                return out.array ();
+            }
+            case CSV:
+            default: {
+                final String name = CsvFields.quote (glass.getName ());
+                final StringBuilder out = new StringBuilder (Math.toIntExact (rows * 48));
+                for (int i = 0; i < count; ++i)
+                    for (int r = radiusFrom; r < radiusTo; ++r) {
+                        final double radius = radii[r];
+                        out.append (name).append (',')
+                           .append (radius).append (',')
+                           .append (lambda[i]).append (',')
+                           .append (radius / (n[i] - 1d)).append ('\n');
+                    }
+                return out.toString ().getBytes (StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    /* +--------------+ */
+    /* | COMMAND LINE | */
+    /* +--------------+ */
+    private static final String USAGE =
+        "usage: FocalLengthSweep --glasses <name>,... --radii <r>,... --lambda <start>:<step>:<end>\n" +
+        "                        [--radius-units mm] [--lambda-units um]\n" +
+        "                        [--format csv|binary] [--output <file>]\n" +
+        "\n" +
+        "Glasses are looked up among the built-in glasses first, then in the glass\n" +
+        "catalog named by -D" + GlassCatalog.CATALOG_PROPERTY + " or ~/.opticview/glasses.ovgc.\n" +
+        "Rows go to standard output unless an output file is given.";
+
+    public static void main (String... args) throws IOException {
+        final Map<String, String> options = new HashMap<> ();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith ("--") || i + 1 >= args.length)
+                fail ("expected --<option> <value>, got " + args[i]);
+            options.put (args[i].substring (2), args[i + 1]);
+        }
+        for (String option : options.keySet ())
+            if (!List.of ("glasses", "radii", "lambda", "radius-units", "lambda-units", "format", "output").contains (option))
+                fail ("unknown option --" + option);
+        if (!options.containsKey ("glasses") || !options.containsKey ("radii") || !options.containsKey ("lambda"))
+            fail ("--glasses, --radii and --lambda are required");
+
+        final List<IGlass> glasses = new ArrayList<> ();
+        GlassCatalog catalog = null;
+        for (String name : options.get ("glasses").split (",")) {
+            IGlass glass = findBuiltInGlass (name.trim ());
+            if (glass == null) {
+                if (catalog == null)
+                    catalog = GlassCatalog.openDefault ();
+                if (catalog != null)
+                    glass = catalog.find (name.trim ());
+            }
+            if (glass == null)
+                fail ("unknown glass " + name.trim ());
+            glasses.add (glass);
+        }
+
+        final double[] radii = Arrays.stream (options.get ("radii").split (","))
+            .mapToDouble (i -> parseNumber (i, "radius"))
+            .toArray ();
+        final String[] grid = options.get ("lambda").split (":");
+        if (grid.length != 3)
+            fail ("--lambda takes <start>:<step>:<end>");
+
+        final Format format;
+        try {
+            format = Format.valueOf (options.getOrDefault ("format", "csv").toUpperCase ());
+        }
+        catch (IllegalArgumentException e) {
+            fail ("unknown format " + options.get ("format"));
+            return;
+        }
+
+        final FocalLengthSweep sweep;
+        try {
+            sweep = new FocalLengthSweep (
+                glasses,
+                radii,
+                parseUnits (options.getOrDefault ("radius-units", "mm")),
+                parseNumber (grid[0], "wavelength"),
+                parseNumber (grid[1], "wavelength step"),
+                parseNumber (grid[2], "wavelength"),
+                parseUnits (options.getOrDefault ("lambda-units", "um")));
+        }
+        catch (RuntimeException e) {
+            fail (e.getMessage ());
+            return;
+        }
+
+        if (options.containsKey ("output")) {
+            try (OutputStream out = Files.newOutputStream (Paths.get (options.get ("output")))) {
+                sweep.write (out, format);
+            }
+            System.err.println ("wrote " + sweep.getRowCount () + " rows to " + options.get ("output"));
+        }
+        else
+            sweep.write (System.out, format);
+    }
+
+    /* matches a built-in glass by its display name or its constant name */
+    private static IGlass findBuiltInGlass (String name) {
+        for (Glass glass : Glass.values ())
+            if (glass.getName ().equalsIgnoreCase (name) || glass.name ().equalsIgnoreCase (name))
+                return glass;
+        return null;
+    }
+
+    private static MetricDistance parseUnits (String mnemonic) {
+        /* "um" stands in for the micro sign, which is awkward to type */
+        final String wanted = mnemonic.trim ().replace ('u', 'μ');
+        for (MetricDistance units : MetricDistance.values ())
+            if (units.getMnemonic ().equals (wanted) || units.getMnemonic ().equals (mnemonic.trim ()))
+                return units;
+        fail ("unknown units " + mnemonic);
+        return null;
+    }
+
+    private static double parseNumber (String text, String what) {
+        try {
+            return Double.parseDouble (text.trim ());
+        }
+        catch (NumberFormatException e) {
+            fail (what + " is not a valid decimal number: " + text);
+            return Double.NaN;
+        }
+    }
+
+    private static void fail (String message) {
+        System.err.println (message);
+        System.err.println (USAGE);
+        System.exit (1);
+    }
+}
@@ -0,0 +1,128 @@
+package io.github.mkmax.opticview.units;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/* A conversion between two fixed units, worked out once so that converting
+ * a value is a single multiply and add, with no lookups, checks or division.
+ *
+ * Plans assume the conversion is affine (value * scale + offset), which
+ * covers scaled units such as MetricDistance as well as offset ones. The
+ * coefficients are taken by converting 0 and 1 through the units once.
+ *
+ * Plans are cached per (source, dest) pair, so asking for the same pair again
+ * is a map lookup; units are expected to be long lived constants.
+ */
+public final class ConversionPlan {
+
+    /* +-------+ */
+    /* | CACHE | */
+    /* +-------+ */
+    private static final class Key {
+        private final IUnit source, dest;
+
+        Key (IUnit pSource, IUnit pDest) {
+            source = pSource;
+            dest = pDest;
+        }
+
+        @Override
+        public boolean equals (Object o) {
+            if (!(o instanceof Key))
+                return false;
+            final Key other = (Key) o;
+            return source.equals (other.source) && dest.equals (other.dest);
+        }
+
+        @Override
+        public int hashCode () {
+            return 31 * source.hashCode () + dest.hashCode ();
+        }
+    }
+
+    private static final Map<Key, ConversionPlan> CACHE = new ConcurrentHashMap<> ();
+
+    /* +--------------------------+ */
+    /* | MEMBERS & INITIALIZATION | */
+    /* +--------------------------+ */
+    private final IUnit
+        source,
+        dest;
+    private final double
+        scale,
+        offset;
+
+    private ConversionPlan (IUnit pSource, IUnit pDest) {
+        source = pSource;
+        dest = pDest;
+        offset = source.convertTo (dest, 0d);
+        scale = source.convertTo (dest, 1d) - offset;
+    }
+
+    /* Returns the plan converting values in source units into dest units.
+     * Throws an IncompatibleUnitsException if the units are unrelated.
+     */
+    public static ConversionPlan of (IUnit source, IUnit dest) {
+        Objects.requireNonNull (source, "source units must be specified");
+        Objects.requireNonNull (dest, "destination units must be specified");
+        if (!source.isConvertibleTo (dest) || !dest.isConvertibleFrom (source))
+            throw new IncompatibleUnitsException (source, dest,
+                source.getName () + " cannot convert to " + dest.getName ());
+        return CACHE.computeIfAbsent (new Key (source, dest), (key) -> new ConversionPlan (key.source, key.dest));
+    }
+
+    /* +-----------+ */
+    /* | INTERFACE | */
+    /* +-----------+ */
+    public IUnit getSource () {
+        return source;
+    }
+
+    public IUnit getDest () {
+        return dest;
+    }
+
+    /* Returns the factor a value is multiplied by; for units that are only
+     * scaled versions of one another, this is the whole conversion.
+     */
+    public double getScale () {
+        return scale;
+    }
+
+    public double getOffset () {
+        return offset;
+    }
+
+    public boolean isIdentity () {
+        return scale == 1d && offset == 0d;
+    }
+
+    public double convert (double value) {
+        return value * scale + offset;
+    }
+
+    /* Converts in[off, off + len) into the same positions of out, which may
+     * be the same array as in.
+     */
+    public void convert (double[] in, double[] out, int off, int len) {
+        Objects.checkFromIndexSize (off, len, in.length);
+        Objects.checkFromIndexSize (off, len, out.length);
+
+        /* a flat loop over locals, which the JIT unrolls and vectorizes */
+        final double s = scale, o = offset;
+        final int end = off + len;
+        for (int i = off; i < end; ++i)
+            out[i] = in[i] * s + o;
+    }
+
+    /* Returns the plan converting back from dest to source. */
+    public ConversionPlan inverse () {
+        return of (dest, source);
+    }
+
+    @Override
+    public String toString () {
+        return source.getName () + " -> " + dest.getName ();
+    }
+}
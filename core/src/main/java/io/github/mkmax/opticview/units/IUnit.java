@@ -38,4 +38,18 @@ public interface IUnit {
      */
     double convertFrom (IUnit source, double value);
 
+    /* Returns the cached plan converting values in the current units to
+     * the destination units, for converting many values at once.
+     */
+    default ConversionPlan planTo (IUnit dest) {
+        return ConversionPlan.of (this, dest);
+    }
+
+    /* Returns the cached plan converting values in the source units to the
+     * current units.
+     */
+    default ConversionPlan planFrom (IUnit source) {
+        return ConversionPlan.of (source, this);
+    }
+
 }
@@ -0,0 +1,183 @@
+package io.github.mkmax.opticview.util;
+
+/* A mutable double-double: an unevaluated sum hi + lo of two doubles with
+ * |lo| <= ulp(hi) / 2, carrying about 106 bits of significand.
+ *
+ * Every operation works in place and returns this, so a computation runs on
+ * a few instances allocated up front and nothing is allocated per step. The
+ * error-free transformations underneath (two-sum, and two-product through
+ * Math.fma) make each operation cost a small constant number of plain double
+ * operations, far from the cost of BigDecimal.
+ *
+ * Operations follow the accurate algorithms of the QD library (Hida, Li and
+ * Bailey). Once hi stops being finite, lo is cleared so that the value stays
+ * the same infinity or NaN that plain double arithmetic would have given.
+ */
+public final class DoubleDouble {
+
+    /* +--------------------------+ */
+    /* | MEMBERS & INITIALIZATION | */
+    /* +--------------------------+ */
+    private double
+        hi,
+        lo;
+
+    public DoubleDouble () {
+    }
+
+    public DoubleDouble (double value) {
+        hi = value;
+    }
+
+    /* +-----------+ */
+    /* | INTERFACE | */
+    /* +-----------+ */
+    public double hi () {
+        return hi;
+    }
+
+    public double lo () {
+        return lo;
+    }
+
+    /* Returns the value rounded to the nearest double. */
+    public double doubleValue () {
+        return hi + lo;
+    }
+
+    public DoubleDouble set (double value) {
+        hi = value;
+        lo = 0d;
+        return this;
+    }
+
+    public DoubleDouble set (DoubleDouble value) {
+        hi = value.hi;
+        lo = value.lo;
+        return this;
+    }
+
+    public DoubleDouble negate () {
+        hi = -hi;
+        lo = -lo;
+        return this;
+    }
+
+    /* +--- ADDITION ---+ */
+    public DoubleDouble add (double b) {
+        final double s = hi + b;
+        final double bb = s - hi;
+        final double e = (hi - (s - bb)) + (b - bb) + lo;
+        return normalize (s, e);
+    }
+
+    public DoubleDouble add (DoubleDouble b) {
+        return add (b.hi, b.lo);
+    }
+
+    public DoubleDouble sub (double b) {
+        return add (-b);
+    }
+
+    public DoubleDouble sub (DoubleDouble b) {
+        return add (-b.hi, -b.lo);
+    }
+
+    /* +--- MULTIPLICATION ---+ */
+    public DoubleDouble mul (double b) {
+        final double p = hi * b;
+        final double e = Math.fma (hi, b, -p) + lo * b;
+        return normalize (p, e);
+    }
+
+    public DoubleDouble mul (DoubleDouble b) {
+        final double p = hi * b.hi;
+        final double e = Math.fma (hi, b.hi, -p) + (hi * b.lo + lo * b.hi);
+        return normalize (p, e);
+    }
+
+    /* +--- DIVISION ---+ */
+    public DoubleDouble div (double b) {
+        return div (b, 0d);
+    }
+
+    public DoubleDouble div (DoubleDouble b) {
+        return div (b.hi, b.lo);
+    }
+
+    /* this = 1 / this, as set (1).div (old value) would give */
+    public DoubleDouble reciprocal () {
+        final double bHi = hi, bLo = lo;
+        set (1d);
+        return div (bHi, bLo);
+    }
+
+    /* +--- ROOTS ---+ */
+
+    /* One Newton step from the double root: sqrt (a) ~ x + (a - x^2) / 2x. */
+    public DoubleDouble sqrt () {
+        if (!(hi > 0d)) {
+            /* zero stays signed zero, negatives and NaN become NaN */
+            return hi == 0d ? set (hi) : set (Double.NaN);
+        }
+        final double x = Math.sqrt (hi);
+        final double p = x * x;
+        final double pe = Math.fma (x, x, -p);
+        final double r = ((hi - p) - pe) + lo;
+        return normalize (x, r / (2d * x));
+    }
+
+    @Override
+    public String toString () {
+        return hi + " + " + lo;
+    }
+
+    /* +----------+ */
+    /* | INTERNAL | */
+    /* +----------+ */
+
+    /* this + (bHi + bLo), the accurate two-sum based addition */
+    private DoubleDouble add (double bHi, double bLo) {
+        final double s1 = hi + bHi;
+        final double v1 = s1 - hi;
+        double s2 = (hi - (s1 - v1)) + (bHi - v1);
+        final double t1 = lo + bLo;
+        final double v2 = t1 - lo;
+        final double t2 = (lo - (t1 - v2)) + (bLo - v2);
+        s2 += t1;
+        final double u1 = s1 + s2;
+        s2 = s2 - (u1 - s1);
+        s2 += t2;
+        return normalize (u1, s2);
+    }
+
+    /* this / (bHi + bLo): a double quotient refined by one correction
+     * computed from the exact remainder */
+    private DoubleDouble div (double bHi, double bLo) {
+        final double q1 = hi / bHi;
+        if (!Double.isFinite (q1) || bHi == 0d)
+            return set (q1);
+
+        /* r = this - q1 * b */
+        final double p = q1 * bHi;
+        final double pe = Math.fma (q1, bHi, -p) + q1 * bLo;
+        final double s = hi - p;
+        final double v = s - hi;
+        final double se = (hi - (s - v)) + (-p - v);
+        final double r = s + (se + lo - pe);
+        return normalize (q1, r / bHi);
+    }
+
+    /* stores the quick two-sum of a and b, where |a| >= |b| */
+    private DoubleDouble normalize (double a, double b) {
+        final double s = a + b;
+        if (!Double.isFinite (s)) {
+            hi = s;
+            lo = 0d;
+            return this;
+        }
+        hi = s;
+        lo = b - (s - a);
+        return this;
+    }
+}
@@ -0,0 +1,11 @@
+module io.github.mkmax.opticview.core {
+    exports io.github.mkmax.opticview.expression;
+    exports io.github.mkmax.opticview.io;
+    exports io.github.mkmax.opticview.material;
+    exports io.github.mkmax.opticview.material.catalog;
+    exports io.github.mkmax.opticview.model;
+    exports io.github.mkmax.opticview.sampling;
+    exports io.github.mkmax.opticview.sweep;
+    exports io.github.mkmax.opticview.units;
+    exports io.github.mkmax.opticview.util;
+}
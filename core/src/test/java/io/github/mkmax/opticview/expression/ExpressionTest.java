@@ -0,0 +1,86 @@
+package io.github.mkmax.opticview.expression;
+
+import io.github.mkmax.opticview.model.IRealFunction;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.DoubleBinaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ExpressionTest {
+    @Test
+    public void compiledMatchesJava () {
+        final IRealFunction cauchy = Expression.parse ("1.458 + 0.00354 / x^2 - 2e-5 / x^4")
+            .compile ("x", Map.of ());
+        final IRealFunction mixed = Expression.parse ("-x^3 % 7 + sqrt(abs(x)) * pow(2, x / 3) - max(x, pi) * e")
+            .compile ("x", Map.of ());
+        for (double x = -3d; x <= 3d; x += 0.125d) {
+            assertEquals (1.458d + 0.00354d / (x * x) - 2e-5d / (x * x * (x * x)), cauchy.eval (x));
+            assertEquals (-(x * x * x) % 7d + Math.sqrt (Math.abs (x)) * Math.pow (2d, x / 3d) - Math.max (x, Math.PI) * Math.E,
+                mixed.eval (x));
+        }
+    }
+
+    @Test
+    public void twoVariablesAndBoundConstants () {
+        final Expression lens = Expression.parse ("R / (n - 1) + 0 * lambda");
+        assertEquals (Set.of ("R", "n", "lambda"), lens.getNames ());
+
+        final DoubleBinaryOperator f = lens.compile ("lambda", "n", Map.of ("R", 50d));
+        assertEquals (100d, f.applyAsDouble (0.5d, 1.5d));
+        assertEquals (100d, lens.evaluate (Map.of ("R", 50d, "n", 1.5d, "lambda", 0.5d)));
+    }
+
+    @Test
+    public void constantsAreFoldedAndPowersAssociateRight () {
+        assertEquals (512d, Expression.parse ("2^3^2").evaluate (Map.of ()));
+        assertEquals (-4d, Expression.parse ("-x^2").compile ("x", Map.of ()).eval (2d));
+        assertEquals (0.5d, Expression.parse ("2^-1").evaluate (Map.of ()));
+        assertEquals (Set.of (), Expression.parse ("sin(pi / 2) * 3").getNames ());
+    }
+
+    @Test
+    public void errorsPointAtTheProblem () {
+        assertEquals (4, assertThrows (ExpressionException.class, () -> Expression.parse ("1 + * 2")).getPosition ());
+        assertThrows (ExpressionException.class, () -> Expression.parse ("foo(1)"));
+        assertThrows (ExpressionException.class, () -> Expression.parse ("pow(1)"));
+        assertThrows (ExpressionException.class, () -> Expression.parse ("(x"));
+        assertThrows (ExpressionException.class, () -> Expression.parse (" "));
+        assertThrows (ExpressionException.class, () -> Expression.parse ("x + y").compile ("x", Map.of ()));
+    }
+
+    @Test
+    public void oversizedExpressionsAreRejected () {
+        /* each would otherwise overflow the stack while parsing or compiling */
+        assertThrows (ExpressionException.class, () -> Expression.parse ("(".repeat (20000) + "x" + ")".repeat (20000)));
+        assertThrows (ExpressionException.class, () -> Expression.parse ("-".repeat (1000) + "x"));
+        assertThrows (ExpressionException.class, () -> Expression.parse ("x" + "^x".repeat (1000)));
+        assertThrows (ExpressionException.class, () -> Expression.parse ("x" + "+x".repeat (1000)));
+        assertThrows (ExpressionException.class, () -> Expression.parse ("1".repeat (5000)));
+
+        /* a long formula within the limits still compiles */
+        final IRealFunction sum = Expression.parse ("x" + "+x".repeat (200)).compile ("x", Map.of ());
+        assertEquals (201d, sum.eval (1d));
+    }
+
+    @Test
+    public void compiledClassesAreUnloadedWithTheirFunction () throws Exception {
+        IRealFunction f = Expression.parse ("x * 2").compile ("x", Map.of ());
+        assertNotSame (Expression.class.getClassLoader (), f.getClass ().getClassLoader ());
+        assertEquals (4d, f.eval (2d));
+
+        final WeakReference<Class<?>> compiled = new WeakReference<> (f.getClass ());
+        f = null;
+        for (int i = 0; i < 50 && compiled.get () != null; ++i) {
+            System.gc ();
+            Thread.sleep (10L);
+        }
+        assertNull (compiled.get ());
+    }
+}
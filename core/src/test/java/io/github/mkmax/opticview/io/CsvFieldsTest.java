@@ -0,0 +1,23 @@
+package io.github.mkmax.opticview.io;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CsvFieldsTest {
+
+    @Test
+    public void leavesPlainFieldsAlone () {
+        assertEquals ("", CsvFields.quote (""));
+        assertEquals ("N-BK7", CsvFields.quote ("N-BK7"));
+    }
+
+    @Test
+    public void quotesFieldsHoldingSeparators () {
+        assertEquals ("\"scan 1\"", CsvFields.quote ("scan 1"));
+        assertEquals ("\"a;b\"", CsvFields.quote ("a;b"));
+        assertEquals ("\"a,b\"", CsvFields.quote ("a,b"));
+        assertEquals ("\"line\nbreak\"", CsvFields.quote ("line\nbreak"));
+        assertEquals ("\"say \"\"n\"\"\"", CsvFields.quote ("say \"n\""));
+    }
+}
@@ -0,0 +1,179 @@
+package io.github.mkmax.opticview.io;
+
+import io.github.mkmax.opticview.sampling.SampleBuffer;
+import io.github.mkmax.opticview.units.MetricDistance;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MappedSamplesTest {
+
+    @Test
+    public void readsCsvColumns () throws Exception {
+        final Path file = Files.createTempFile ("measured", ".csv");
+        try {
+            Files.write (file, (
+                "# refractometer scan\n" +
+                "lambda; n; f\r\n" +
+                "0.4; 1.53; 94.3\r\n" +
+                "\n" +
+                "0.5 ;1.52;  96.1\n" +
+                "0.6\t1.51\t\n" +
+                "0.7,1.50,NaN").getBytes (StandardCharsets.US_ASCII));
+            try (MappedSamples samples = MappedSamples.open (file, MappedSamples.Format.CSV, 0, 2)) {
+                assertEquals (4, samples.size ());
+                assertEquals (0.4d, samples.getX (0));
+                assertEquals (94.3d, samples.getY (0));
+                assertEquals (96.1d, samples.getY (1));
+                assertTrue (Double.isNaN (samples.getY (2)));
+                assertEquals (0.7d, samples.getX (3));
+                assertTrue (Double.isNaN (samples.getY (3)));
+            }
+        }
+        finally {
+            Files.deleteIfExists (file);
+        }
+    }
+
+    @Test
+    public void readsDescendingBinaryInReverse () throws Exception {
+        final Path file = Files.createTempFile ("measured", ".bin");
+        try {
+            final ByteBuffer records = ByteBuffer.allocate (1000 * 16).order (ByteOrder.LITTLE_ENDIAN);
+            for (int i = 999; i >= 0; --i)
+                records.putDouble (i).putDouble (-i);
+            Files.write (file, records.array ());
+            try (MappedSamples samples = MappedSamples.open (file)) {
+                assertEquals (1000, samples.size ());
+                for (int i = 0; i < 1000; ++i) {
+                    assertEquals (i, samples.getX (i));
+                    assertEquals (-i, samples.getY (i));
+                }
+            }
+        }
+        finally {
+            Files.deleteIfExists (file);
+        }
+    }
+
+    @Test
+    public void readsTheFirstExportedSeries () throws Exception {
+        final Path file = Files.createTempFile ("measured", ".ovs");
+        try {
+            final SampleBuffer first = new SampleBuffer (), second = new SampleBuffer ();
+            for (int i = 0; i < 10; ++i) {
+                first.add (i, i * i);
+                second.add (-i, i);
+            }
+            SeriesExporter.write (file, SeriesExporter.Format.BINARY, List.of (
+                new SeriesExporter.Series ("first", MetricDistance.MICROMETERS, MetricDistance.MILLIMETERS, first),
+                new SeriesExporter.Series ("second", MetricDistance.MICROMETERS, MetricDistance.MILLIMETERS, second)));
+            try (MappedSamples samples = MappedSamples.open (file)) {
+                assertEquals (10, samples.size ());
+                assertEquals (9d, samples.getX (9));
+                assertEquals (81d, samples.getY (9));
+            }
+        }
+        finally {
+            Files.deleteIfExists (file);
+        }
+    }
+
+    @Test
+    public void readsTheFirstSeriesOfAnExportedCsv () throws Exception {
+        final Path file = Files.createTempFile ("measured", ".csv");
+        try {
+            final SampleBuffer first = new SampleBuffer (), second = new SampleBuffer ();
+            for (int i = 0; i < 10; ++i) {
+                first.add (i, i * i);
+                second.add (-i, i);
+            }
+            SeriesExporter.write (file, SeriesExporter.Format.CSV, List.of (
+                new SeriesExporter.Series ("scan, \"dry\"\nrun", MetricDistance.MICROMETERS, MetricDistance.MILLIMETERS, first),
+                new SeriesExporter.Series ("second", MetricDistance.MICROMETERS, MetricDistance.MILLIMETERS, second)));
+            try (MappedSamples samples = MappedSamples.open (file)) {
+                assertEquals (10, samples.size ());
+                for (int i = 0; i < 10; ++i) {
+                    assertEquals (i, samples.getX (i));
+                    assertEquals (i * i, samples.getY (i));
+                }
+            }
+        }
+        finally {
+            Files.deleteIfExists (file);
+        }
+    }
+
+    @Test
+    public void readsQuotedCsvFields () throws Exception {
+        final Path file = Files.createTempFile ("measured", ".csv");
+        try {
+            Files.write (file, (
+                "\"label, with comma\",\"0.4\",1.53\n" +
+                "\"line\nbreak\", 0.5 ,\"1.52\"\n" +
+                "\"\"\"quoted\"\"\",0.6,1.51\n").getBytes (StandardCharsets.US_ASCII));
+            try (MappedSamples samples = MappedSamples.open (file, MappedSamples.Format.CSV, 1, 2)) {
+                assertEquals (3, samples.size ());
+                assertEquals (0.4d, samples.getX (0));
+                assertEquals (1.52d, samples.getY (1));
+                assertEquals (0.6d, samples.getX (2));
+                assertEquals (1.51d, samples.getY (2));
+            }
+        }
+        finally {
+            Files.deleteIfExists (file);
+        }
+    }
+
+    @Test
+    public void csvLeavesNoConvertedCopyBehind () throws Exception {
+        /* Windows refuses to delete a mapped file until it is unmapped */
+        if (System.getProperty ("os.name").startsWith ("Windows"))
+            return;
+        final Path file = Files.createTempFile ("measured", ".csv");
+        try {
+            Files.write (file, "0.4,1.53\n0.5,1.52\n".getBytes (StandardCharsets.US_ASCII));
+            final Set<Path> before = convertedCopies ();
+            try (MappedSamples samples = MappedSamples.open (file)) {
+                /* the copy goes as soon as it is mapped, and the view still reads */
+                assertEquals (before, convertedCopies ());
+                assertEquals (1.52d, samples.getY (1));
+            }
+        }
+        finally {
+            Files.deleteIfExists (file);
+        }
+    }
+
+    private static Set<Path> convertedCopies () throws IOException {
+        try (Stream<Path> files = Files.list (Path.of (System.getProperty ("java.io.tmpdir")))) {
+            return files.filter (f -> f.getFileName ().toString ().matches ("opticview.*\\.samples"))
+                .collect (Collectors.toSet ());
+        }
+    }
+
+    @Test
+    public void rejectsUnorderedData () throws Exception {
+        final Path file = Files.createTempFile ("measured", ".csv");
+        try {
+            Files.write (file, "1,1\n3,3\n2,2\n".getBytes (StandardCharsets.US_ASCII));
+            assertThrows (RuntimeException.class, () -> MappedSamples.open (file));
+        }
+        finally {
+            Files.deleteIfExists (file);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.mkmax.opticview.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NumberScannerTest {
+
+    private static double parse (NumberScanner scanner, String text) {
+        final ByteBuffer buffer = ByteBuffer.wrap (text.getBytes (StandardCharsets.US_ASCII));
+        return scanner.parse (buffer, 0, buffer.limit ());
+    }
+
+    @Test
+    public void matchesParseDouble () {
+        final NumberScanner scanner = new NumberScanner ();
+        final String[] numbers = {
+            "0", "-0", "1", "+1.5", "0.4000", " 1.5308 ", ".25", "3.", "-1e-3", "6.02214076E23",
+            "1.7976931348623157e308", "4.9e-324", "0.1", "0.30000000000000004", "123456789012345678901234",
+            "2.718281828459045", "1e22", "1e23", "-12.5e+2", "0.000001234"
+        };
+        for (String number : numbers) {
+            final double parsed = parse (scanner, number);
+            assertTrue (scanner.isValid ());
+            assertEquals (Double.doubleToLongBits (Double.parseDouble (number.trim ())), Double.doubleToLongBits (parsed));
+        }
+    }
+
+    @Test
+    public void roundsSeventeenDigitNumbersLikeParseDouble () {
+        final NumberScanner scanner = new NumberScanner ();
+        final String[] edges = {
+            "9999999999999999999", "9007199254740993", "2.4703282292062327e-324", "2.4703282292062328e-324",
+            "2.2250738585072011e-308", "2.2250738585072012e-308", "1.7976931348623158e308", "1.7976931348623159e308",
+            "1e-343", "9999999999999999999e-343", "0.1e309", "123456789012345678e290", "-5.000000000000000277e-1"
+        };
+        for (String number : edges)
+            assertEquals (Double.doubleToLongBits (Double.parseDouble (number)), Double.doubleToLongBits (parse (scanner, number)));
+
+        final SplittableRandom random = new SplittableRandom (17L);
+        for (int i = 0; i < 20_000; ++i) {
+            final double value = Double.longBitsToDouble (random.nextLong ());
+            if (!Double.isFinite (value))
+                continue;
+            for (String number : new String[] {Double.toString (value), String.format (Locale.ROOT, "%.18e", value)})
+                assertEquals (Double.doubleToLongBits (Double.parseDouble (number)), Double.doubleToLongBits (parse (scanner, number)));
+        }
+    }
+
+    @Test
+    public void readsSpecialValues () {
+        final NumberScanner scanner = new NumberScanner ();
+        assertTrue (Double.isNaN (parse (scanner, "NaN")));
+        assertTrue (scanner.isValid ());
+        assertEquals (Double.NEGATIVE_INFINITY, parse (scanner, "-inf"));
+        assertEquals (Double.POSITIVE_INFINITY, parse (scanner, "Infinity"));
+    }
+
+    @Test
+    public void rejectsText () {
+        final NumberScanner scanner = new NumberScanner ();
+        for (String text : new String[] {"", "lambda", "1.2.3", "1e", "-", ".", "12a", "\"3\""}) {
+            assertTrue (Double.isNaN (parse (scanner, text)));
+            assertFalse (scanner.isValid ());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package io.github.mkmax.opticview.io;
+
+import io.github.mkmax.opticview.sampling.SampleBuffer;
+import io.github.mkmax.opticview.units.MetricDistance;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SeriesExporterTest {
+
+    private static SeriesExporter.Series series (String name, int size) {
+        final SampleBuffer samples = new SampleBuffer (size);
+        for (int i = 0; i < size; ++i)
+            samples.add (i * 0.5d, i % 7 == 0 ? Double.NaN : -i / 3d);
+        return new SeriesExporter.Series (name, MetricDistance.MICROMETERS, MetricDistance.MILLIMETERS, samples);
+    }
+
+    @Test
+    public void binaryRoundTrips () throws Exception {
+        /* enough samples to fill the buffer several times over */
+        final List<SeriesExporter.Series> all = List.of (series ("N-BK7", 20000), series ("", 3));
+        final Path file = Files.createTempFile ("series", ".ovs");
+        try {
+            SeriesExporter.write (file, SeriesExporter.Format.BINARY, all);
+            final ByteBuffer in = ByteBuffer.wrap (Files.readAllBytes (file)).order (ByteOrder.LITTLE_ENDIAN);
+            assertEquals (SeriesExporter.BINARY_MAGIC, in.getInt ());
+            assertEquals (SeriesExporter.BINARY_VERSION, in.getInt ());
+            assertEquals (all.size (), in.getInt ());
+            for (SeriesExporter.Series s : all) {
+                assertEquals (s.getName (), readString (in));
+                assertEquals ("μm", readString (in));
+                assertEquals ("mm", readString (in));
+                assertEquals (s.getSamples ().size (), in.getLong ());
+                for (int i = 0; i < s.getSamples ().size (); ++i) {
+                    assertEquals (s.getSamples ().getX (i), in.getDouble ());
+                    assertEquals (Double.doubleToLongBits (s.getSamples ().getY (i)), Double.doubleToLongBits (in.getDouble ()));
+                }
+            }
+            assertEquals (0, in.remaining ());
+        }
+        finally {
+            Files.deleteIfExists (file);
+        }
+    }
+
+    @Test
+    public void csvHasARowPerSample () throws Exception {
+        final Path file = Files.createTempFile ("series", ".csv");
+        try {
+            SeriesExporter.write (file, SeriesExporter.Format.CSV, List.of (series ("a, b", 5000)));
+            final List<String> lines = Files.readAllLines (file, StandardCharsets.UTF_8);
+            assertEquals (5001, lines.size ());
+            assertEquals ("series,x,y,x units,y units", lines.get (0));
+            assertEquals ("\"a, b\",0.0,NaN,μm,mm", lines.get (1));
+            assertEquals ("\"a, b\",1.0,-0.6666666666666666,μm,mm", lines.get (3));
+            assertEquals ("\"a, b\",2499.5," + (-4999 / 3d) + ",μm,mm", lines.get (5000));
+        }
+        finally {
+            Files.deleteIfExists (file);
+        }
+    }
+
+    private static String readString (ByteBuffer in) {
+        final byte[] bytes = new byte[in.getInt ()];
+        in.get (bytes);
+        return new String (bytes, StandardCharsets.UTF_8);
+    }
+}
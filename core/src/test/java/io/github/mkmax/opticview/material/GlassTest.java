@@ -0,0 +1,44 @@
+package io.github.mkmax.opticview.material;
+
+import io.github.mkmax.opticview.util.DoubleDouble;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GlassTest {
+    @Test
+    public void bk7AtHeliumDLine () {
+        assertEquals (1.5168d, Glass.N_BK7.calcRefractiveIndex (0.5875618d), 1e-4d);
+    }
+
+    @Test
+    public void bulkMatchesScalar () {
+        final double[] lambda = new double[1000];
+        for (int i = 0; i < lambda.length; ++i)
+            lambda[i] = 0.2d + i * 0.01d;
+
+        for (Glass glass : Glass.values ()) {
+            final double[] out = new double[lambda.length];
+            glass.calcRefractiveIndex (lambda, out, 3, 997);
+            assertEquals (0d, out[2]);
+            assertEquals (0d, out[997]);
+            for (int i = 3; i < 997; ++i)
+                assertEquals (glass.calcRefractiveIndex (lambda[i]), out[i]);
+        }
+    }
+
+    @Test
+    public void extendedRoundsToScalar () {
+        final DoubleDouble n = new DoubleDouble ();
+        for (Glass glass : Glass.values ())
+            for (double lambda = 0.3d; lambda < 2.5d; lambda += 0.01d) {
+                glass.calcRefractiveIndex (lambda, n);
+                final double expected = glass.calcRefractiveIndex (lambda);
+                if (Double.isNaN (expected))
+                    assertTrue (Double.isNaN (n.doubleValue ()));
+                else /* near a pole the plain double loses digits, so only loosely */
+                    assertEquals (expected, n.doubleValue (), Math.abs (expected) * 1e-12d);
+            }
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.mkmax.opticview.material.catalog;
+
+import io.github.mkmax.opticview.material.Glass;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public class DispersionFileParserTest {
+    private static final String AGF =
+        "CC Test catalog\n" +
+        "NM N-BK7 2 517642 1.5168 64.17 0 0\n" +
+        "GC\n" +
+        "ED 7.1 8.3 2.51 -0.0009 0\n" +
+        "CD 1.03961212 0.00600069867 0.231792344 0.0200179144 1.01046945 103.560653 0 0 0 0\n" +
+        "LD 0.3 2.5\n" +
+        "NM ODD 3 000000 1.5 50 0 0\n" +
+        "CD 1 2 3 4 5 6\n" +
+        "NM SCHOTTY 1 000000 1.5 50 0 0\n" +
+        "CD 2.25 0 0 0 0 0\n";
+
+    @Test
+    public void agfKeepsSupportedFormulas () throws IOException {
+        final List<CatalogGlass> glasses = DispersionFileParser.parseAgf (new StringReader (AGF));
+        assertEquals (2, glasses.size ());
+        assertEquals ("N-BK7", glasses.get (0).getName ());
+        assertEquals (Glass.N_BK7.calcRefractiveIndex (0.55d), glasses.get (0).calcRefractiveIndex (0.55d));
+        assertEquals (1.5d, glasses.get (1).calcRefractiveIndex (0.7d), 1e-12d);
+    }
+
+    @Test
+    public void yamlFormulaOneSquaresResonances () throws IOException {
+        final String yaml =
+            "REFERENCES: \"test\"\n" +
+            "DATA:\n" +
+            "  - type: formula 1\n" +
+            "    wavelength_range: 0.21 6.7\n" +
+            "    coefficients: 0 0.6961663 0.0684043 0.4079426 0.1162414 0.8974794 9.896161\n";
+        final CatalogGlass glass = DispersionFileParser.parseYaml ("SiO2", new StringReader (yaml));
+        assertNotNull (glass);
+        assertEquals (Glass.UVFS.calcRefractiveIndex (0.6328d), glass.calcRefractiveIndex (0.6328d), 1e-9d);
+    }
+}
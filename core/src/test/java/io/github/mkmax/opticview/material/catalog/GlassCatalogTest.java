@@ -0,0 +1,40 @@
+package io.github.mkmax.opticview.material.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class GlassCatalogTest {
+    @Test
+    public void compiledCatalogRoundTrips () throws IOException {
+        final List<CatalogGlass> glasses = List.of (
+            new CatalogGlass ("S-LAH79", DispersionFormula.SELLMEIER, new double[] { 1d, 2.3d, 0.015d, 0.4d, 0.06d }),
+            new CatalogGlass ("F2", DispersionFormula.SCHOTT, new double[] { 2.5d, -0.008d, 0.02d, 0.0009d, -0.00003d, 0.000002d }),
+            new CatalogGlass ("BaF2", DispersionFormula.SELLMEIER, new double[] { 1d, 0.64d, 0.0033d }),
+            new CatalogGlass ("F2", DispersionFormula.SELLMEIER, new double[] { 1d }));
+
+        /* mapped files cannot be deleted on every platform, so clean up on exit */
+        final Path file = Files.createTempFile ("catalog", ".ovgc");
+        file.toFile ().deleteOnExit ();
+
+        GlassCatalog.compile (glasses, file);
+        final GlassCatalog catalog = GlassCatalog.open (file);
+
+        /* sorted by name, duplicates dropped */
+        assertEquals (3, catalog.size ());
+        assertEquals ("BaF2", catalog.getName (0));
+        assertEquals ("F2", catalog.getName (1));
+        assertEquals ("S-LAH79", catalog.getName (2));
+
+        assertEquals (glasses.get (1), catalog.find ("F2"));
+        assertEquals (glasses.get (0), catalog.get (2));
+        assertEquals (2, catalog.asList ().indexOf (glasses.get (0)));
+        assertNull (catalog.find ("N-BK7"));
+    }
+}
@@ -0,0 +1,115 @@
+package io.github.mkmax.opticview.model;
+
+import io.github.mkmax.opticview.sampling.SampleBuffer;
+import io.github.mkmax.opticview.units.MetricDistance;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FunctionSamplerTest {
+
+    private static FunctionSpec spec (IRealFunction func, double start, double step, double end) {
+        return new FunctionSpec (func, "f", MetricDistance.METERS, MetricDistance.METERS, start, step, end);
+    }
+
+    @Test
+    public void extendMatchesAFullSampling () {
+        final FunctionSampler sampler = new FunctionSampler ();
+        final IRealFunction func = Math::sin;
+        final SampleBuffer previous = sampler.sample (spec (func, 0d, 0.25d, 10d), 0d, 0d);
+
+        final FunctionSpec moved = spec (func, -2d, 0.25d, 12d);
+        final SampleBuffer extended = sampler.extend (moved, previous, 0d);
+        final SampleBuffer full = sampler.sample (moved, 0d, 0d);
+        assertEquals (full.size (), extended.size ());
+        for (int i = 0; i < full.size (); ++i) {
+            assertEquals (full.getX (i), extended.getX (i));
+            assertEquals (full.getY (i), extended.getY (i));
+        }
+    }
+
+    @Test
+    public void scaledFunctionsShareTheirBase () {
+        final AtomicInteger calls = new AtomicInteger ();
+        final IRealFunction base = x -> {
+            calls.incrementAndGet ();
+            return x * x;
+        };
+        final FunctionSampler sampler = new FunctionSampler ();
+        final SampleBuffer
+            twice = sampler.sample (spec (scaled (base, 2d), 0d, 1d, 10d), 0d, 0d),
+            thrice = sampler.sample (spec (scaled (base, 3d), 0d, 1d, 10d), 0d, 0d);
+
+        /* the base is evaluated for the first function only */
+        assertEquals (11, calls.get ());
+        for (int i = 0; i < twice.size (); ++i) {
+            final double x = twice.getX (i);
+            assertEquals (2d * x * x, twice.getY (i));
+            assertEquals (3d * x * x, thrice.getY (i));
+        }
+    }
+
+    @Test
+    public void micrometerRangesTakeMillionsOfSamplesInParallel () {
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet ();
+        final IRealFunction func = x -> {
+            threads.add (Thread.currentThread ());
+            return Math.sin (x);
+        };
+
+        /* 0.3 to 2.5 um every 2 pm, as a validation run would ask for */
+        final FunctionSpec spec = spec (func, 0.3d, 2e-6d, 2.5d)
+            .withMaxSamples (FunctionSpec.MAX_SAMPLES_LIMIT)
+            .withPure (true);
+        assertTrue (spec.isFullStep ());
+
+        final ForkJoinPool pool = new ForkJoinPool (4);
+        try {
+            final SampleBuffer samples = new FunctionSampler (0L, pool).sample (spec, 0d, 0d);
+            assertTrue (samples.size () > 1_000_000);
+            assertEquals (2.5d, samples.getX (samples.size () - 1));
+            assertEquals (Math.sin (1.5d), samples.getY (600_000), 1e-9d);
+            assertTrue (threads.stream ().anyMatch (t ->
+                t instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) t).getPool () == pool));
+        }
+        finally {
+            pool.shutdownNow ();
+        }
+    }
+
+    @Test
+    public void specsRejectInvalidSettings () {
+        assertThrows (RuntimeException.class, () -> spec (Math::sin, 0d, 0d, 10d));
+        assertThrows (RuntimeException.class, () -> spec (Math::sin, 0d, 1e-9d, 10d));
+        assertThrows (RuntimeException.class, () -> spec (Math::sin, 0d, -1d, 10d));
+        assertThrows (RuntimeException.class, () -> spec (Math::sin, 0d, 1d, 10d).withMaxSamples (1));
+        assertThrows (RuntimeException.class, () -> spec (Math::sin, 0d, 1d, 10d).withPrecision (null));
+    }
+
+    private static IScaledFunction scaled (IRealFunction base, double scale) {
+        return new IScaledFunction () {
+            @Override
+            public IRealFunction getBase () {
+                return base;
+            }
+
+            @Override
+            public double getScale () {
+                return scale;
+            }
+
+            @Override
+            public double eval (double x) {
+                return scale * base.eval (x);
+            }
+        };
+    }
+}
@@ -0,0 +1,147 @@
+package io.github.mkmax.opticview.model;
+
+import io.github.mkmax.opticview.sampling.ExtremumTracker;
+import io.github.mkmax.opticview.sampling.SampleBuffer;
+import io.github.mkmax.opticview.sampling.SampleChunk;
+import io.github.mkmax.opticview.sampling.SampleCollector;
+import io.github.mkmax.opticview.units.MetricDistance;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SampleStreamTest {
+
+    private static FunctionSpec spec (IRealFunction func, double start, double step, double end) {
+        return new FunctionSpec (func, "f", MetricDistance.METERS, MetricDistance.METERS, start, step, end);
+    }
+
+    @Test
+    public void subscribersShareOnePass () throws Exception {
+        final AtomicInteger calls = new AtomicInteger ();
+        final IRealFunction func = x -> {
+            calls.incrementAndGet ();
+            return Math.sin (x);
+        };
+        final FunctionSpec spec = spec (func, 10d, -0.01d, 0d);
+        final ExecutorService executor = Executors.newFixedThreadPool (2);
+        try {
+            /* small chunks and buffers, so the pass keeps waiting on the consumers */
+            final SampleStream stream = new SampleStream (new FunctionSampler (), spec, 0d, 0d, 64, executor, 2);
+            final SampleCollector collector = new SampleCollector ();
+            final ExtremumTracker tracker = new ExtremumTracker ();
+            stream.subscribe (collector);
+            stream.subscribe (tracker);
+            stream.start (executor).get (10, TimeUnit.SECONDS);
+
+            final SampleBuffer streamed = collector.getResult ().get (10, TimeUnit.SECONDS);
+            final ExtremumTracker.Extrema extrema = tracker.getResult ().get (10, TimeUnit.SECONDS);
+            assertEquals (streamed.size (), calls.get ());
+
+            /* the chunks reassemble the grid the sampler takes */
+            final SampleBuffer sampled = new FunctionSampler ().sample (spec, 0d, 0d);
+            assertEquals (sampled.size (), streamed.size ());
+            for (int i = 0; i < sampled.size (); ++i) {
+                assertEquals (sampled.getX (i), streamed.getX (i));
+                assertEquals (sampled.getY (i), streamed.getY (i));
+            }
+            assertEquals (1d, extrema.maxY, 1e-4d);
+            assertEquals (Math.PI / 2d, extrema.maxX, 1e-2d);
+            assertEquals (-1d, extrema.minY, 1e-4d);
+        }
+        finally {
+            executor.shutdownNow ();
+        }
+    }
+
+    @Test
+    public void cancelledStreamsFailTheirSubscribers () throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor ();
+        try {
+            final SampleStream stream = new SampleStream (
+                new FunctionSampler (), spec (Math::sin, 0d, 1d, 1e4d), 0d, 0d, 16, executor, 1);
+            final SampleCollector collector = new SampleCollector ();
+            stream.subscribe (collector);
+            stream.cancel ();
+            stream.start (executor);
+            assertThrows (Exception.class, () -> collector.getResult ().get (10, TimeUnit.SECONDS));
+            assertThrows (RuntimeException.class, () -> stream.start (executor));
+        }
+        finally {
+            executor.shutdownNow ();
+        }
+    }
+
+    @Test
+    public void boundedExecutorsDoNotDeadlock () throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor ();
+        try {
+            /* one thread notifies and every buffer holds one chunk */
+            final FunctionSpec spec = spec (Math::sin, 0d, 1d, 1e4d);
+            final SampleStream stream = new SampleStream (new FunctionSampler (), spec, 0d, 0d, 16, executor, 1);
+            final SampleCollector collector = new SampleCollector ();
+            stream.subscribe (collector);
+            stream.start ().get (10, TimeUnit.SECONDS);
+            assertEquals (10001, collector.getResult ().get (10, TimeUnit.SECONDS).size ());
+        }
+        finally {
+            executor.shutdownNow ();
+        }
+    }
+
+    @Test
+    public void cancelEndsAPassStalledOnAFullBuffer () throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor ();
+        final CountDownLatch release = new CountDownLatch (1);
+        try {
+            final SampleStream stream = new SampleStream (
+                new FunctionSampler (), spec (Math::sin, 0d, 1d, 1e4d), 0d, 0d, 16, executor, 1);
+
+            /* takes one chunk, then holds the only notifying thread */
+            stream.subscribe (new Flow.Subscriber<SampleChunk> () {
+                @Override
+                public void onSubscribe (Flow.Subscription subscription) {
+                    subscription.request (Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext (SampleChunk chunk) {
+                    try {
+                        release.await ();
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread ().interrupt ();
+                    }
+                }
+
+                @Override
+                public void onError (Throwable throwable) {
+                }
+
+                @Override
+                public void onComplete () {
+                }
+            });
+
+            final CompletableFuture<Void> pass = stream.start ();
+            Thread.sleep (200L);
+            assertFalse (pass.isDone ());
+            stream.cancel ();
+            assertThrows (ExecutionException.class, () -> pass.get (10, TimeUnit.SECONDS));
+        }
+        finally {
+            release.countDown ();
+            executor.shutdownNow ();
+        }
+    }
+}
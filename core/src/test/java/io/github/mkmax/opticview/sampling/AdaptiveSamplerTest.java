@@ -0,0 +1,35 @@
+package io.github.mkmax.opticview.sampling;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveSamplerTest {
+    @Test
+    public void straightLineIsNotRefined () {
+        final SampleBuffer out = new SampleBuffer ();
+        AdaptiveSampler.sample (x -> 3d * x + 1d, 0d, 0.25d, 1d, 800d, 600d, AdaptiveSampler.DEFAULT_TOLERANCE, out);
+        /* four intervals, each only probed at its midpoint */
+        assertEquals (9, out.size ());
+        assertEquals (0d, out.getX (0));
+        assertEquals (1d, out.getX (out.size () - 1));
+    }
+
+    @Test
+    public void poleIsMarkedAsBreak () {
+        final SampleBuffer out = new SampleBuffer ();
+        AdaptiveSampler.sample (x -> 1d / (x - 0.33d), 0d, 0.1d, 1d, 800d, 600d, AdaptiveSampler.DEFAULT_TOLERANCE, out);
+
+        int breaks = 0;
+        for (int i = 0; i < out.size (); ++i) {
+            if (i > 0)
+                assertTrue (out.getX (i) > out.getX (i - 1), "samples must be ordered");
+            if (Double.isNaN (out.getY (i))) {
+                assertEquals (0.33d, out.getX (i), 1e-3d);
+                ++breaks;
+            }
+        }
+        assertEquals (1, breaks);
+    }
+}
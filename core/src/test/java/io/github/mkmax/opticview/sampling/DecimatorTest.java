@@ -0,0 +1,65 @@
+package io.github.mkmax.opticview.sampling;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DecimatorTest {
+    private static SampleBuffer sine (int count) {
+        final SampleBuffer buffer = new SampleBuffer (count);
+        for (int i = 0; i < count; ++i)
+            buffer.add (i, Math.sin (i * 0.01d));
+        return buffer;
+    }
+
+    @Test
+    public void minMaxKeepsTwoSamplesPerColumn () {
+        final SampleBuffer src = sine (100_000);
+        final SampleBuffer out = new SampleBuffer ();
+        Decimator.minMax (src, 0, src.size (), 0d, src.size () - 1, 200, out);
+
+        assertTrue (out.size () <= 2 * 202);
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < out.size (); ++i) {
+            if (i > 0)
+                assertTrue (out.getX (i) > out.getX (i - 1), "samples must stay ordered");
+            max = Math.max (max, out.getY (i));
+        }
+        assertEquals (1d, max, 1e-4d);
+    }
+
+    @Test
+    public void minMaxKeepsBreaks () {
+        final SampleBuffer src = sine (10_000);
+        src.set (5_000, 5_000d, Double.NaN);
+        final SampleBuffer out = new SampleBuffer ();
+        Decimator.minMax (src, 0, src.size (), 0d, src.size () - 1, 100, out);
+
+        int breaks = 0;
+        for (int i = 0; i < out.size (); ++i)
+            if (Double.isNaN (out.getY (i)))
+                ++breaks;
+        assertEquals (1, breaks);
+    }
+
+    @Test
+    public void lttbHonoursThreshold () {
+        final SampleBuffer src = sine (100_000);
+        final SampleBuffer out = new SampleBuffer ();
+        Decimator.lttb (src, 0, src.size (), 500, out);
+
+        assertEquals (500, out.size ());
+        assertEquals (0d, out.getX (0));
+        assertEquals (src.size () - 1, out.getX (out.size () - 1));
+    }
+
+    @Test
+    public void smallRunsAreCopied () {
+        final SampleBuffer src = sine (10);
+        final SampleBuffer out = new SampleBuffer ();
+        Decimator.minMax (src, 2, 8, 0d, 9d, 100, out);
+        assertEquals (6, out.size ());
+        assertEquals (2d, out.getX (0));
+    }
+}
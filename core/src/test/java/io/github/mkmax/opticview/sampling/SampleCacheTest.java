@@ -0,0 +1,59 @@
+package io.github.mkmax.opticview.sampling;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class SampleCacheTest {
+    /* 100 samples of two doubles each */
+    private static final long BUFFER_BYTES = 100L * 2L * Double.BYTES;
+
+    @Test
+    public void evictsTheLeastRecentlyUsed () {
+        final SampleCache cache = new SampleCache (3L * BUFFER_BYTES);
+        final SampleBuffer a = new SampleBuffer (100), b = new SampleBuffer (100), c = new SampleBuffer (100);
+        cache.put ("a", a);
+        cache.put ("b", b);
+        cache.put ("c", c);
+        assertEquals (3L * BUFFER_BYTES, cache.getUsedBytes ());
+
+        /* touching a leaves b as the eldest */
+        assertSame (a, cache.get ("a"));
+        cache.put ("d", new SampleBuffer (100));
+        assertNull (cache.get ("b"));
+        assertNotNull (cache.get ("a"));
+        assertNotNull (cache.get ("c"));
+        assertEquals (3, cache.size ());
+        assertEquals (3L * BUFFER_BYTES, cache.getUsedBytes ());
+    }
+
+    @Test
+    public void neverKeepsWhatCannotFit () {
+        final SampleCache cache = new SampleCache (BUFFER_BYTES);
+        cache.put ("small", new SampleBuffer (100));
+        cache.put ("large", new SampleBuffer (101));
+        assertNull (cache.get ("large"));
+        assertNotNull (cache.get ("small"));
+
+        /* replacing a key releases what the old buffer held */
+        cache.put ("small", new SampleBuffer (50));
+        assertEquals (BUFFER_BYTES / 2L, cache.getUsedBytes ());
+    }
+
+    @Test
+    public void scaledCopiesShareTheGrid () {
+        final SampleBuffer base = new SampleBuffer ();
+        for (int i = 0; i < 10; ++i)
+            base.add (i * 0.5d, i);
+        final SampleBuffer scaled = new SampleBuffer (0);
+        scaled.setScaled (base, -2d);
+        assertEquals (base.size (), scaled.size ());
+        for (int i = 0; i < base.size (); ++i) {
+            assertEquals (base.getX (i), scaled.getX (i));
+            assertEquals (-2d * i, scaled.getY (i));
+        }
+    }
+}
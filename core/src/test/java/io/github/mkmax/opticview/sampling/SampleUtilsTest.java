@@ -0,0 +1,23 @@
+package io.github.mkmax.opticview.sampling;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SampleUtilsTest {
+    @Test
+    public void interpolateBetweenSamples () {
+        final SampleBuffer view = new SampleBuffer ();
+        view.add (0d, 0d);
+        view.add (1d, 10d);
+        view.add (2d, Double.NaN);
+        view.add (3d, 30d);
+
+        assertEquals (5d, SampleUtils.interpolate (view, 0.5d));
+        assertEquals (10d, SampleUtils.interpolate (view, 1d));
+        assertTrue (Double.isNaN (SampleUtils.interpolate (view, 1.5d)));
+        assertTrue (Double.isNaN (SampleUtils.interpolate (view, -1d)));
+        assertTrue (Double.isNaN (SampleUtils.interpolate (view, 4d)));
+    }
+}
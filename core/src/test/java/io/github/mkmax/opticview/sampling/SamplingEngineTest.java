@@ -0,0 +1,57 @@
+package io.github.mkmax.opticview.sampling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SamplingEngineTest {
+    @Test
+    public void supersededJobIsNeverPublished () throws InterruptedException {
+        final SamplingEngine<String> engine = new SamplingEngine<> (Runnable::run);
+        final List<Integer> published = new CopyOnWriteArrayList<> ();
+        final CountDownLatch started = new CountDownLatch (1);
+        final CountDownLatch finished = new CountDownLatch (1);
+
+        /* the first job spins until it is interrupted by the second submission */
+        engine.<Integer>submit ("entry", () -> {
+            started.countDown ();
+            while (true)
+                SamplingEngine.throwIfCancelled ();
+        }, published::add, Throwable::printStackTrace);
+        assertTrue (started.await (5, TimeUnit.SECONDS));
+
+        engine.submit ("entry", () -> 2, i -> {
+            published.add (i);
+            finished.countDown ();
+        }, Throwable::printStackTrace);
+        assertTrue (finished.await (5, TimeUnit.SECONDS));
+        engine.shutdown ();
+
+        assertEquals (List.of (2), published);
+    }
+
+    @Test
+    public void failuresReachTheFailureHandler () throws InterruptedException {
+        final SamplingEngine<String> engine = new SamplingEngine<> (Runnable::run);
+        final List<Throwable> failures = new CopyOnWriteArrayList<> ();
+        final CountDownLatch failed = new CountDownLatch (1);
+        final OutOfMemoryError error = new OutOfMemoryError ("Java heap space");
+
+        engine.<Integer>submit ("entry", () -> {
+            throw error;
+        }, i -> {}, e -> {
+            failures.add (e);
+            failed.countDown ();
+        });
+        assertTrue (failed.await (5, TimeUnit.SECONDS));
+        engine.shutdown ();
+
+        assertEquals (List.of (error), failures);
+    }
+}
@@ -0,0 +1,39 @@
+package io.github.mkmax.opticview.sampling;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SplicedSampleViewTest {
+    @Test
+    public void detailReplacesTheBaseItCovers () {
+        final SampleBuffer base = new SampleBuffer ();
+        for (int i = 0; i <= 10; ++i)
+            base.add (i, 0d);
+        final SampleBuffer detail = new SampleBuffer ();
+        for (int i = 0; i <= 8; ++i)
+            detail.add (2.5d + i * 0.5d, 1d);
+
+        /* base 0..2, detail 2.5..6.5, base 7..10 */
+        final SplicedSampleView view = new SplicedSampleView (base, detail);
+        assertEquals (3 + 9 + 4, view.size ());
+        assertEquals (2d, view.getX (2));
+        assertEquals (2.5d, view.getX (3));
+        assertEquals (1d, view.getY (11));
+        assertEquals (7d, view.getX (12));
+        assertEquals (10d, view.getX (15));
+        for (int i = 1; i < view.size (); ++i)
+            assertTrue (view.getX (i - 1) < view.getX (i));
+    }
+
+    @Test
+    public void emptyDetailLeavesTheBase () {
+        final SampleBuffer base = new SampleBuffer ();
+        base.add (0d, 1d);
+        base.add (1d, 2d);
+        final SplicedSampleView view = new SplicedSampleView (base, new SampleBuffer ());
+        assertEquals (2, view.size ());
+        assertEquals (2d, view.getY (1));
+    }
+}
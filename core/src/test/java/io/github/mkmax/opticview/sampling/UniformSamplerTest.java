@@ -0,0 +1,119 @@
+package io.github.mkmax.opticview.sampling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UniformSamplerTest {
+    @Test
+    public void sampleIncludesBothEnds () {
+        final SampleBuffer out = new SampleBuffer ();
+        UniformSampler.sample (x -> 2d * x, 0d, 0.3d, 1d, 4096, out);
+        assertEquals (5, out.size ());
+        assertEquals (0d, out.getX (0));
+        assertEquals (1d, out.getX (4));
+        assertEquals (2d, out.getY (4));
+    }
+
+    @Test
+    public void sampleKeepsUndefinedPoints () {
+        final SampleBuffer out = new SampleBuffer ();
+        UniformSampler.sample (Math::sqrt, -1d, 1d, 1d, 4096, out);
+        assertEquals (3, out.size ());
+        assertTrue (Double.isNaN (out.getY (0)));
+        assertEquals (1d, out.getY (2));
+    }
+
+    @Test
+    public void sampleRespectsCap () {
+        final SampleBuffer out = new SampleBuffer ();
+        UniformSampler.sample (x -> x, 0d, 1e-6d, 1d, 16, out);
+        assertEquals (16, out.size ());
+        assertEquals (1d, out.getX (15));
+    }
+
+    @Test
+    public void sampleEvaluatesGridFunctionsInBulk () {
+        final int[] calls = { 0 };
+        final IGridFunction func = new IGridFunction () {
+            @Override
+            public double applyAsDouble (double x) {
+                throw new RuntimeException ("expected bulk evaluation");
+            }
+
+            @Override
+            public void applyAsDouble (double[] x, double[] out, int from, int to) {
+                ++calls[0];
+                for (int i = from; i < to; ++i)
+                    out[i] = 2d * x[i];
+            }
+        };
+
+        final SampleBuffer out = new SampleBuffer ();
+        UniformSampler.sample (func, 0d, 1d, 999d, 4096, out);
+        assertEquals (1000, out.size ());
+        assertEquals (4, calls[0]);
+        assertEquals (1998d, out.getY (999));
+    }
+
+    @Test
+    public void resampleOnlyEvaluatesNewPoints () {
+        final int[] calls = { 0 };
+        final SampleBuffer before = new SampleBuffer ();
+        UniformSampler.sample (x -> x * x, 0d, 0.5d, 10d, 4096, before);
+
+        /* widen on both ends, then shrink; a shrink evaluates nothing new
+         * apart from the moved end point */
+        final SampleBuffer wider = new SampleBuffer ();
+        final int widened = UniformSampler.resample (x -> { ++calls[0]; return x * x; },
+            before, 0d, -2d, 0.5d, 12d, 4096, wider);
+        assertEquals (29, wider.size ());
+        assertEquals (8, widened);
+        assertEquals (calls[0], widened);
+        for (int i = 0; i < wider.size (); ++i)
+            assertEquals (wider.getX (i) * wider.getX (i), wider.getY (i), 1e-12d);
+
+        final SampleBuffer narrower = new SampleBuffer ();
+        final int shrunk = UniformSampler.resample (x -> x * x, wider, -2d, 1d, 0.5d, 5.25d, 4096, narrower);
+        assertEquals (10, narrower.size ());
+        assertEquals (1, shrunk);
+        assertEquals (5.25d * 5.25d, narrower.getY (9), 1e-12d);
+    }
+
+    @Test
+    public void resampleHandlesDescendingGrids () {
+        final SampleBuffer before = new SampleBuffer ();
+        UniformSampler.sample (x -> -x, 4d, -1d, 0d, 4096, before);
+
+        final SampleBuffer after = new SampleBuffer ();
+        final int evaluated = UniformSampler.resample (x -> -x, before, 4d, 6d, -1d, 0d, 4096, after);
+        assertEquals (7, after.size ());
+        assertEquals (2, evaluated);
+        assertEquals (0d, after.getX (0));
+        assertEquals (-6d, after.getY (6));
+    }
+
+    @Test
+    public void parallelMatchesSerial () {
+        final ForkJoinPool pool = new ForkJoinPool (4);
+        try {
+            for (double step : new double[] { 1e-6d, -1e-6d }) {
+                final double start = step > 0d ? 0d : 1d, end = 1d - start;
+                final SampleBuffer serial = new SampleBuffer (), parallel = new SampleBuffer ();
+                UniformSampler.sample (Math::sin, start, step, end, 1 << 24, serial);
+                UniformSampler.sampleParallel (Math::sin, start, step, end, 1 << 24, parallel, pool);
+                assertEquals (1_000_001, parallel.size ());
+                for (int i = 0; i < serial.size (); ++i) {
+                    assertEquals (serial.getX (i), parallel.getX (i));
+                    assertEquals (serial.getY (i), parallel.getY (i));
+                }
+            }
+        }
+        finally {
+            pool.shutdown ();
+        }
+    }
+}
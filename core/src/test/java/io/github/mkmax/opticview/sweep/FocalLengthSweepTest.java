@@ -0,0 +1,100 @@
+package io.github.mkmax.opticview.sweep;
+
+import io.github.mkmax.opticview.material.Glass;
+import io.github.mkmax.opticview.units.MetricDistance;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FocalLengthSweepTest {
+    @Test
+    public void csvCoversTheWholeProductInOrder () throws IOException {
+        /* enough wavelengths for several blocks */
+        final FocalLengthSweep sweep = new FocalLengthSweep (
+            List.of (Glass.N_BK7, Glass.CaF2),
+            new double[] { 10d, 20d },
+            MetricDistance.MILLIMETERS,
+            400d, 0.1d, 1500d,
+            MetricDistance.NANOMETERS);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream ();
+        sweep.write (out, FocalLengthSweep.Format.CSV);
+
+        final String[] lines = out.toString (StandardCharsets.UTF_8).split ("\n");
+        assertEquals (1 + sweep.getRowCount (), lines.length);
+        assertEquals (2L * 11001L * 2L, sweep.getRowCount ());
+
+        final String[] first = lines[1].split (",");
+        assertEquals ("N-BK7", first[0]);
+        assertEquals (400d, Double.parseDouble (first[2]));
+        assertEquals (10d / (Glass.N_BK7.calcRefractiveIndex (0.4d) - 1d), Double.parseDouble (first[3]), 1e-12d);
+
+        final String[] last = lines[lines.length - 1].split (",");
+        assertEquals ("CaF2", last[0]);
+        assertEquals (20d, Double.parseDouble (last[1]));
+        assertEquals (1500d, Double.parseDouble (last[2]));
+    }
+
+    @Test
+    public void binaryRecordsFollowTheHeader () throws IOException {
+        final FocalLengthSweep sweep = new FocalLengthSweep (
+            List.of (Glass.UVFS),
+            new double[] { 5d },
+            MetricDistance.MILLIMETERS,
+            0.5d, 0.5d, 1.5d,
+            MetricDistance.MICROMETERS);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream ();
+        sweep.write (out, FocalLengthSweep.Format.BINARY);
+
+        final ByteBuffer in = ByteBuffer.wrap (out.toByteArray ()).order (ByteOrder.LITTLE_ENDIAN);
+        assertEquals (FocalLengthSweep.BINARY_MAGIC, in.getInt ());
+        assertEquals (FocalLengthSweep.BINARY_VERSION, in.getInt ());
+        assertEquals (1, in.getInt ());
+        in.position (in.position () + Integer.BYTES + in.getInt (in.position ()));
+        assertEquals (3 * FocalLengthSweep.BINARY_RECORD_BYTES, in.remaining ());
+
+        in.position (in.position () + 2 * FocalLengthSweep.BINARY_RECORD_BYTES);
+        assertEquals (0, in.getInt ());
+        assertEquals (5d, in.getDouble ());
+        assertEquals (1.5d, in.getDouble ());
+        assertEquals (5d / (Glass.UVFS.calcRefractiveIndex (1.5d) - 1d), in.getDouble ());
+    }
+
+    @Test
+    public void longRadiusListsAreSplitAcrossBlocks () throws IOException {
+        /* more radii than a block holds rows, so every wavelength spans
+         * several blocks */
+        final double[] radii = new double[40_000];
+        for (int i = 0; i < radii.length; ++i)
+            radii[i] = 1d + i;
+        final FocalLengthSweep sweep = new FocalLengthSweep (
+            List.of (Glass.N_BK7, Glass.CaF2),
+            radii,
+            MetricDistance.MILLIMETERS,
+            0.5d, 0.25d, 1d,
+            MetricDistance.MICROMETERS);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream ();
+        sweep.write (out, FocalLengthSweep.Format.BINARY);
+
+        final ByteBuffer in = ByteBuffer.wrap (out.toByteArray ()).order (ByteOrder.LITTLE_ENDIAN);
+        in.position (3 * Integer.BYTES);
+        for (int g = 0; g < 2; ++g)
+            in.position (in.position () + Integer.BYTES + in.getInt (in.position ()));
+        assertEquals (sweep.getRowCount () * FocalLengthSweep.BINARY_RECORD_BYTES, in.remaining ());
+
+        for (long row = 0; row < sweep.getRowCount (); ++row) {
+            final int radius = (int) (row % radii.length);
+            final int lambda = (int) (row / radii.length % 3);
+            assertEquals ((int) (row / (3L * radii.length)), in.getInt ());
+            assertEquals (radii[radius], in.getDouble ());
+            assertEquals (0.5d + 0.25d * lambda, in.getDouble ());
+            in.getDouble ();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package io.github.mkmax.opticview.units;
+
+import org.junit.jupiter.api.Test;
+
+import static io.github.mkmax.opticview.units.MetricDistance.*;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ConversionPlanTest {
+    @Test
+    public void planMatchesDirectConversion () {
+        final ConversionPlan plan = MILLIMETERS.planTo (MICROMETERS);
+        assertEquals (MILLIMETERS.convertTo (MICROMETERS, 2.5d), plan.convert (2.5d));
+        assertEquals (0d, plan.getOffset ());
+        assertSame (plan, MICROMETERS.planFrom (MILLIMETERS));
+        assertSame (plan, plan.inverse ().inverse ());
+    }
+
+    @Test
+    public void bulkConvertsTheGivenRun () {
+        final double[] in = { 1d, 2d, 3d, 4d };
+        final double[] out = new double[4];
+        KILOMETERS.planTo (METERS).convert (in, out, 1, 2);
+        assertArrayEquals (new double[] { 0d, 2000d, 3000d, 0d }, out);
+
+        /* converting in place is allowed */
+        METERS.planTo (KILOMETERS).convert (out, out, 1, 2);
+        assertArrayEquals (new double[] { 0d, 2d, 3d, 0d }, out);
+    }
+
+    @Test
+    public void unrelatedUnitsHaveNoPlan () {
+        final IUnit other = new IUnit () {
+            public String getMnemonic () { return "x"; }
+            public String getName () { return "other"; }
+            public boolean isConvertibleTo (IUnit dest) { return dest == this; }
+            public boolean isConvertibleFrom (IUnit source) { return source == this; }
+            public double convertTo (IUnit dest, double value) { return value; }
+            public double convertFrom (IUnit source, double value) { return value; }
+        };
+        assertThrows (IncompatibleUnitsException.class, () -> METERS.planTo (other));
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.mkmax.opticview.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DoubleDoubleTest {
+    @Test
+    public void keepsWhatDoubleLoses () {
+        final DoubleDouble x = new DoubleDouble (1d).add (1e-20d).sub (1d);
+        assertEquals (1e-20d, x.doubleValue ());
+        assertEquals (0d, (1d + 1e-20d) - 1d);
+    }
+
+    @Test
+    public void squareRootSquaresBack () {
+        final DoubleDouble root = new DoubleDouble (2d).sqrt ();
+        final DoubleDouble square = new DoubleDouble ().set (root).mul (root).sub (2d);
+        assertTrue (Math.abs (square.doubleValue ()) < 1e-30d);
+    }
+
+    @Test
+    public void thirdTimesThreeIsOne () {
+        final DoubleDouble third = new DoubleDouble (1d).div (3d);
+        assertEquals (1d, third.hi () * 3d, Math.ulp (1d));
+        assertTrue (Math.abs (new DoubleDouble ().set (third).mul (3d).sub (1d).doubleValue ()) < 1e-31d);
+
+        final DoubleDouble reciprocal = new DoubleDouble (3d).reciprocal ();
+        assertEquals (third.hi (), reciprocal.hi ());
+        assertEquals (third.lo (), reciprocal.lo ());
+    }
+
+    @Test
+    public void nonFiniteMatchesDouble () {
+        assertEquals (Double.POSITIVE_INFINITY, new DoubleDouble (1d).div (0d).doubleValue ());
+        assertTrue (Double.isNaN (new DoubleDouble (-1d).sqrt ().doubleValue ()));
+        assertEquals (0d, new DoubleDouble (Double.MAX_VALUE).mul (2d).lo ());
+    }
+}
@@ -1,10 +1,22 @@
 package io.github.mkmax.opticview.scene;
 
-import io.github.mkmax.opticview.material.Glass;
+import io.github.mkmax.opticview.expression.Expression;
+import io.github.mkmax.opticview.expression.ExpressionException;
+import io.github.mkmax.opticview.io.MappedSamples;
+import io.github.mkmax.opticview.io.SeriesExporter;
+import io.github.mkmax.opticview.material.IGlass;
+import io.github.mkmax.opticview.model.FunctionSpec;
+import io.github.mkmax.opticview.model.IRealFunction;
+import io.github.mkmax.opticview.model.IScaledFunction;
+import io.github.mkmax.opticview.model.Precision;
+import io.github.mkmax.opticview.model.SamplingMode;
+import io.github.mkmax.opticview.sampling.UniformSampler;
 import io.github.mkmax.opticview.scene.forms.FocalLengthForm;
 import io.github.mkmax.opticview.scene.graph.SampledRangeGraph;
 
 import io.github.mkmax.opticview.units.MetricDistance;
+import io.github.mkmax.opticview.util.DoubleDouble;
+import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
 import javafx.geometry.HPos;
 import javafx.geometry.VPos;
@@ -13,9 +25,17 @@ import javafx.scene.control.ButtonType;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.Region;
+import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.DoubleBinaryOperator;
 
 /* The main panel housing the input forms and the graph */
 public class AppPane extends Region {
@@ -30,6 +50,119 @@ public class AppPane extends Region {
             GRAPH     = "graph";
     }
 
+    /* +-----------------------+ */
+    /* | FOCAL LENGTH FUNCTION | */
+    /* +-----------------------+ */
+
+    /* f = 1 / (n - 1), the focal length of a plano-convex lens of unit
+     * radius. Every radius scales it, so the graph samples it once per glass
+     * and range and scales a copy for each lens; equal glasses make equal
+     * functions for that reason. */
+    private static final class UnitFocalLengthFunction implements IRealFunction {
+        private final IGlass material;
+
+        UnitFocalLengthFunction (IGlass pMaterial) {
+            material = pMaterial;
+        }
+
+        @Override
+        public double eval (double lambda) {
+            return 1d / (material.calcRefractiveIndex (lambda) - 1d);
+        }
+
+        @Override
+        public void eval (double[] lambda, double[] out, int from, int to) {
+            material.calcRefractiveIndex (lambda, out, from, to);
+            for (int i = from; i < to; ++i)
+                out[i] = 1d / (out[i] - 1d);
+        }
+
+        @Override
+        public void eval (double lambda, DoubleDouble out) {
+            /* n - 1 is where the cancellation happens, so it is kept in full */
+            material.calcRefractiveIndex (lambda, out);
+            out.sub (1d).reciprocal ();
+        }
+
+        @Override
+        public boolean equals (Object o) {
+            return o instanceof UnitFocalLengthFunction && material.equals (((UnitFocalLengthFunction) o).material);
+        }
+
+        @Override
+        public int hashCode () {
+            return material.hashCode ();
+        }
+    }
+
+    /* f = R / (n - 1) of a plano-convex lens, lambda in micro-meters; the bulk
+     * form looks up every refractive index of the run in a single call */
+    private static final class FocalLengthFunction implements IScaledFunction {
+        private final UnitFocalLengthFunction unit;
+        private final IGlass material;
+        private final double lensRadius;
+
+        FocalLengthFunction (IGlass pMaterial, double pLensRadius) {
+            unit = new UnitFocalLengthFunction (pMaterial);
+            material = pMaterial;
+            lensRadius = pLensRadius;
+        }
+
+        @Override
+        public double eval (double lambda) {
+            return lensRadius / (material.calcRefractiveIndex (lambda) - 1d);
+        }
+
+        @Override
+        public void eval (double[] lambda, double[] out, int from, int to) {
+            material.calcRefractiveIndex (lambda, out, from, to);
+            for (int i = from; i < to; ++i)
+                out[i] = lensRadius / (out[i] - 1d);
+        }
+
+        @Override
+        public void eval (double lambda, DoubleDouble out) {
+            unit.eval (lambda, out);
+            out.mul (lensRadius);
+        }
+
+        @Override
+        public IRealFunction getBase () {
+            return unit;
+        }
+
+        @Override
+        public double getScale () {
+            return lensRadius;
+        }
+    }
+
+    /* A focal length typed in by the user as a formula of lambda, n and R,
+     * compiled to bytecode with R inlined. The glass is evaluated in bulk
+     * first, and the formula then runs over the wavelengths and indices.
+     */
+    private static final class FormulaFunction implements IRealFunction {
+        private final IGlass material;
+        private final DoubleBinaryOperator formula;
+
+        FormulaFunction (IGlass pMaterial, DoubleBinaryOperator pFormula) {
+            material = pMaterial;
+            formula = pFormula;
+        }
+
+        @Override
+        public double eval (double lambda) {
+            return formula.applyAsDouble (lambda, material.calcRefractiveIndex (lambda));
+        }
+
+        @Override
+        public void eval (double[] lambda, double[] out, int from, int to) {
+            material.calcRefractiveIndex (lambda, out, from, to);
+            for (int i = from; i < to; ++i)
+                out[i] = formula.applyAsDouble (lambda[i], out[i]);
+        }
+    }
+
     /* +------------+ */
     /* | COMPONENTS | */
     /* +------------+ */
@@ -74,6 +207,7 @@ public class AppPane extends Region {
 
         graph.setXLabel ("Lambda (λ)");
         graph.setYLabel ("Focal Length");
+        graph.setRenderMode (SampledRangeGraph.RenderMode.CANVAS);
 
         /* configure container */
         container.getChildren ().addAll (form, graph);
@@ -89,7 +223,6 @@ public class AppPane extends Region {
 
     /* +--- VALIDATION CONSTANTS ---+ */
     private static final double RANGE_EPSILON = 1e-12d;
-    private static final double STEP_EPSILON = 1e-6d;
 
     private final Runnable onFormGraphSubmitted = () -> {
         if (form.isGlassMaterialEmpty ()) {
@@ -107,7 +240,7 @@ public class AppPane extends Region {
             return;
         }
 
-        final Glass material = form.getGlassMaterial ();
+        final IGlass material = form.getGlassMaterial ();
         final MetricDistance
             lambda_units = form.getLambdaUnits (),
             lens_radius_units = form.getLensRadiusUnits ();
@@ -157,9 +290,9 @@ public class AppPane extends Region {
             return;
         }
 
-        /* validate step size */
-        if (Math.abs (l_step) <= STEP_EPSILON) {
-            quickErrorAlert ("Invalid Step", "Lambda step is too small (within " + STEP_EPSILON + ")");
+        /* validate step size; the cap holds whatever the units */
+        if (Math.abs (l_step) * FunctionSpec.MAX_SAMPLES_LIMIT < Math.abs (l_max - l_min)) {
+            quickErrorAlert ("Invalid Step", "Lambda step is too small (at most " + FunctionSpec.MAX_SAMPLES_LIMIT + " steps)");
             return;
         }
 
@@ -176,38 +309,179 @@ public class AppPane extends Region {
             real_l_max       = MetricDistance.MICROMETERS.convertFrom (lambda_units, l_max),
             real_lens_radius = MetricDistance.MILLIMETERS.convertFrom (lens_radius_units, lens_radius);
 
+        /* validate and compile a custom formula */
+        final String formula = form.getFocalLengthFormula ();
+        final IRealFunction function;
+        if (formula == null)
+            function = new FocalLengthFunction (material, real_lens_radius);
+        else {
+            try {
+                function = new FormulaFunction (material,
+                    Expression.parse (formula).compile ("lambda", "n", Map.of ("R", real_lens_radius)));
+            }
+            catch (ExpressionException e) {
+                quickErrorAlert ("Invalid Formula", e.getMessage () + ". Formulas may use lambda, n and R.");
+                return;
+            }
+        }
+
 
         /* per client request, if inputs are in nanos and real_l_min > 2 microns, set it to microns */
         if (real_l_min > 2d && graph.getInputUnits () == MetricDistance.NANOMETERS)
             graph.setInputUnits (MetricDistance.MICROMETERS);
 
-        graph.getFunctionData ().createEntry (
-            l -> real_lens_radius / (material.calcRefractiveIndex (l) - 1d),
-            String.format (
-                "%s [rad: %s%s]",
-                material.NAME,
-                lens_radius, lens_radius_units.getMnemonic ()
-            ),
+        final SampledRangeGraph.FunctionEntry entry = graph.getFunctionData ().createEntry (
+            function,
+            formula == null ?
+                String.format (
+                    "%s [rad: %s%s]",
+                    material.getName (),
+                    lens_radius, lens_radius_units.getMnemonic ()) :
+                String.format (
+                    "%s [rad: %s%s, f = %s]",
+                    material.getName (),
+                    lens_radius, lens_radius_units.getMnemonic (),
+                    formula),
             MetricDistance.MICROMETERS,
             MetricDistance.MILLIMETERS,
             real_l_min,
             real_l_step,
             real_l_max
         );
+
+        /* glasses, and compiled formulas, only read their own final fields */
+        entry.setPure (true);
+
+        /* the dispersion curves are flat over most of the range but steep near
+         * their poles, so let the sampler spend its evaluations where they bend;
+         * a step fine enough for a validation run is taken as asked instead,
+         * every point of it, in parallel slices */
+        final int samples = UniformSampler.countSamples (real_l_min, real_l_step, real_l_max, FunctionSpec.MAX_SAMPLES_LIMIT);
+        if (samples < UniformSampler.MIN_PARALLEL_SAMPLES)
+            entry.setSamplingMode (SamplingMode.ADAPTIVE);
+        else
+            entry.setMaxSamples (Math.min (samples + 1, FunctionSpec.MAX_SAMPLES_LIMIT));
+        if (form.isExtendedPrecision ())
+            entry.setPrecision (Precision.EXTENDED);
     };
 
     private final Runnable onFormClearRequested = () ->
         graph.getFunctionData ().clearEntries ();
 
+    /* the file type picked in the dialog decides the format */
+    private final FileChooser.ExtensionFilter
+        csvFilter    = new FileChooser.ExtensionFilter ("CSV", "*.csv"),
+        binaryFilter = new FileChooser.ExtensionFilter ("OpticView binary", "*.ovs");
+
+    private final Runnable onFormExportRequested = () -> {
+        if (graph.getFunctionData ().getImmutableEntries ().isEmpty ()) {
+            quickErrorAlert ("Nothing to Export", "There are no plots to export.");
+            return;
+        }
+
+        final FileChooser chooser = new FileChooser ();
+        chooser.setTitle ("Export Plots");
+        chooser.getExtensionFilters ().addAll (csvFilter, binaryFilter);
+        chooser.setSelectedExtensionFilter (csvFilter);
+        final File file = chooser.showSaveDialog (getScene () == null ? null : getScene ().getWindow ());
+        if (file == null)
+            return;
+
+        final SeriesExporter.Format format = chooser.getSelectedExtensionFilter () == binaryFilter ?
+            SeriesExporter.Format.BINARY :
+            SeriesExporter.Format.CSV;
+        graph.export (file.toPath (), format).whenComplete ((__, error) -> {
+            if (error != null)
+                Platform.runLater (() -> quickErrorAlert ("Export Failed",
+                    "Could not write " + file.getName () + ": " + (error.getCause () != null ? error.getCause () : error).getMessage ()));
+        });
+    };
+
+    /* measured data stays mapped while its entry is plotted */
+    private final Map<SampledRangeGraph.FunctionEntry, MappedSamples> importedData = new HashMap<> ();
+
+    private final Runnable onFormImportRequested = () -> {
+        if (form.areLambdaUnitsEmpty ()) {
+            quickErrorAlert ("Incomplete Input", "Lambda units are not specified");
+            return;
+        }
+
+        if (form.areLensRadiusUnitsEmpty ()) {
+            quickErrorAlert ("Incomplete Input", "Lens radius units are not specified");
+            return;
+        }
+
+        final FileChooser chooser = new FileChooser ();
+        chooser.setTitle ("Import Measured Data");
+        chooser.getExtensionFilters ().add (
+            new FileChooser.ExtensionFilter ("Measurements", "*.csv", "*.txt", "*.bin", "*.ovs"));
+        final File file = chooser.showOpenDialog (getScene () == null ? null : getScene ().getWindow ());
+        if (file == null)
+            return;
+
+        /* mapping and scanning the file happens off the FX thread */
+        final MetricDistance
+            lambda_units = form.getLambdaUnits (),
+            lens_radius_units = form.getLensRadiusUnits ();
+        CompletableFuture.supplyAsync (() -> {
+            try {
+                return MappedSamples.open (file.toPath ());
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException (e);
+            }
+        }).whenComplete ((samples, error) -> Platform.runLater (() -> {
+            if (error != null) {
+                quickErrorAlert ("Import Failed",
+                    "Could not read " + file.getName () + ": " + (error.getCause () != null ? error.getCause () : error).getMessage ());
+                return;
+            }
+            try {
+                importedData.put (graph.getFunctionData ().createDataEntry (
+                    file.getName (), lambda_units, lens_radius_units, samples), samples);
+            }
+            catch (RuntimeException e) {
+                quickErrorAlert ("Import Failed", "Could not plot " + file.getName () + ": " + e.getMessage ());
+                closeImport (samples, file.getName ());
+            }
+        }));
+    };
+
+    private final SampledRangeGraph.FunctionData.IEntryRemovalListener onEntryRemoved = (__source, entry) -> {
+        final MappedSamples samples = importedData.remove (entry);
+        if (samples != null)
+            closeImport (samples, entry.getName ());
+    };
+
+    private final SampledRangeGraph.ISamplingFailureListener onSamplingFailed = (entry, error) ->
+        quickErrorAlert ("Sampling Failed", "Could not sample " + entry.getName () + ": " +
+            (error.getMessage () != null ? error.getMessage () : error.getClass ().getSimpleName ()));
+
     /* install form handlers */
     {
         form.addPlotSubmitionListener (onFormGraphSubmitted);
         form.addPlotClearanceListener (onFormClearRequested);
+        form.addPlotExportListener (onFormExportRequested);
+        form.addDataImportListener (onFormImportRequested);
+        graph.getFunctionData ().addEntryRemovalListener (onEntryRemoved);
+        graph.addSamplingFailureListener (onSamplingFailed);
     }
 
     /* +-------------+ */
     /* | QUICK UTILS | */
     /* +-------------+ */
+    /* a CSV import holds a converted copy, which the system may refuse to
+     * delete while it is still mapped; it then goes when the app exits */
+    private static void closeImport (MappedSamples samples, String name) {
+        try {
+            samples.close ();
+        }
+        catch (IOException e) {
+            quickErrorAlert ("Cleanup Failed", "The converted copy of " + name +
+                " could not be deleted yet and will be deleted on exit: " + e.getMessage ());
+        }
+    }
+
     private static void quickErrorAlert (String title, String message) {
         Alert alert = new Alert (
             Alert.AlertType.ERROR,
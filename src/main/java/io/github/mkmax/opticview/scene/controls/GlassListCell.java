@@ -1,10 +1,10 @@
 package io.github.mkmax.opticview.scene.controls;
 
-import io.github.mkmax.opticview.material.Glass;
+import io.github.mkmax.opticview.material.IGlass;
 
 import javafx.scene.control.ListCell;
 
-public class GlassListCell extends ListCell<Glass> {
+public class GlassListCell extends ListCell<IGlass> {
 
 
 
@@ -26,13 +26,13 @@ public class GlassListCell extends ListCell<Glass> {
     /* | IMPLEMENTATION | */
     /* +----------------+ */
     @Override
-    protected void updateItem (Glass item, boolean empty) {
+    protected void updateItem (IGlass item, boolean empty) {
         /* super invocation is required, do not touch */
         super.updateItem (item, empty);
 
         /* handle the rest of the functionality */
         if (item != null && !empty)
-            setText (item.NAME);
+            setText (item.getName ());
     }
 
 }
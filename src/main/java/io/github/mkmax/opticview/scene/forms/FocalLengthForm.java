@@ -1,6 +1,8 @@
 package io.github.mkmax.opticview.scene.forms;
 
 import io.github.mkmax.opticview.material.Glass;
+import io.github.mkmax.opticview.material.IGlass;
+import io.github.mkmax.opticview.material.catalog.GlassCatalog;
 import io.github.mkmax.opticview.scene.controls.DoubleField;
 
 import io.github.mkmax.opticview.scene.controls.GlassListCell;
@@ -12,6 +14,8 @@ import javafx.geometry.VPos;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 
+import java.io.IOException;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -35,8 +39,9 @@ public class FocalLengthForm extends Region {
 
     /* material section */
     private final Label glassHeader = new Label ("Glass");
-    private final ComboBox<Glass> glassBox = new ComboBox<> (
+    private final ComboBox<IGlass> glassBox = new ComboBox<> (
         FXCollections.observableArrayList (Glass.values ()));
+    private boolean catalogLoaded = false;
 
     /* wavelength (lambda) section */
     private final Label lambdaHeader = new Label ("λ");
@@ -61,11 +66,20 @@ public class FocalLengthForm extends Region {
         FXCollections.observableArrayList (MetricDistance.values ()));
     private final DoubleField lensRadiusField = new DoubleField ();
 
+    /* custom formula; empty plots the plano-convex focal length R / (n - 1) */
+    private final Label focalLengthLabel = new Label ("f =");
+    private final TextField focalLengthField = new TextField ();
+
+    /* evaluate in double-double, for curves where n - 1 loses digits */
+    private final CheckBox extendedPrecisionBox = new CheckBox ("Extended precision");
+
     /* export section */
     private final Button
         plotButton       = new Button ("Plot"),
         clearPlotsButton = new Button ("Clear Plots"),
-        clearInputButton = new Button ("Clear Input");
+        clearInputButton = new Button ("Clear Input"),
+        exportButton     = new Button ("Export Plots"),
+        importButton     = new Button ("Import Data");
 
     /* component initialization */
     {
@@ -127,18 +141,47 @@ public class FocalLengthForm extends Region {
             lensRadiusUnitLabel, lensRadiusUnitBox,
             lensRadiusLabel,     lensRadiusField);
 
-        /* configure export controls [10-12] */
+        /* configure the formula [row 10] */
+        focalLengthField.setPromptText ("R / (n - 1)");
+        focalLengthField.setTooltip (new Tooltip (
+            "Focal length as a formula of lambda (μm), n (the refractive index of the glass at lambda)\n" +
+            "and R (the lens radius in mm), e.g. R / (n - 1) or R / (1.458 + 0.00354 / lambda^2 - 1).\n" +
+            "Supports + - * / ^, parentheses, pi, e, sqrt, exp, log, sin, cos, pow, min, max, ..."));
+
+        GridPane.setConstraints (focalLengthLabel, 0, 10, 1, 1, HPos.RIGHT, VPos.CENTER, Priority.NEVER, Priority.NEVER);
+        GridPane.setConstraints (focalLengthField, 1, 10, 1, 1, HPos.LEFT, VPos.CENTER, Priority.ALWAYS, Priority.NEVER);
+        container.getChildren ().addAll (focalLengthLabel, focalLengthField);
+
+        /* configure precision [row 11] */
+        extendedPrecisionBox.setTooltip (new Tooltip (
+            "Evaluate the built-in focal length in double-double arithmetic (about 32 digits)\n" +
+            "before rounding each sample. Slower; only matters where n - 1 cancels."));
+
+        GridPane.setConstraints (extendedPrecisionBox, 1, 11, 1, 1, HPos.LEFT, VPos.CENTER, Priority.ALWAYS, Priority.NEVER);
+        container.getChildren ().add (extendedPrecisionBox);
+
+        /* configure export controls [12-16] */
         plotButton.getStyleClass ().add (ComponentClass.FILL_CELL);
         clearPlotsButton.getStyleClass ().add (ComponentClass.FILL_CELL);
         clearInputButton.getStyleClass ().add (ComponentClass.FILL_CELL);
-
-        GridPane.setConstraints (plotButton,       0, 10, 2, 1, HPos.CENTER, VPos.CENTER, Priority.ALWAYS, Priority.ALWAYS);
-        GridPane.setConstraints (clearPlotsButton, 0, 11, 2, 1, HPos.CENTER, VPos.CENTER, Priority.ALWAYS, Priority.ALWAYS);
-        GridPane.setConstraints (clearInputButton, 0, 12, 2, 1, HPos.CENTER, VPos.CENTER, Priority.ALWAYS, Priority.ALWAYS);
+        exportButton.getStyleClass ().add (ComponentClass.FILL_CELL);
+        exportButton.setTooltip (new Tooltip ("Write every plot, at full resolution, to a CSV or binary file."));
+        importButton.getStyleClass ().add (ComponentClass.FILL_CELL);
+        importButton.setTooltip (new Tooltip (
+            "Overlay measured (lambda, f) samples from a CSV or binary file,\n" +
+            "in the lambda and radius units selected above."));
+
+        GridPane.setConstraints (plotButton,       0, 12, 2, 1, HPos.CENTER, VPos.CENTER, Priority.ALWAYS, Priority.ALWAYS);
+        GridPane.setConstraints (clearPlotsButton, 0, 13, 2, 1, HPos.CENTER, VPos.CENTER, Priority.ALWAYS, Priority.ALWAYS);
+        GridPane.setConstraints (clearInputButton, 0, 14, 2, 1, HPos.CENTER, VPos.CENTER, Priority.ALWAYS, Priority.ALWAYS);
+        GridPane.setConstraints (exportButton,     0, 15, 2, 1, HPos.CENTER, VPos.CENTER, Priority.ALWAYS, Priority.ALWAYS);
+        GridPane.setConstraints (importButton,     0, 16, 2, 1, HPos.CENTER, VPos.CENTER, Priority.ALWAYS, Priority.ALWAYS);
         container.getChildren ().addAll (
             plotButton,
             clearPlotsButton,
-            clearInputButton);
+            clearInputButton,
+            exportButton,
+            importButton);
     }
 
     /* +-----------+ */
@@ -146,7 +189,9 @@ public class FocalLengthForm extends Region {
     /* +-----------+ */
     private final List<Runnable>
         plotSubmitListeners = new ArrayList<> (),
-        plotClearListeners = new ArrayList<> ();
+        plotClearListeners = new ArrayList<> (),
+        plotExportListeners = new ArrayList<> (),
+        dataImportListeners = new ArrayList<> ();
 
     /* GRAPH CREATION */
     public void addPlotSubmitionListener (Runnable onGraphSubmitted) {
@@ -166,20 +211,43 @@ public class FocalLengthForm extends Region {
         plotClearListeners.remove (onGraphCleared);
     }
 
+    /* GRAPH EXPORT */
+    public void addPlotExportListener (Runnable onGraphExported) {
+        if (onGraphExported != null) plotExportListeners.add (onGraphExported);
+    }
+
+    public void removePlotExportListener (Runnable onGraphExported) {
+        plotExportListeners.remove (onGraphExported);
+    }
+
+    /* DATA IMPORT */
+    public void addDataImportListener (Runnable onDataImported) {
+        if (onDataImported != null) dataImportListeners.add (onDataImported);
+    }
+
+    public void removeDataImportListener (Runnable onDataImported) {
+        dataImportListeners.remove (onDataImported);
+    }
+
     /* +--------------------------+ */
     /* | MEMBERS & INITIALIZATION | */
     /* +--------------------------+ */
 
     /* register listeners and perform final forms of initialization */
     {
+        glassBox.setOnShowing (e -> loadGlassCatalog ());
         plotButton.setOnAction (e -> plotSubmitListeners.forEach (Runnable::run));
         clearPlotsButton.setOnAction (e -> plotClearListeners.forEach (Runnable::run));
+        exportButton.setOnAction (e -> plotExportListeners.forEach (Runnable::run));
+        importButton.setOnAction (e -> dataImportListeners.forEach (Runnable::run));
         clearInputButton.setOnAction (e -> {
             glassBox.setValue (null);
             lambdaMinField.setText (null);
             lambdaStepField.setText (null);
             lambdaMaxField.setText (null);
             lensRadiusField.setText (null);
+            focalLengthField.setText (null);
+            extendedPrecisionBox.setSelected (false);
         });
     }
 
@@ -188,7 +256,7 @@ public class FocalLengthForm extends Region {
     /* +-------------------+ */
 
     /* +--- GLASS BOX ---+ */
-    public ComboBox<Glass> getGlassBox () {
+    public ComboBox<IGlass> getGlassBox () {
         return glassBox;
     }
 
@@ -212,6 +280,16 @@ public class FocalLengthForm extends Region {
         return lensRadiusField;
     }
 
+    /* +--- FOCAL LENGTH FIELD ---+ */
+    public TextField getFocalLengthField () {
+        return focalLengthField;
+    }
+
+    /* +--- EXTENDED PRECISION BOX ---+ */
+    public CheckBox getExtendedPrecisionBox () {
+        return extendedPrecisionBox;
+    }
+
     /* +--------------------------+ */
     /* | INFO QUERIES & MODIFIERS | */
     /* +--------------------------+ */
@@ -221,7 +299,7 @@ public class FocalLengthForm extends Region {
         return glassBox.getValue () == null;
     }
 
-    public Glass getGlassMaterial () {
+    public IGlass getGlassMaterial () {
         return glassBox.getValue ();
     }
 
@@ -279,10 +357,75 @@ public class FocalLengthForm extends Region {
         return lensRadiusField.getValue ();
     }
 
+    /* +--- FOCAL LENGTH FORMULA ---+ */
+    public boolean isFocalLengthFormulaEmpty () {
+        return focalLengthField.getText () == null || focalLengthField.getText ().isBlank ();
+    }
+
+    public String getFocalLengthFormula () {
+        return isFocalLengthFormulaEmpty () ? null : focalLengthField.getText ().trim ();
+    }
+
+    /* +--- PRECISION ---+ */
+    public boolean isExtendedPrecision () {
+        return extendedPrecisionBox.isSelected ();
+    }
+
     /* +-----------------+ */
     /* | QUICK UTILITIES | */
     /* +-----------------+ */
     private static boolean isFieldEmpty (TextInputControl tic) {
         return tic.getText () == null || tic.getText ().length () == 0;
     }
+
+    /* +----------+ */
+    /* | INTERNAL | */
+    /* +----------+ */
+
+    /* The built-in glasses are listed right away; the compiled catalog is
+     * only mapped the first time the list is opened, and its glasses are
+     * decoded as their rows come into view.
+     */
+    private void loadGlassCatalog () {
+        if (catalogLoaded)
+            return;
+        catalogLoaded = true;
+
+        final GlassCatalog catalog;
+        try {
+            catalog = GlassCatalog.openDefault ();
+        }
+        catch (IOException e) {
+            e.printStackTrace ();
+            return;
+        }
+        if (catalog == null)
+            return;
+
+        final List<IGlass>
+            builtins = List.of (Glass.values ()),
+            catalogued = catalog.asList ();
+        final IGlass selected = glassBox.getValue ();
+        glassBox.setItems (FXCollections.observableList (new AbstractList<> () {
+            @Override
+            public IGlass get (int index) {
+                return index < builtins.size () ? builtins.get (index) : catalogued.get (index - builtins.size ());
+            }
+
+            @Override
+            public int size () {
+                return builtins.size () + catalogued.size ();
+            }
+
+            @Override
+            public int indexOf (Object o) {
+                final int builtin = builtins.indexOf (o);
+                if (builtin >= 0)
+                    return builtin;
+                final int index = catalogued.indexOf (o);
+                return index < 0 ? -1 : builtins.size () + index;
+            }
+        }));
+        glassBox.setValue (selected);
+    }
 }
@@ -0,0 +1,649 @@
+package io.github.mkmax.opticview.scene.graph;
+
+import io.github.mkmax.opticview.sampling.Decimator;
+import io.github.mkmax.opticview.sampling.ISampleView;
+import io.github.mkmax.opticview.sampling.SampleBuffer;
+import io.github.mkmax.opticview.sampling.SampleUtils;
+import javafx.event.EventHandler;
+import javafx.geometry.VPos;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.StrokeLineJoin;
+import javafx.scene.text.TextAlignment;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/* Renders plots by drawing axes, gridlines and polylines straight into a
+ * Canvas, so no scene graph node exists per point and drawing cost only
+ * depends on the size of the plot.
+ *
+ * Each series is decimated to the visible window on every draw, which is
+ * cheap because the window is found by binary search, and NaN break samples
+ * split the line. Hovering shows a single crosshair with every series' value
+ * at the cursor, painted on a separate overlay canvas so it never forces the
+ * plots to be redrawn.
+ *
+ * Scrolling zooms around the cursor, dragging pans, and a double click
+ * returns to fitting the data. Every move of the window is reported to the
+ * view listener, so the graph can sample the visible window more finely.
+ */
+final class CanvasPlotRenderer implements IPlotRenderer {
+
+    /* +-----------+ */
+    /* | CONSTANTS | */
+    /* +-----------+ */
+
+    /* the default LineChart series colors, so both renderers look alike */
+    private static final Color[] PALETTE = {
+        Color.web ("#f3622d"),
+        Color.web ("#fba71b"),
+        Color.web ("#57b757"),
+        Color.web ("#41a9c9"),
+        Color.web ("#4258c9"),
+        Color.web ("#9a42c8"),
+        Color.web ("#c84164"),
+        Color.web ("#888888")
+    };
+
+    private static final Color
+        BACKGROUND_COLOR = Color.WHITE,
+        FRAME_COLOR      = Color.rgb (64, 64, 64),
+        GRID_COLOR       = Color.rgb (224, 224, 224),
+        TEXT_COLOR       = Color.rgb (64, 64, 64),
+        READOUT_COLOR    = Color.rgb (255, 255, 255, 0.9d);
+
+    /* margins around the plot area, leaving room for the tick labels */
+    private static final double
+        LEFT_MARGIN   = 64d,
+        RIGHT_MARGIN  = 16d,
+        TOP_MARGIN    = 12d,
+        BOTTOM_MARGIN = 24d;
+
+    /* bounds the tick loops when the window is too narrow for its magnitude */
+    private static final int MAX_TICKS = 64;
+
+    private static final double
+        TICK_LENGTH        = 4d,
+        TICK_SPACING       = 80d,
+        LINE_WIDTH         = 2d,
+        LEGEND_ROW_HEIGHT  = 14d,
+        AUTO_RANGE_PADDING = 0.05d,
+        ZOOM_PER_NOTCH     = 1.2d,
+        SCROLL_NOTCH       = 40d;
+
+    /* pixel coordinates are clamped to this magnitude before drawing, as
+     * samples next to a pole can map millions of pixels off the canvas */
+    private static final double PIXEL_LIMIT = 1e6d;
+
+    /* +--------------+ */
+    /* | SERIES STATE | */
+    /* +--------------+ */
+    private static final class SeriesState {
+        private final PlotSeries source;
+
+        /* the decimated samples of the last draw, in the entry's own units */
+        private final SampleBuffer shown = new SampleBuffer ();
+
+        SeriesState (PlotSeries pSource) {
+            source = pSource;
+        }
+    }
+
+    /* +-----------+ */
+    /* | PLOT PANE | */
+    /* +-----------+ */
+    private final class PlotPane extends Region {
+        {
+            getChildren ().addAll (plotCanvas, overlayCanvas);
+        }
+
+        @Override
+        protected void layoutChildren () {
+            final double
+                width = Math.max (0d, getWidth ()),
+                height = Math.max (0d, getHeight ());
+            if (width != plotCanvas.getWidth () || height != plotCanvas.getHeight ()) {
+                plotCanvas.setWidth (width);
+                plotCanvas.setHeight (height);
+                overlayCanvas.setWidth (width);
+                overlayCanvas.setHeight (height);
+                dirty = true;
+
+                /* the window did not move, but it now spans more or fewer pixels */
+                if (!autoRanging)
+                    fireViewChanged ();
+            }
+            if (dirty)
+                draw ();
+        }
+
+        @Override
+        protected double computePrefWidth (double height) {
+            return 480d;
+        }
+
+        @Override
+        protected double computePrefHeight (double width) {
+            return 360d;
+        }
+    }
+
+    /* +--------------------------+ */
+    /* | MEMBERS & INITIALIZATION | */
+    /* +--------------------------+ */
+    private final Canvas
+        plotCanvas = new Canvas (),
+        overlayCanvas = new Canvas ();
+    private final PlotPane pane = new PlotPane ();
+    private final List<SeriesState> states = new ArrayList<> ();
+    private Decimator.Mode decimationMode = Decimator.Mode.MIN_MAX;
+    private IViewListener viewListener = null;
+    private boolean dirty = true;
+
+    /* the visible window, in display units */
+    private boolean autoRanging = true;
+    private double
+        viewXMin = 0d,
+        viewXMax = 1d,
+        viewYMin = 0d,
+        viewYMax = 1d;
+
+    /* +----------+ */
+    /* | HANDLERS | */
+    /* +----------+ */
+    /* the hovered pixel column, or NaN when the cursor is elsewhere */
+    private double hoverX = Double.NaN;
+
+    private final EventHandler<MouseEvent> onMouseMoved = (e) -> {
+        hoverX = e.getX ();
+        drawReadout ();
+    };
+
+    private final EventHandler<MouseEvent> onMouseExited = (e) -> {
+        hoverX = Double.NaN;
+        clearOverlay ();
+    };
+
+    /* last cursor position of a drag, in pixels */
+    private double
+        dragX = Double.NaN,
+        dragY = Double.NaN;
+
+    private final EventHandler<MouseEvent> onMousePressed = (e) -> {
+        if (e.getButton () != MouseButton.PRIMARY)
+            return;
+        if (e.getClickCount () == 2) {
+            autoRanging = true;
+            requestRedraw ();
+            fireViewChanged ();
+            return;
+        }
+        dragX = e.getX ();
+        dragY = e.getY ();
+    };
+
+    private final EventHandler<MouseEvent> onMouseDragged = (e) -> {
+        if (Double.isNaN (dragX) || getPlotWidth () <= 0d || getPlotHeight () <= 0d)
+            return;
+        final double
+            dx = (e.getX () - dragX) / getPlotWidth () * (viewXMax - viewXMin),
+            dy = (e.getY () - dragY) / getPlotHeight () * (viewYMax - viewYMin);
+        setView (viewXMin - dx, viewXMax - dx, viewYMin + dy, viewYMax + dy);
+        dragX = e.getX ();
+        dragY = e.getY ();
+    };
+
+    private final EventHandler<MouseEvent> onMouseReleased = (e) -> {
+        dragX = Double.NaN;
+        dragY = Double.NaN;
+    };
+
+    private final EventHandler<ScrollEvent> onScroll = (e) -> {
+        if (e.getDeltaY () == 0d || getPlotWidth () <= 0d || getPlotHeight () <= 0d)
+            return;
+
+        /* keep the value under the cursor in place */
+        final double factor = Math.pow (ZOOM_PER_NOTCH, -e.getDeltaY () / SCROLL_NOTCH);
+        final double
+            anchorX = viewXMin + (e.getX () - LEFT_MARGIN) / getPlotWidth () * (viewXMax - viewXMin),
+            anchorY = viewYMax - (e.getY () - TOP_MARGIN) / getPlotHeight () * (viewYMax - viewYMin);
+        setView (
+            anchorX + (viewXMin - anchorX) * factor,
+            anchorX + (viewXMax - anchorX) * factor,
+            anchorY + (viewYMin - anchorY) * factor,
+            anchorY + (viewYMax - anchorY) * factor);
+    };
+
+    /* install handlers */
+    {
+        overlayCanvas.setMouseTransparent (true);
+        pane.addEventHandler (MouseEvent.MOUSE_MOVED, onMouseMoved);
+        pane.addEventHandler (MouseEvent.MOUSE_EXITED, onMouseExited);
+        pane.addEventHandler (MouseEvent.MOUSE_PRESSED, onMousePressed);
+        pane.addEventHandler (MouseEvent.MOUSE_DRAGGED, onMouseDragged);
+        pane.addEventHandler (MouseEvent.MOUSE_RELEASED, onMouseReleased);
+        pane.addEventHandler (ScrollEvent.SCROLL, onScroll);
+    }
+
+    /* +-----------+ */
+    /* | INTERFACE | */
+    /* +-----------+ */
+    @Override
+    public Node getNode () {
+        return pane;
+    }
+
+    @Override
+    public double getPlotWidth () {
+        return Math.max (0d, pane.getWidth () - LEFT_MARGIN - RIGHT_MARGIN);
+    }
+
+    @Override
+    public double getPlotHeight () {
+        return Math.max (0d, pane.getHeight () - TOP_MARGIN - BOTTOM_MARGIN);
+    }
+
+    @Override
+    public void addSeries (PlotSeries series) {
+        Objects.requireNonNull (series, "cannot add a null series");
+        if (find (series) == null) {
+            states.add (new SeriesState (series));
+            requestRedraw ();
+        }
+    }
+
+    @Override
+    public void removeSeries (PlotSeries series) {
+        if (states.removeIf (i -> i.source == series))
+            requestRedraw ();
+    }
+
+    @Override
+    public void replaceSeries (Collection<PlotSeries> removed, List<PlotSeries> added) {
+        /* identity sets keep a batch linear, where find () would not */
+        final Set<PlotSeries> gone = Collections.newSetFromMap (new IdentityHashMap<> ());
+        gone.addAll (removed);
+        boolean changed = states.removeIf (i -> gone.contains (i.source));
+
+        final Set<PlotSeries> present = Collections.newSetFromMap (new IdentityHashMap<> ());
+        states.forEach (i -> present.add (i.source));
+        for (PlotSeries series : added) {
+            Objects.requireNonNull (series, "cannot add a null series");
+            if (present.add (series)) {
+                states.add (new SeriesState (series));
+                changed = true;
+            }
+        }
+        if (changed)
+            requestRedraw ();
+    }
+
+    @Override
+    public void updateSeries (PlotSeries series) {
+        if (find (series) != null)
+            requestRedraw ();
+    }
+
+    @Override
+    public void setDecimationMode (Decimator.Mode mode) {
+        decimationMode = Objects.requireNonNull (mode, "a decimation mode must be specified");
+        requestRedraw ();
+    }
+
+    @Override
+    public void rescaleView (double xFactor, double yFactor) {
+        if (autoRanging)
+            return;
+        viewXMin *= xFactor;
+        viewXMax *= xFactor;
+        viewYMin *= yFactor;
+        viewYMax *= yFactor;
+        requestRedraw ();
+        fireViewChanged ();
+    }
+
+    @Override
+    public void setViewListener (IViewListener listener) {
+        viewListener = listener;
+    }
+
+    @Override
+    public void dispose () {
+        pane.removeEventHandler (MouseEvent.MOUSE_MOVED, onMouseMoved);
+        pane.removeEventHandler (MouseEvent.MOUSE_EXITED, onMouseExited);
+        pane.removeEventHandler (MouseEvent.MOUSE_PRESSED, onMousePressed);
+        pane.removeEventHandler (MouseEvent.MOUSE_DRAGGED, onMouseDragged);
+        pane.removeEventHandler (MouseEvent.MOUSE_RELEASED, onMouseReleased);
+        pane.removeEventHandler (ScrollEvent.SCROLL, onScroll);
+        viewListener = null;
+        states.clear ();
+    }
+
+    /* +---------+ */
+    /* | DRAWING | */
+    /* +---------+ */
+
+    /* Redraws are coalesced into the next layout pass, so any number of
+     * updates within a pulse cost a single draw.
+     */
+    private void requestRedraw () {
+        dirty = true;
+        pane.requestLayout ();
+    }
+
+    private void draw () {
+        dirty = false;
+        final GraphicsContext gc = plotCanvas.getGraphicsContext2D ();
+        final double
+            width = plotCanvas.getWidth (),
+            height = plotCanvas.getHeight ();
+        gc.setFill (BACKGROUND_COLOR);
+        gc.fillRect (0d, 0d, width, height);
+        clearOverlay ();
+
+        final double
+            plotWidth = getPlotWidth (),
+            plotHeight = getPlotHeight ();
+        if (plotWidth <= 0d || plotHeight <= 0d)
+            return;
+
+        if (autoRanging)
+            autoRange ();
+        drawGrid (gc, plotWidth, plotHeight);
+
+        /* curves are clipped to the plot area */
+        gc.save ();
+        gc.beginPath ();
+        gc.rect (LEFT_MARGIN, TOP_MARGIN, plotWidth, plotHeight);
+        gc.clip ();
+        gc.setLineWidth (LINE_WIDTH);
+        gc.setLineJoin (StrokeLineJoin.ROUND);
+        for (int i = 0; i < states.size (); ++i)
+            drawSeries (gc, states.get (i), PALETTE[i % PALETTE.length], plotWidth);
+        gc.restore ();
+
+        drawLegend (gc);
+        gc.setStroke (FRAME_COLOR);
+        gc.setLineWidth (1d);
+        gc.strokeRect (LEFT_MARGIN, TOP_MARGIN, plotWidth, plotHeight);
+
+        /* keep the readout in step with a changed view or changed curves */
+        drawReadout ();
+    }
+
+    private void drawSeries (GraphicsContext gc, SeriesState state, Color color, double plotWidth) {
+        final PlotSeries series = state.source;
+        final ISampleView samples = series.getSamples ();
+        state.shown.clear ();
+        if (samples.isEmpty ())
+            return;
+
+        /* decimate the visible window, keeping one sample past either edge */
+        final double
+            xScale = series.getXScale (),
+            yScale = series.getYScale (),
+            xMin = viewXMin / xScale,
+            xMax = viewXMax / xScale;
+        final int
+            from = Math.max (0, SampleUtils.lowerBound (samples, xMin) - 1),
+            to = Math.min (samples.size (), SampleUtils.upperBound (samples, xMax) + 1);
+        Decimator.decimate (decimationMode, samples, from, to, xMin, xMax, (int) Math.ceil (plotWidth), state.shown);
+
+        /* project into pixels and stroke, starting a new sub-path after
+         * every break */
+        final int count = state.shown.size ();
+        final double[]
+            xs = state.shown.getXArray (),
+            ys = state.shown.getYArray ();
+        gc.setStroke (color);
+        gc.beginPath ();
+        boolean penDown = false;
+        for (int i = 0; i < count; ++i) {
+            if (Double.isNaN (ys[i])) {
+                penDown = false;
+                continue;
+            }
+            final double
+                px = toPixelX (xs[i] * xScale),
+                py = toPixelY (ys[i] * yScale);
+            if (penDown)
+                gc.lineTo (px, py);
+            else
+                gc.moveTo (px, py);
+            penDown = true;
+        }
+        gc.stroke ();
+    }
+
+    private void drawGrid (GraphicsContext gc, double plotWidth, double plotHeight) {
+        final double
+            left = LEFT_MARGIN,
+            top = TOP_MARGIN,
+            right = LEFT_MARGIN + plotWidth,
+            bottom = TOP_MARGIN + plotHeight;
+
+        gc.setLineWidth (1d);
+        gc.setFill (TEXT_COLOR);
+
+        /* vertical gridlines and x tick labels */
+        final double xStep = niceStep (viewXMax - viewXMin, (int) (plotWidth / TICK_SPACING));
+        gc.setTextAlign (TextAlignment.CENTER);
+        gc.setTextBaseline (VPos.TOP);
+        final double xFirst = Math.ceil (viewXMin / xStep) * xStep;
+        for (int i = 0; i < MAX_TICKS && xFirst + i * xStep <= viewXMax; ++i) {
+            final double v = xFirst + i * xStep;
+            final double px = snap (toPixelX (v));
+            gc.setStroke (GRID_COLOR);
+            gc.strokeLine (px, top, px, bottom);
+            gc.setStroke (FRAME_COLOR);
+            gc.strokeLine (px, bottom, px, bottom + TICK_LENGTH);
+            gc.fillText (formatTick (v, xStep), px, bottom + TICK_LENGTH + 1d);
+        }
+
+        /* horizontal gridlines and y tick labels */
+        final double yStep = niceStep (viewYMax - viewYMin, (int) (plotHeight / TICK_SPACING));
+        gc.setTextAlign (TextAlignment.RIGHT);
+        gc.setTextBaseline (VPos.CENTER);
+        final double yFirst = Math.ceil (viewYMin / yStep) * yStep;
+        for (int i = 0; i < MAX_TICKS && yFirst + i * yStep <= viewYMax; ++i) {
+            final double v = yFirst + i * yStep;
+            final double py = snap (toPixelY (v));
+            gc.setStroke (GRID_COLOR);
+            gc.strokeLine (left, py, right, py);
+            gc.setStroke (FRAME_COLOR);
+            gc.strokeLine (left - TICK_LENGTH, py, left, py);
+            gc.fillText (formatTick (v, yStep), left - TICK_LENGTH - 2d, py);
+        }
+    }
+
+    private void drawLegend (GraphicsContext gc) {
+        gc.setTextAlign (TextAlignment.LEFT);
+        gc.setTextBaseline (VPos.CENTER);
+        gc.setLineWidth (LINE_WIDTH);
+        for (int i = 0; i < states.size (); ++i) {
+            final double rowY = TOP_MARGIN + 8d + i * LEGEND_ROW_HEIGHT;
+            final double rowX = LEFT_MARGIN + 8d;
+            gc.setStroke (PALETTE[i % PALETTE.length]);
+            gc.strokeLine (rowX, rowY, rowX + 16d, rowY);
+            gc.setFill (TEXT_COLOR);
+            final String name = states.get (i).source.getName ();
+            gc.fillText (name == null ? "" : name, rowX + 22d, rowY);
+        }
+    }
+
+    /* +---------+ */
+    /* | READOUT | */
+    /* +---------+ */
+    private void clearOverlay () {
+        overlayCanvas.getGraphicsContext2D ().clearRect (0d, 0d, overlayCanvas.getWidth (), overlayCanvas.getHeight ());
+    }
+
+    /* Draws a crosshair at the hovered x with a marker on every curve it
+     * crosses, and a readout of each series' value there.
+     */
+    private void drawReadout () {
+        clearOverlay ();
+        final double
+            plotWidth = getPlotWidth (),
+            plotHeight = getPlotHeight ();
+        if (Double.isNaN (hoverX) || hoverX < LEFT_MARGIN || hoverX > LEFT_MARGIN + plotWidth || plotHeight <= 0d)
+            return;
+
+        final List<PlotSeries> series = new ArrayList<> (states.size ());
+        states.forEach (s -> series.add (s.source));
+        final double displayX = viewXMin + (hoverX - LEFT_MARGIN) / plotWidth * (viewXMax - viewXMin);
+        final String[] lines = HoverReadout.format (displayX, series);
+
+        /* crosshair and markers */
+        final GraphicsContext gc = overlayCanvas.getGraphicsContext2D ();
+        final double lineX = snap (hoverX);
+        gc.setStroke (FRAME_COLOR);
+        gc.setLineWidth (1d);
+        gc.strokeLine (lineX, TOP_MARGIN, lineX, TOP_MARGIN + plotHeight);
+        for (int i = 0; i < series.size (); ++i) {
+            final double y = series.get (i).interpolateDisplayY (displayX);
+            if (!(y >= viewYMin && y <= viewYMax))
+                continue;
+            gc.setFill (PALETTE[i % PALETTE.length]);
+            gc.fillOval (hoverX - 4d, toPixelY (y) - 4d, 8d, 8d);
+        }
+
+        /* place the box beside the crosshair, flipping it to stay on the canvas */
+        int longest = 0;
+        for (String line : lines)
+            longest = Math.max (longest, line.length ());
+        final double boxWidth = 7d * longest + 26d;
+        final double boxHeight = LEGEND_ROW_HEIGHT * lines.length + 8d;
+        final double boxX = hoverX + 12d + boxWidth > overlayCanvas.getWidth () ? hoverX - 12d - boxWidth : hoverX + 12d;
+        final double boxY = TOP_MARGIN + 8d;
+        gc.setFill (READOUT_COLOR);
+        gc.fillRect (boxX, boxY, boxWidth, boxHeight);
+        gc.setStroke (FRAME_COLOR);
+        gc.strokeRect (boxX, boxY, boxWidth, boxHeight);
+        gc.setTextAlign (TextAlignment.LEFT);
+        gc.setTextBaseline (VPos.TOP);
+        for (int i = 0; i < lines.length; ++i) {
+            final double rowY = boxY + 4d + i * LEGEND_ROW_HEIGHT;
+            if (i > 0) {
+                gc.setFill (PALETTE[(i - 1) % PALETTE.length]);
+                gc.fillRect (boxX + 6d, rowY + 3d, 8d, 8d);
+            }
+            gc.setFill (TEXT_COLOR);
+            gc.fillText (lines[i], boxX + 20d, rowY);
+        }
+    }
+
+    /* +----------+ */
+    /* | INTERNAL | */
+    /* +----------+ */
+    private SeriesState find (PlotSeries series) {
+        for (SeriesState state : states)
+            if (state.source == series)
+                return state;
+        return null;
+    }
+
+    /* Shows a fixed window, ignoring degenerate or non-finite ones. */
+    private void setView (double xMin, double xMax, double yMin, double yMax) {
+        if (!(Double.isFinite (xMin) && Double.isFinite (xMax) && xMin < xMax &&
+              Double.isFinite (yMin) && Double.isFinite (yMax) && yMin < yMax))
+            return;
+        autoRanging = false;
+        viewXMin = xMin;
+        viewXMax = xMax;
+        viewYMin = yMin;
+        viewYMax = yMax;
+        requestRedraw ();
+        fireViewChanged ();
+    }
+
+    private void fireViewChanged () {
+        if (viewListener != null)
+            viewListener.viewChanged (autoRanging, viewXMin, viewXMax);
+    }
+
+    /* Fits the window to the cached extents of every series. */
+    private void autoRange () {
+        double
+            xMin = Double.POSITIVE_INFINITY,
+            xMax = Double.NEGATIVE_INFINITY,
+            yMin = Double.POSITIVE_INFINITY,
+            yMax = Double.NEGATIVE_INFINITY;
+        for (SeriesState state : states) {
+            final PlotSeries series = state.source;
+            if (!series.hasExtent ())
+                continue;
+            xMin = Math.min (xMin, series.getDisplayXMin ());
+            xMax = Math.max (xMax, series.getDisplayXMax ());
+            yMin = Math.min (yMin, series.getDisplayYMin ());
+            yMax = Math.max (yMax, series.getDisplayYMax ());
+        }
+        if (!(xMin <= xMax)) {
+            xMin = 0d;
+            xMax = 1d;
+            yMin = 0d;
+            yMax = 1d;
+        }
+        if (xMax - xMin <= 0d) {
+            xMin -= 1d;
+            xMax += 1d;
+        }
+        final double yPadding = yMax - yMin > 0d ? (yMax - yMin) * AUTO_RANGE_PADDING : Math.max (1d, Math.abs (yMax));
+        viewXMin = xMin;
+        viewXMax = xMax;
+        viewYMin = yMin - yPadding;
+        viewYMax = yMax + yPadding;
+    }
+
+    private double toPixelX (double value) {
+        final double px = LEFT_MARGIN + (value - viewXMin) / (viewXMax - viewXMin) * getPlotWidth ();
+        return Math.max (-PIXEL_LIMIT, Math.min (PIXEL_LIMIT, px));
+    }
+
+    private double toPixelY (double value) {
+        final double py = TOP_MARGIN + (viewYMax - value) / (viewYMax - viewYMin) * getPlotHeight ();
+        return Math.max (-PIXEL_LIMIT, Math.min (PIXEL_LIMIT, py));
+    }
+
+    /* aligns one pixel wide lines to the pixel grid so they stay crisp */
+    private static double snap (double value) {
+        return Math.floor (value) + 0.5d;
+    }
+
+    /* Returns a 1, 2 or 5 times power of ten step splitting the span into
+     * about the given number of ticks.
+     */
+    private static double niceStep (double span, int ticks) {
+        final double raw = span / Math.max (1, ticks);
+        final double magnitude = Math.pow (10d, Math.floor (Math.log10 (raw)));
+        final double residual = raw / magnitude;
+        if (residual < 1.5d)
+            return magnitude;
+        if (residual < 3d)
+            return 2d * magnitude;
+        if (residual < 7d)
+            return 5d * magnitude;
+        return 10d * magnitude;
+    }
+
+    private static String formatTick (double value, double step) {
+        /* avoid printing -0 for ticks landing on zero */
+        final double v = Math.abs (value) < step * 1e-9d ? 0d : value;
+        final int decimals = Math.max (0, (int) -Math.floor (Math.log10 (step)));
+        if (decimals > 6 || Math.abs (v) >= 1e7d)
+            return String.format ("%.3g", v);
+        return String.format ("%." + decimals + "f", v);
+    }
+}
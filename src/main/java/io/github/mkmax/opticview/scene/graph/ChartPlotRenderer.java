@@ -0,0 +1,361 @@
+package io.github.mkmax.opticview.scene.graph;
+
+import io.github.mkmax.opticview.sampling.Decimator;
+import io.github.mkmax.opticview.sampling.ISampleView;
+import io.github.mkmax.opticview.sampling.SampleBuffer;
+import io.github.mkmax.opticview.sampling.SampleUtils;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.event.EventHandler;
+import javafx.geometry.Point2D;
+import javafx.scene.Node;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.chart.XYChart.Series;
+import javafx.scene.control.Label;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.StackPane;
+import javafx.scene.shape.Line;
+
+import java.util.*;
+
+/* Renders plots through JavaFX's LineChart.
+ *
+ * Series are decimated to the plot width before they reach the chart, and
+ * drawn without per-point symbols. The chart cannot break a series, so NaN
+ * break samples are dropped and the line is drawn across them.
+ *
+ * Hovering shows one crosshair and one readout for the whole chart, which
+ * are positioned and refilled as the mouse moves.
+ */
+final class ChartPlotRenderer implements IPlotRenderer {
+
+    /* +---------------+ */
+    /* | STYLE CLASSES | */
+    /* +---------------+ */
+    public static final class ComponentClass {
+        public static final String
+            HOVER_READOUT   = "hover-readout",
+            HOVER_CROSSHAIR = "hover-crosshair";
+    }
+
+    /* plot width assumed before the chart is laid out */
+    private static final double FALLBACK_PLOT_WIDTH = 1024d;
+
+    /* +--------------------------------------------------------------------+ */
+    /* |                           SERIES WRAPPER                           | */
+    /* +--------------------------------------------------------------------+ */
+    private static final class SeriesWrapper {
+
+        /* +--------------------------+ */
+        /* | INITIALIZATION & MEMBERS | */
+        /* +--------------------------+ */
+        private final Series<Number, Number> series = new Series<> ();
+
+        /* the decimated samples currently shown, in the entry's own units */
+        private final SampleBuffer shown = new SampleBuffer ();
+
+        public SeriesWrapper () {
+            /* already initialized */
+        }
+
+        /* +-----------+ */
+        /* | INTERFACE | */
+        /* +-----------+ */
+        public Series<Number, Number> getSeries () {
+            return series;
+        }
+
+        public void dispose () {
+            series.getData ().clear ();
+        }
+    }
+
+    /* +--------------------------------------------------------------------+ */
+    /* |                         CHART PLOT RENDERER                        | */
+    /* +--------------------------------------------------------------------+ */
+
+    /* +--------------------------+ */
+    /* | MEMBERS & INITIALIZATION | */
+    /* +--------------------------+ */
+    private final NumberAxis
+        x = new NumberAxis (),
+        y = new NumberAxis ();
+    private final LineChart<Number, Number> chart = new LineChart<> (x, y);
+    private final ObservableList<Series<Number, Number>> plots = FXCollections.observableArrayList ();
+    private final Map<PlotSeries, SeriesWrapper> wrappers = new LinkedHashMap<> ();
+    private Decimator.Mode decimationMode = Decimator.Mode.MIN_MAX;
+
+    /* hover overlay, stacked above the chart */
+    private final StackPane root = new StackPane ();
+    private final Pane overlay = new Pane ();
+    private final Line crosshair = new Line ();
+    private final Label readout = new Label ();
+
+    /* configure the chart; data changes are not animated, as every
+     * re-plot would otherwise tween thousands of nodes */
+    {
+        chart.setData (plots);
+        chart.setAnimated (false);
+        chart.setCreateSymbols (false);
+
+        readout.getStyleClass ().add (ComponentClass.HOVER_READOUT);
+        crosshair.getStyleClass ().add (ComponentClass.HOVER_CROSSHAIR);
+        overlay.setMouseTransparent (true);
+        overlay.getChildren ().addAll (crosshair, readout);
+        root.getChildren ().addAll (chart, overlay);
+        hideReadout ();
+    }
+
+    /* +----------+ */
+    /* | HANDLERS | */
+    /* +----------+ */
+
+    /* decimation depends on how many pixels, and which x values, are visible */
+    private final ChangeListener<Number> onPlotWidthChanged = (__obs, __old, __now) ->
+        refresh ();
+
+    private final ChangeListener<Number> onXBoundsChanged = (__obs, __old, __now) -> {
+        /* auto-ranged bounds follow the data, which is always decimated whole */
+        if (!x.isAutoRanging ())
+            refresh ();
+    };
+
+    private final EventHandler<MouseEvent> onMouseMoved = (e) ->
+        showReadout (e.getSceneX (), e.getSceneY ());
+
+    private final EventHandler<MouseEvent> onMouseExited = (e) ->
+        hideReadout ();
+
+    /* install handlers */
+    {
+        chart.addEventHandler (MouseEvent.MOUSE_MOVED, onMouseMoved);
+        chart.addEventHandler (MouseEvent.MOUSE_EXITED, onMouseExited);
+        x.widthProperty ().addListener (onPlotWidthChanged);
+        x.lowerBoundProperty ().addListener (onXBoundsChanged);
+        x.upperBoundProperty ().addListener (onXBoundsChanged);
+    }
+
+    /* +-----------+ */
+    /* | INTERFACE | */
+    /* +-----------+ */
+    @Override
+    public Node getNode () {
+        return root;
+    }
+
+    @Override
+    public double getPlotWidth () {
+        return x.getWidth ();
+    }
+
+    @Override
+    public double getPlotHeight () {
+        return y.getHeight ();
+    }
+
+    @Override
+    public void addSeries (PlotSeries series) {
+        Objects.requireNonNull (series, "cannot add a null series");
+        if (wrappers.containsKey (series))
+            return;
+        final SeriesWrapper wrapper = new SeriesWrapper ();
+        wrapper.getSeries ().nameProperty ().bind (series.getEntry ().nameProperty ());
+        wrappers.put (series, wrapper);
+        plots.add (wrapper.getSeries ());
+        updateSeries (series);
+    }
+
+    @Override
+    public void removeSeries (PlotSeries series) {
+        final SeriesWrapper removed = wrappers.remove (series);
+        if (removed != null) {
+            removed.getSeries ().nameProperty ().unbind ();
+            removed.dispose ();
+            plots.remove (removed.getSeries ());
+        }
+    }
+
+    /* one change of the chart's series list for a whole batch: the kept
+     * series, in order, followed by the fresh ones, swapped in by a single
+     * setAll */
+    @Override
+    public void replaceSeries (Collection<PlotSeries> removed, List<PlotSeries> added) {
+        final Set<Series<Number, Number>> gone = new HashSet<> ();
+        for (PlotSeries series : removed) {
+            final SeriesWrapper wrapper = wrappers.remove (series);
+            if (wrapper != null) {
+                wrapper.getSeries ().nameProperty ().unbind ();
+                wrapper.dispose ();
+                gone.add (wrapper.getSeries ());
+            }
+        }
+
+        final List<PlotSeries> fresh = new ArrayList<> (added.size ());
+        final List<Series<Number, Number>> freshPlots = new ArrayList<> (added.size ());
+        for (PlotSeries series : added) {
+            Objects.requireNonNull (series, "cannot add a null series");
+            if (wrappers.containsKey (series))
+                continue;
+            final SeriesWrapper wrapper = new SeriesWrapper ();
+            wrapper.getSeries ().nameProperty ().bind (series.getEntry ().nameProperty ());
+            wrappers.put (series, wrapper);
+            fresh.add (series);
+            freshPlots.add (wrapper.getSeries ());
+        }
+
+        if (!gone.isEmpty () || !freshPlots.isEmpty ()) {
+            final List<Series<Number, Number>> next = new ArrayList<> (plots.size () - gone.size () + freshPlots.size ());
+            for (Series<Number, Number> plot : plots)
+                if (!gone.contains (plot))
+                    next.add (plot);
+            next.addAll (freshPlots);
+            plots.setAll (next);
+        }
+        fresh.forEach (this::updateSeries);
+    }
+
+    @Override
+    public void updateSeries (PlotSeries series) {
+        final SeriesWrapper wrapper = wrappers.get (series);
+        if (wrapper == null)
+            return;
+
+        final ISampleView samples = series.getSamples ();
+        if (samples.isEmpty ()) {
+            wrapper.getSeries ().getData ().clear ();
+            return;
+        }
+
+        /* decimate the visible window, in the entry's own units, to about two
+         * samples per pixel column; one extra sample is kept past either edge
+         * so the line still runs off the plot */
+        final double xScale = series.getXScale ();
+        final double yScale = series.getYScale ();
+        final double xMin, xMax;
+        final int from, to;
+        if (x.isAutoRanging ()) {
+            xMin = samples.getX (0);
+            xMax = samples.getX (samples.size () - 1);
+            from = 0;
+            to = samples.size ();
+        }
+        else {
+            xMin = x.getLowerBound () / xScale;
+            xMax = x.getUpperBound () / xScale;
+            from = Math.max (0, SampleUtils.lowerBound (samples, xMin) - 1);
+            to = Math.min (samples.size (), SampleUtils.upperBound (samples, xMax) + 1);
+        }
+        final int columns = (int) Math.ceil (x.getWidth () > 0d ? x.getWidth () : FALLBACK_PLOT_WIDTH);
+        final SampleBuffer shown = wrapper.shown;
+        Decimator.decimate (decimationMode, samples, from, to, xMin, xMax, columns, shown);
+
+        /* only defined samples become chart points; existing points are
+         * reused with their values rewritten in place, and only the
+         * difference in length is added or removed, so the chart keeps its
+         * nodes and a re-plot allocates next to nothing */
+        final int count = shown.size ();
+        final double[]
+            xs = shown.getXArray (),
+            ys = shown.getYArray ();
+        final ObservableList<XYChart.Data<Number, Number>> data = wrapper.getSeries ().getData ();
+        final int existing = data.size ();
+
+        int used = 0, i = 0;
+        for (; i < count && used < existing; ++i) {
+            if (Double.isNaN (ys[i]))
+                continue;
+            final XYChart.Data<Number, Number> point = data.get (used++);
+            point.setXValue (xs[i] * xScale);
+            point.setYValue (ys[i] * yScale);
+        }
+
+        if (used < existing)
+            data.remove (used, existing);
+        else {
+            final List<XYChart.Data<Number, Number>> added = new ArrayList<> (count - i);
+            for (; i < count; ++i)
+                if (!Double.isNaN (ys[i]))
+                    added.add (new XYChart.Data<> (xs[i] * xScale, ys[i] * yScale));
+            if (!added.isEmpty ())
+                data.addAll (added);
+        }
+    }
+
+    @Override
+    public void setDecimationMode (Decimator.Mode mode) {
+        decimationMode = Objects.requireNonNull (mode, "a decimation mode must be specified");
+        refresh ();
+    }
+
+    @Override
+    public void rescaleView (double xFactor, double yFactor) {
+        if (!x.isAutoRanging ()) {
+            x.setLowerBound (x.getLowerBound () * xFactor);
+            x.setUpperBound (x.getUpperBound () * xFactor);
+        }
+        if (!y.isAutoRanging ()) {
+            y.setLowerBound (y.getLowerBound () * yFactor);
+            y.setUpperBound (y.getUpperBound () * yFactor);
+        }
+    }
+
+    /* the chart always fits its axes to the data, so there is no window to report */
+    @Override
+    public void setViewListener (IViewListener listener) {
+    }
+
+    @Override
+    public void dispose () {
+        chart.removeEventHandler (MouseEvent.MOUSE_MOVED, onMouseMoved);
+        chart.removeEventHandler (MouseEvent.MOUSE_EXITED, onMouseExited);
+        x.widthProperty ().removeListener (onPlotWidthChanged);
+        x.lowerBoundProperty ().removeListener (onXBoundsChanged);
+        x.upperBoundProperty ().removeListener (onXBoundsChanged);
+        replaceSeries (new ArrayList<> (wrappers.keySet ()), List.of ());
+    }
+
+    /* +----------+ */
+    /* | INTERNAL | */
+    /* +----------+ */
+    private void refresh () {
+        wrappers.keySet ().forEach (this::updateSeries);
+    }
+
+    /* Moves the crosshair to the cursor and fills the readout with every
+     * series' value there; hides both outside the plot area.
+     */
+    private void showReadout (double sceneX, double sceneY) {
+        final Point2D onAxis = x.sceneToLocal (sceneX, sceneY);
+        if (onAxis == null || onAxis.getX () < 0d || onAxis.getX () > x.getWidth () || wrappers.isEmpty ()) {
+            hideReadout ();
+            return;
+        }
+        final double displayX = x.getValueForDisplay (onAxis.getX ()).doubleValue ();
+
+        /* span the plot area vertically, as given by the y axis */
+        final Point2D top = y.localToScene (0d, 0d);
+        final Point2D bottom = y.localToScene (0d, y.getHeight ());
+        final Point2D cursor = overlay.sceneToLocal (sceneX, sceneY);
+        final double
+            topY = overlay.sceneToLocal (top.getX (), top.getY ()).getY (),
+            bottomY = overlay.sceneToLocal (bottom.getX (), bottom.getY ()).getY ();
+        crosshair.setStartX (cursor.getX ());
+        crosshair.setEndX (cursor.getX ());
+        crosshair.setStartY (topY);
+        crosshair.setEndY (bottomY);
+
+        readout.setText (String.join ("\n", HoverReadout.format (displayX, new ArrayList<> (wrappers.keySet ()))));
+        readout.relocate (cursor.getX () + 12d, topY + 8d);
+        crosshair.setVisible (true);
+        readout.setVisible (true);
+    }
+
+    private void hideReadout () {
+        crosshair.setVisible (false);
+        readout.setVisible (false);
+    }
+}
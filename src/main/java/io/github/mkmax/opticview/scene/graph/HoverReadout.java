@@ -0,0 +1,33 @@
+package io.github.mkmax.opticview.scene.graph;
+
+import java.util.List;
+
+/* Formats the single hover readout every renderer shows: the x under the
+ * cursor, then each series' value at that x, interpolated from its samples.
+ * Building it costs a binary search per series, and nothing is retained
+ * between hovers.
+ */
+final class HoverReadout {
+
+    private HoverReadout () {
+        /* static only */
+    }
+
+    /* Returns the readout lines for a displayed x, one per series after the
+     * x line itself, so callers can colour each line like its series.
+     */
+    static String[] format (double displayX, List<PlotSeries> series) {
+        final String[] lines = new String[series.size () + 1];
+        lines[0] = "X: " + formatValue (displayX);
+        for (int i = 0; i < series.size (); ++i) {
+            final PlotSeries s = series.get (i);
+            final String name = s.getName () == null ? "" : s.getName ();
+            lines[i + 1] = name + ": " + formatValue (s.interpolateDisplayY (displayX));
+        }
+        return lines;
+    }
+
+    static String formatValue (double value) {
+        return Double.isFinite (value) ? String.format ("%.6g", value) : "-";
+    }
+}
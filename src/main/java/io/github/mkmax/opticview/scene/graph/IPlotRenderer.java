@@ -0,0 +1,64 @@
+package io.github.mkmax.opticview.scene.graph;
+
+import io.github.mkmax.opticview.sampling.Decimator;
+import javafx.scene.Node;
+
+import java.util.Collection;
+import java.util.List;
+
+/* Draws the plots of a SampledRangeGraph.
+ *
+ * The graph owns sampling, units and the axis labels; a renderer only turns
+ * the series it is handed into pixels. Series are drawn in the order they
+ * were added, and every call is made on the JavaFX application thread.
+ */
+interface IPlotRenderer {
+
+    /* Told whenever the user moves the visible window; xMin and xMax are in
+     * display units, and fitted is true once the window follows the data
+     * again, in which case the bounds are meaningless.
+     */
+    @FunctionalInterface
+    interface IViewListener {
+        void viewChanged (boolean fitted, double xMin, double xMax);
+    }
+
+    /* Returns the node displaying the plots. */
+    Node getNode ();
+
+    /* Returns the size, in pixels, of the area the curves are drawn into. */
+    double getPlotWidth ();
+
+    double getPlotHeight ();
+
+    void addSeries (PlotSeries series);
+
+    void removeSeries (PlotSeries series);
+
+    /* Removes and adds any number of series as a single update of the
+     * drawing; the added ones are placed after those kept, in order.
+     */
+    default void replaceSeries (Collection<PlotSeries> removed, List<PlotSeries> added) {
+        removed.forEach (this::removeSeries);
+        added.forEach (this::addSeries);
+    }
+
+    /* Redraws a series whose samples or scales have changed. */
+    void updateSeries (PlotSeries series);
+
+    void setDecimationMode (Decimator.Mode mode);
+
+    /* Multiplies a fixed visible window by the given factors, keeping it on
+     * the same region of the curves after the displayed units change. An
+     * auto-ranged window is left alone.
+     */
+    void rescaleView (double xFactor, double yFactor);
+
+    /* Sets the listener told about changes to the visible window, or
+     * removes it when null. A renderer starts out fitting the data.
+     */
+    void setViewListener (IViewListener listener);
+
+    /* Detaches the renderer from every series and listener it holds. */
+    void dispose ();
+}
@@ -0,0 +1,136 @@
+package io.github.mkmax.opticview.scene.graph;
+
+import io.github.mkmax.opticview.sampling.ISampleView;
+import io.github.mkmax.opticview.sampling.SampleBuffer;
+import io.github.mkmax.opticview.sampling.SampleUtils;
+import io.github.mkmax.opticview.sampling.SplicedSampleView;
+
+import java.util.Objects;
+
+/* What a renderer needs to draw one function entry: the entry's samples,
+ * still in the entry's own units, and the factors that scale them into the
+ * units the graph currently displays.
+ *
+ * The samples are an overview of the entry's whole range, optionally with
+ * a finer sampling of the zoomed-in window spliced over it.
+ */
+final class PlotSeries {
+
+    /* +--------------------------+ */
+    /* | MEMBERS & INITIALIZATION | */
+    /* +--------------------------+ */
+    private final SampledRangeGraph.FunctionEntry entry;
+    private ISampleView
+        overview = new SampleBuffer (0),
+        detail = null,
+        samples = overview;
+    private double
+        xScale = 1d,
+        yScale = 1d;
+
+    /* extent of the defined samples, in the entry's own units */
+    private double
+        yMin = Double.NaN,
+        yMax = Double.NaN;
+
+    PlotSeries (SampledRangeGraph.FunctionEntry pEntry) {
+        entry = Objects.requireNonNull (pEntry);
+    }
+
+    /* +-----------+ */
+    /* | INTERFACE | */
+    /* +-----------+ */
+    SampledRangeGraph.FunctionEntry getEntry () {
+        return entry;
+    }
+
+    String getName () {
+        return entry.getName ();
+    }
+
+    /* Returns the samples to draw: the overview, with the detail in place
+     * of the stretch it covers.
+     */
+    ISampleView getSamples () {
+        return samples;
+    }
+
+    /* Replaces the overview, dropping the detail taken of the old one. */
+    void setSamples (ISampleView nSamples) {
+        overview = Objects.requireNonNull (nSamples);
+        detail = null;
+        samples = overview;
+
+        /* the y extent is cached so renderers can auto-range without a scan;
+         * it always describes the overview, so fitting the window is not
+         * swayed by whichever stretch was last looked at closely */
+        double lo = Double.POSITIVE_INFINITY, hi = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < overview.size (); ++i) {
+            final double y = overview.getY (i);
+            if (Double.isFinite (y)) {
+                lo = Math.min (lo, y);
+                hi = Math.max (hi, y);
+            }
+        }
+        yMin = lo <= hi ? lo : Double.NaN;
+        yMax = lo <= hi ? hi : Double.NaN;
+    }
+
+    boolean hasDetail () {
+        return detail != null;
+    }
+
+    /* Splices a finer sampling of part of the range over the overview, or
+     * removes it when null.
+     */
+    void setDetail (ISampleView nDetail) {
+        detail = nDetail;
+        samples = detail == null ? overview : new SplicedSampleView (overview, detail);
+    }
+
+    /* +--- SCALES ---+ */
+    double getXScale () {
+        return xScale;
+    }
+
+    double getYScale () {
+        return yScale;
+    }
+
+    void setScales (double nXScale, double nYScale) {
+        if (!(nXScale > 0d && nYScale > 0d))
+            throw new RuntimeException ("display scales must be positive");
+        xScale = nXScale;
+        yScale = nYScale;
+    }
+
+    /* +--- HIT TESTING ---+ */
+
+    /* Returns the curve's value at a displayed x, in display units, or NaN
+     * where it is not defined; see SampleUtils.interpolate.
+     */
+    double interpolateDisplayY (double displayX) {
+        return SampleUtils.interpolate (samples, displayX / xScale) * yScale;
+    }
+
+    /* +--- DISPLAY EXTENT ---+ */
+    boolean hasExtent () {
+        return !overview.isEmpty () && !Double.isNaN (yMin);
+    }
+
+    double getDisplayXMin () {
+        return overview.getX (0) * xScale;
+    }
+
+    double getDisplayXMax () {
+        return overview.getX (overview.size () - 1) * xScale;
+    }
+
+    double getDisplayYMin () {
+        return yMin * yScale;
+    }
+
+    double getDisplayYMax () {
+        return yMax * yScale;
+    }
+}
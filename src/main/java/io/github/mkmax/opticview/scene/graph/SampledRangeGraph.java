@@ -1,8 +1,22 @@
 package io.github.mkmax.opticview.scene.graph;
 
+import io.github.mkmax.opticview.io.SeriesExporter;
+import io.github.mkmax.opticview.model.FunctionSampler;
+import io.github.mkmax.opticview.model.FunctionSpec;
+import io.github.mkmax.opticview.model.IRealFunction;
+import io.github.mkmax.opticview.model.Precision;
+import io.github.mkmax.opticview.model.SampleStream;
+import io.github.mkmax.opticview.model.SamplingMode;
+import io.github.mkmax.opticview.sampling.Decimator;
+import io.github.mkmax.opticview.sampling.ISampleView;
+import io.github.mkmax.opticview.sampling.SampleBuffer;
+import io.github.mkmax.opticview.sampling.SampleCollector;
+import io.github.mkmax.opticview.sampling.SampleUtils;
+import io.github.mkmax.opticview.sampling.SamplingEngine;
 import io.github.mkmax.opticview.scene.controls.UnitListCell;
 import io.github.mkmax.opticview.units.IUnit;
 import io.github.mkmax.opticview.util.ListUtils;
+import javafx.application.Platform;
 import javafx.beans.property.*;
 import javafx.beans.value.ChangeListener;
 import javafx.collections.FXCollections;
@@ -13,213 +27,41 @@ import javafx.geometry.Pos;
 import javafx.geometry.VPos;
 import javafx.scene.Group;
 import javafx.scene.Node;
-import javafx.scene.chart.NumberAxis;
-import javafx.scene.chart.XYChart;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
-import javafx.scene.control.Tooltip;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.Region;
-import javafx.scene.chart.LineChart;
 import javafx.scene.chart.XYChart.Series;
-import javafx.util.Duration;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class SampledRangeGraph extends Region {
 
-    /* +--------------------------------------------------------------------+ */
-    /* |                            DATA WRAPPER                            | */
-    /* +--------------------------------------------------------------------+ */
-    private static final class DataWrapper {
-
-        /* +------------+ */
-        /* | PROPERTIES | */
-        /* +------------+ */
-        private final StringProperty parentSeriesName = new SimpleStringProperty ();
-        public StringProperty parentSeriesNameProperty ()
-            { return parentSeriesName; }
-        public String getParentSeriesName ()
-            { return parentSeriesName.get(); }
-        public void setParentSeriesName (String nSeriesName)
-            { parentSeriesName.set (nSeriesName); }
-
-        /* +------------+ */
-        /* | COMPONENTS | */
-        /* +------------+ */
-        private final Tooltip tooltip = new Tooltip ();
-        private final GridPane container = new GridPane ();
-        private final Label seriesLabel = new Label ();
-        private final Label
-            xLabel = new Label ("X:"),
-            yLabel = new Label ("Y:");
-        private final Label
-            xValueLabel = new Label (),
-            yValueLabel = new Label ();
-
-        /* setup the components to be added to the tooltip "graphic" */
-        {
-            /* series label */
-            GridPane.setConstraints (seriesLabel, 0, 0, 2, 1, HPos.LEFT, VPos.CENTER, Priority.ALWAYS, Priority.NEVER);
-
-            /* X/Y labels and value labels */
-            GridPane.setConstraints (xLabel, 0, 1, 1, 1, HPos.RIGHT, VPos.CENTER, Priority.NEVER, Priority.NEVER);
-            GridPane.setConstraints (yLabel, 0, 2, 1, 1, HPos.RIGHT, VPos.CENTER, Priority.NEVER, Priority.NEVER);
-            GridPane.setConstraints (xValueLabel, 1, 1, 1, 1, HPos.LEFT, VPos.CENTER, Priority.ALWAYS, Priority.NEVER);
-            GridPane.setConstraints (yValueLabel, 1, 2, 1, 1, HPos.LEFT, VPos.CENTER, Priority.ALWAYS, Priority.NEVER);
-
-            /* add all of the components to the container */
-            container.getChildren ().addAll (
-                seriesLabel,
-                xLabel, xValueLabel,
-                yLabel, yValueLabel
-            );
-
-            /* setup the tooltip itself */
-            tooltip.setHideDelay (Duration.seconds (0d));
-            tooltip.setShowDelay (Duration.seconds (0d));
-            tooltip.setGraphic (container);
-        }
-
-        /* +--------------------------+ */
-        /* | INITIALIZATION & MEMBERS | */
-        /* +--------------------------+ */
-        private final Series<Number, Number> owner;
-        private final XYChart.Data<Number, Number> data;
-
-        public DataWrapper (Series<Number, Number> pOwner, XYChart.Data<Number, Number> pData) {
-            owner = Objects.requireNonNull (pOwner);
-            data = Objects.requireNonNull (pData);
-            data.XValueProperty ().addListener (onXValueChanged);
-            data.YValueProperty ().addListener (onYValueChanged);
-            data.nodeProperty ().addListener (onDataNodeChanged);
-
-            /* setup the tooltip data now */
-            seriesLabel.textProperty ().bind (pOwner.nameProperty ());
-            xValueLabel.setText (data.getXValue () == null ? "NaN" : data.getXValue ().toString ());
-            yValueLabel.setText (data.getYValue () == null ? "NaN" : data.getYValue ().toString ());
-            if (data.getNode () != null)
-                Tooltip.install (data.getNode (), tooltip);
-        }
-
-        /* +----------+ */
-        /* | HANDLERS | */
-        /* +----------+ */
-
-        /* +--- PROPERTY CHANGE HANDLERS ---+ */
-        private final ChangeListener<String> onParentSeriesNameChanged = (__obs, __old, now) ->
-            seriesLabel.setText (now);
-
-        /* +--- DATA HANDLERS ---+ */
-        private final ChangeListener<Number> onXValueChanged = (__obs, old, now) ->
-            xValueLabel.setText (now == null ? "NaN" : now.toString ());
-
-        private final ChangeListener<Number> onYValueChanged = (__obs, old, now) ->
-            yValueLabel.setText (now == null ? "NaN" : now.toString ());
-
-        private final ChangeListener<Node> onDataNodeChanged = (__obs, old, now) -> {
-            if (old != null)
-                Tooltip.uninstall (old, tooltip);
-            if (now != null)
-                Tooltip.install (now, tooltip);
-        };
-
-        /* +-----------+ */
-        /* | INTERFACE | */
-        /* +-----------+ */
-        public void dispose () {
-            seriesLabel.textProperty ().unbind ();
-            data.XValueProperty ().removeListener (onXValueChanged);
-            data.YValueProperty ().removeListener (onYValueChanged);
-            data.nodeProperty ().removeListener (onDataNodeChanged);
-        }
-    }
-
-
-    /* +--------------------------------------------------------------------+ */
-    /* |                           SERIES WRAPPER                           | */
-    /* +--------------------------------------------------------------------+ */
-    private static final class SeriesWrapper {
-
-        /* +--------------------------+ */
-        /* | INITIALIZATION & MEMBERS | */
-        /* +--------------------------+ */
-        private final ObservableList<DataWrapper> data = FXCollections.observableArrayList ();
-        private final ObservableList<DataWrapper> immutableData =
-            FXCollections.observableList (Collections.unmodifiableList (data));
-        private final Series<Number, Number> series = new Series<> ();
-
-        public SeriesWrapper () {
-            /* already initialized */
-        }
-
-        /* +----------+ */
-        /* | HANDLERS | */
-        /* +----------+ */
-        private final ListChangeListener<XYChart.Data<Number, Number>> onSeriesDataChanged = (change) -> {
-            while (change.next ()) {
-                if (change.wasAdded ()) {
-                    final List<? extends XYChart.Data<Number, Number>> addedList = change.getAddedSubList ();
-                    final List<DataWrapper> transferBuffer = new ArrayList<> (addedList.size ());
-                    addedList.forEach (i ->
-                        transferBuffer.add (new DataWrapper (series, i)));
-                    data.addAll (transferBuffer);
-                }
-                else if (change.wasRemoved ())
-                    data.removeIf (w -> {
-                        if (change.getRemoved ().contains (w.data)) {
-                            w.dispose ();
-                            return true;
-                        }
-                        return false;
-                    });
-            }
-        };
-
-        /* attach handlers to their targets */
-        {
-            series.getData ().addListener (onSeriesDataChanged);
-        }
-
-        /* +-----------+ */
-        /* | INTERFACE | */
-        /* +-----------+ */
-        public ObservableList<DataWrapper> getImmutableWrappedData () {
-            return immutableData;
-        }
-
-        public Series<Number, Number> getSeries () {
-            return series;
-        }
-
-        public void dispose () {
-            data.forEach (DataWrapper::dispose);
-            data.clear ();
-            series.getData ().removeListener (onSeriesDataChanged);
-            series.getData ().clear ();
-        }
-    }
-
-
     /* +--------------------------------------------------------------------+ */
     /* |                           FUNCTION ENTRY                           | */
     /* +--------------------------------------------------------------------+ */
+    /* An observable view of a FunctionSpec, one per plot. Properties may
+     * only be touched on the JavaFX application thread; the graph samples
+     * a snapshot of them, so sampling never reads the entry itself.
+     */
     public static final class FunctionEntry {
-        private static final double STEP_EPSILON = 1e-3d;
 
         /* +------------+ */
         /* | INTERFACES | */
         /* +------------+ */
 
-        /* +--- FUNCTION ---+ */
-        @FunctionalInterface
-        public interface IRealFunction {
-            double eval (double x);
-        }
-
         /* +--- RANGE LISTENER ---+ */
+
+        /* Range listeners are also notified when the sampling mode or the
+         * sample cap changes, since all of them decide which points of the
+         * function get sampled.
+         */
         @FunctionalInterface
         public interface IRangeChangeListener {
             void onRangeChanged (FunctionEntry source);
@@ -276,27 +118,80 @@ public class SampledRangeGraph extends Region {
             { return end.get (); }
 
         public void setStart (double nStart) {
-            validateRange (nStart, getStart (), getEnd ());
+            FunctionSpec.validateRange (nStart, getStart (), getEnd ());
             start.setValue (nStart);
         }
 
         public void setStep (double nStep) {
-            validateRange (getStart (), nStep, getEnd ());
+            FunctionSpec.validateRange (getStart (), nStep, getEnd ());
             step.setValue (nStep);
         }
 
         public void setEnd (double nEnd) {
-            validateRange (getStart (), getStep (), nEnd);
+            FunctionSpec.validateRange (getStart (), getStep (), nEnd);
             end.setValue (nEnd);
         }
 
         public void setRange (double pStart, double pStep, double pEnd) {
-            validateRange (pStart, pStep, pEnd);
+            FunctionSpec.validateRange (pStart, pStep, pEnd);
             start.setValue (pStart);
             step.setValue (pStep);
             end.setValue (pEnd);
         }
 
+        /* +--- SAMPLING MODE ---+ */
+        private final ObjectProperty<SamplingMode> samplingMode = new SimpleObjectProperty<> (SamplingMode.UNIFORM);
+
+        public ReadOnlyObjectProperty<SamplingMode> samplingModeProperty ()
+            { return samplingMode; }
+        public SamplingMode getSamplingMode ()
+            { return samplingMode.get (); }
+        public void setSamplingMode (SamplingMode nMode)
+            { samplingMode.set (Objects.requireNonNull (nMode, "a sampling mode must be specified")); }
+
+        /* +--- PRECISION ---+ */
+        private final ObjectProperty<Precision> precision = new SimpleObjectProperty<> (Precision.DOUBLE);
+
+        public ReadOnlyObjectProperty<Precision> precisionProperty ()
+            { return precision; }
+        public Precision getPrecision ()
+            { return precision.get (); }
+        public void setPrecision (Precision nPrecision)
+            { precision.set (Objects.requireNonNull (nPrecision, "a precision must be specified")); }
+
+        /* +--- MAX SAMPLES ---+ */
+
+        /* Uniform grids needing more points than this are stretched evenly
+         * over the range instead. Raising it to millions of points is meant
+         * for validation runs, such as pinning down an extremum; the plot
+         * itself never draws more than a few points per pixel.
+         */
+        private final IntegerProperty maxSamples = new SimpleIntegerProperty (FunctionSpec.DEFAULT_MAX_SAMPLES);
+
+        public ReadOnlyIntegerProperty maxSamplesProperty ()
+            { return maxSamples; }
+        public int getMaxSamples ()
+            { return maxSamples.get (); }
+        public void setMaxSamples (int nMaxSamples) {
+            FunctionSpec.validateMaxSamples (nMaxSamples);
+            maxSamples.set (nMaxSamples);
+        }
+
+        /* +--- PURE ---+ */
+
+        /* Declares the function pure: free of shared mutable state, so safe
+         * to evaluate from several threads at once. Large uniform grids of
+         * pure entries are sampled in parallel slices.
+         */
+        private final BooleanProperty pure = new SimpleBooleanProperty (false);
+
+        public ReadOnlyBooleanProperty pureProperty ()
+            { return pure; }
+        public boolean isPure ()
+            { return pure.get (); }
+        public void setPure (boolean nPure)
+            { pure.set (nPure); }
+
         /* +-----------+ */
         /* | LISTENERS | */
         /* +-----------+ */
@@ -325,20 +220,44 @@ public class SampledRangeGraph extends Region {
             inputUnits,
             outputUnits;
 
-        FunctionEntry (
-            IRealFunction pFunction,
-            String pName,
-            IUnit pInputUnits,
-            IUnit pOutputUnits,
-            double pStart,
-            double pStep,
-            double pEnd)
-        {
-            inputUnits = Objects.requireNonNull (pInputUnits, "input units must be specified");
-            outputUnits = Objects.requireNonNull (pOutputUnits, "output units must be specified");
-            setFunction (pFunction);
-            setName (pName);
-            setRange (pStart, pStep, pEnd);
+        /* the measured samples of a data entry, null for a computed one */
+        private final ISampleView data;
+
+        /* the most recent samples, always kept in this entry's own units;
+         * replaced wholesale on the FX thread once a sampling job finishes */
+        private SampleBuffer samples = new SampleBuffer (0);
+
+        /* what produced the current samples, so that moving only the start
+         * or end of a uniform grid can reuse the points already sampled;
+         * sampledFunction is null unless the samples are a full-step grid */
+        private IRealFunction sampledFunction;
+        private Precision sampledPrecision;
+        private double
+            sampledStart,
+            sampledStep;
+
+        /* the stretch, and step, of the finer sampling requested for a
+         * zoomed-in window; NaN while there is none */
+        private double
+            detailStart = Double.NaN,
+            detailEnd = Double.NaN,
+            detailStep = Double.NaN;
+
+        FunctionEntry (FunctionSpec spec) {
+            this (spec, null);
+        }
+
+        FunctionEntry (FunctionSpec spec, ISampleView pData) {
+            data = pData;
+            inputUnits = spec.getInputUnits ();
+            outputUnits = spec.getOutputUnits ();
+            setFunction (spec.getFunction ());
+            setName (spec.getName ());
+            setRange (spec.getStart (), spec.getStep (), spec.getEnd ());
+            setSamplingMode (spec.getSamplingMode ());
+            setPrecision (spec.getPrecision ());
+            setMaxSamples (spec.getMaxSamples ());
+            setPure (spec.isPure ());
         }
 
         /* +----------+ */
@@ -350,12 +269,22 @@ public class SampledRangeGraph extends Region {
         private final ChangeListener<Number> onRangeChanged = (__obs, __old, __now) ->
             rangeChangeListeners.forEach (i -> i.onRangeChanged (this));
 
+        private final ChangeListener<SamplingMode> onSamplingModeChanged = (__obs, __old, __now) ->
+            rangeChangeListeners.forEach (i -> i.onRangeChanged (this));
+
+        /* every value may change, just as with a new function */
+        private final ChangeListener<Precision> onPrecisionChanged = (__obs, __old, __now) ->
+            functionChangeListeners.forEach (i -> i.onFunctionChanged (this));
+
         /* install the required handlers */
         {
             function.addListener (onFunctionChanged);
             start.addListener (onRangeChanged);
             step.addListener (onRangeChanged);
             end.addListener (onRangeChanged);
+            samplingMode.addListener (onSamplingModeChanged);
+            maxSamples.addListener (onRangeChanged);
+            precision.addListener (onPrecisionChanged);
         }
 
         /* +-----------+ */
@@ -380,26 +309,46 @@ public class SampledRangeGraph extends Region {
             return outputUnits;
         }
 
+        /* +--- SAMPLES ---+ */
+        public ISampleView getSamples () {
+            return samples;
+        }
+
+        /* +--- DATA ---+ */
+
+        /* Data entries plot measured samples instead of sampling a function.
+         * Their function interpolates the data and their range spans it, but
+         * neither decides what is drawn: the renderer is handed decimated
+         * views of the data, however many samples it holds.
+         */
+        public boolean isDataBacked () {
+            return data != null;
+        }
+
+        public ISampleView getData () {
+            return data;
+        }
+
+        /* +--- SNAPSHOT ---+ */
+
+        /* Returns the entry as it stands, as an immutable spec. */
+        public FunctionSpec snapshot () {
+            return new FunctionSpec (getFunction (), getName (), inputUnits, outputUnits, getStart (), getStep (), getEnd ())
+                .withSamplingMode (getSamplingMode ())
+                .withPrecision (getPrecision ())
+                .withMaxSamples (getMaxSamples ())
+                .withPure (isPure ());
+        }
+
         /* +--- DISPOSE ---+ s*/
         public void dispose () {
             function.removeListener (onFunctionChanged);
             start.removeListener (onRangeChanged);
             step.removeListener (onRangeChanged);
             end.removeListener (onRangeChanged);
-        }
-
-        /* +-----------+ */
-        /* | UTILITIES | */
-        /* +-----------+ */
-        private static void validateRange (
-            double pStart,
-            double pStep,
-            double pEnd) throws RuntimeException
-        {
-            if (Math.abs (pStep) < STEP_EPSILON)
-                throw new RuntimeException ("step is too small (under " + STEP_EPSILON + ")");
-            if (Math.signum (pEnd - pStart) != Math.signum (pStep))
-                throw new RuntimeException ("step is heading out of interval bounds");
+            samplingMode.removeListener (onSamplingModeChanged);
+            maxSamples.removeListener (onRangeChanged);
+            precision.removeListener (onPrecisionChanged);
         }
     }
 
@@ -422,6 +371,15 @@ public class SampledRangeGraph extends Region {
             void onEntryRemoved (FunctionData source, FunctionEntry removed);
         }
 
+        /* Told once per change of the entries, however many it touches; the
+         * removed entries are listed before the added ones are, and an entry
+         * may appear in both when it was moved.
+         */
+        @FunctionalInterface
+        public interface IEntryBatchListener {
+            void onEntriesChanged (FunctionData source, List<FunctionEntry> removed, List<FunctionEntry> added);
+        }
+
         /* +--------------------------+ */
         /* | MEMBERS & INITIALIZATION | */
         /* +--------------------------+ */
@@ -456,18 +414,29 @@ public class SampledRangeGraph extends Region {
         public void removeEntryRemovalListener (IEntryRemovalListener lis)
             { entryRemovalListeners.remove (lis); }
 
+        /* +--- ENTRY BATCH LISTENERS ---+ */
+        private final List<IEntryBatchListener> entryBatchListeners = new ArrayList<> ();
+
+        public void addEntryBatchListener (IEntryBatchListener lis)
+            { if (lis != null) entryBatchListeners.add (lis); }
+        public void removeEntryBatchListener (IEntryBatchListener lis)
+            { entryBatchListeners.remove (lis); }
+
         /* +----------+ */
         /* | HANDLERS | */
         /* +----------+ */
         private final ListChangeListener<FunctionEntry> onEntriesChanged = (change) -> {
+            /* one change may be made of many runs; gather them all first */
+            final List<FunctionEntry>
+                removed = new ArrayList<> (),
+                added = new ArrayList<> ();
             while (change.next ()) {
+                if (change.wasRemoved ())
+                    removed.addAll (change.getRemoved ());
                 if (change.wasAdded ())
-                    change.getAddedSubList ().forEach (i ->
-                        entryAdditionListeners.forEach (j -> j.onEntryAdded (this, i)));
-                else if (change.wasRemoved ())
-                    change.getRemoved ().forEach (i ->
-                        entryRemovalListeners.forEach (j -> j.onEntryRemoved (this, i)));
+                    added.addAll (change.getAddedSubList ());
             }
+            fireEntriesChanged (removed, added);
         };
 
         /* install entries listener */
@@ -480,19 +449,80 @@ public class SampledRangeGraph extends Region {
         /* +-----------+ */
 
         /* +--- CREATE ENTRY ---+ */
-        public void createEntry (
-            FunctionEntry.IRealFunction func,
-            String                      name,
-            IUnit                       inputUnits,
-            IUnit                       outputUnits,
-            double                      start,
-            double                      step,
-            double                      end)
+        public FunctionEntry createEntry (
+            IRealFunction func,
+            String        name,
+            IUnit         inputUnits,
+            IUnit         outputUnits,
+            double        start,
+            double        step,
+            double        end)
         {
             Objects.requireNonNull (func, "a function must be specified");
             Objects.requireNonNull (inputUnits, "the input units must be specified");
             Objects.requireNonNull (outputUnits, "the output units must be specified");
-            entries.add (new FunctionEntry (func, name, inputUnits, outputUnits, start, step, end));
+            final FunctionEntry entry = new FunctionEntry (
+                new FunctionSpec (func, name, inputUnits, outputUnits, start, step, end));
+            entries.add (entry);
+            return entry;
+        }
+
+        /* +--- CREATE DATA ENTRY ---+ */
+
+        /* Creates an entry plotting measured samples, which must be ordered
+         * by x and are only ever read, from any thread.
+         */
+        public FunctionEntry createDataEntry (
+            String      name,
+            IUnit       inputUnits,
+            IUnit       outputUnits,
+            ISampleView data)
+        {
+            Objects.requireNonNull (data, "the data must be specified");
+            if (data.size () < 2)
+                throw new RuntimeException ("data entries need at least two samples");
+            final double
+                start = data.getX (0),
+                end = data.getX (data.size () - 1);
+            if (!(end > start))
+                throw new RuntimeException ("the data must span a range of x");
+
+            final IRealFunction interpolation = x -> SampleUtils.interpolate (data, x);
+            final FunctionEntry entry = new FunctionEntry (
+                new FunctionSpec (interpolation, name, inputUnits, outputUnits, start, end - start, end).withPure (true),
+                data);
+            entries.add (entry);
+            return entry;
+        }
+
+        /* +--- CREATE ENTRIES ---+ */
+
+        /* Creates an entry per spec and adds them all as one change, in
+         * order. Returns the new entries.
+         */
+        public List<FunctionEntry> createEntries (Collection<FunctionSpec> specs) {
+            final List<FunctionEntry> created = create (specs);
+            entries.addAll (created);
+            return created;
+        }
+
+        /* +--- REMOVE ENTRIES ---+ */
+
+        /* Removes every given entry in one change; unknown ones are ignored. */
+        public void removeEntries (Collection<FunctionEntry> removed) {
+            Objects.requireNonNull (removed, "the entries to remove must be specified");
+            entries.removeAll (new HashSet<> (removed));
+        }
+
+        /* +--- REPLACE ENTRIES ---+ */
+
+        /* Replaces every entry with one per spec, in one change.
+         * Returns the new entries.
+         */
+        public List<FunctionEntry> replaceAll (Collection<FunctionSpec> specs) {
+            final List<FunctionEntry> created = create (specs);
+            entries.setAll (created);
+            return created;
         }
 
         /* +--- CLEAR ENTRIES ---+ */
@@ -503,10 +533,34 @@ public class SampledRangeGraph extends Region {
         /* +--- DISPOSING ---+ */
         public void dispose () {
             entries.removeListener (onEntriesChanged);
-            entries.forEach (i ->
-                entryRemovalListeners.forEach (j -> j.onEntryRemoved (this, i)));
+            fireEntriesChanged (new ArrayList<> (entries), List.of ());
             entries.clear ();
         }
+
+        /* +----------+ */
+        /* | INTERNAL | */
+        /* +----------+ */
+        private static List<FunctionEntry> create (Collection<FunctionSpec> specs) {
+            Objects.requireNonNull (specs, "the specs must be specified");
+            final List<FunctionEntry> created = new ArrayList<> (specs.size ());
+            for (FunctionSpec spec : specs)
+                created.add (new FunctionEntry (Objects.requireNonNull (spec, "a spec cannot be null")));
+            return created;
+        }
+
+        /* single entry listeners hear of each entry, batch listeners of all */
+        private void fireEntriesChanged (List<FunctionEntry> removed, List<FunctionEntry> added) {
+            if (removed.isEmpty () && added.isEmpty ())
+                return;
+            removed.forEach (i ->
+                entryRemovalListeners.forEach (j -> j.onEntryRemoved (this, i)));
+            added.forEach (i ->
+                entryAdditionListeners.forEach (j -> j.onEntryAdded (this, i)));
+            final List<FunctionEntry>
+                removedView = Collections.unmodifiableList (removed),
+                addedView = Collections.unmodifiableList (added);
+            entryBatchListeners.forEach (i -> i.onEntriesChanged (this, removedView, addedView));
+        }
     }
 
 
@@ -528,13 +582,43 @@ public class SampledRangeGraph extends Region {
     /* | MEMBERS & INITIALIZATION | */
     /* +--------------------------+ */
 
-    /* constants */
-    private static final int MAX_SAMPLES = 4096;
-
-    /* plot data */
+    /* constants; details span a few screens at most, so the default cap
+     * always holds them */
+    private static final int MAX_DETAIL_SAMPLES = FunctionSpec.DEFAULT_MAX_SAMPLES;
+
+    /* pixel columns the overview of a data entry is decimated to, plenty for
+     * any screen until the view is zoomed in */
+    private static final int DATA_OVERVIEW_COLUMNS = 1 << 14;
+
+    /* plot area assumed for adaptive sampling before the renderer is laid out */
+    private static final double
+        FALLBACK_PLOT_WIDTH  = 1024d,
+        FALLBACK_PLOT_HEIGHT = 768d;
+
+    /* a zoomed-in window is sampled this many times per pixel, reaching this
+     * fraction of the window past either edge so that small pans are still
+     * covered */
+    private static final double
+        DETAIL_SAMPLES_PER_PIXEL = 2d,
+        DETAIL_MARGIN            = 0.5d;
+
+    /* plot data; overviews are sampled under their entry, details under
+     * their series, so the two never cancel one another */
+    private final SamplingEngine<Object> sampler = new SamplingEngine<> (Platform::runLater);
+    private final FunctionSampler functionSampler = new FunctionSampler ();
     private final FunctionData data = new FunctionData ();
-    private final Map<FunctionEntry, SeriesWrapper> entryToSeries = new HashMap<> ();
-    private final ObservableList<Series<Number, Number>> plots = FXCollections.observableArrayList ();
+    private final Map<FunctionEntry, PlotSeries> entryToSeries = new LinkedHashMap<> ();
+
+    /* changes waiting for the next layout pass */
+    private final Set<FunctionEntry> dirtyEntries = new LinkedHashSet<> ();
+    private boolean scalesDirty = false;
+    private boolean viewDirty = false;
+
+    /* the visible window last reported by the renderer, in display units */
+    private boolean viewFitted = true;
+    private double
+        viewXMin = 0d,
+        viewXMax = 1d;
 
     private final ObservableList<IUnit>
         supportedInputUnits,
@@ -589,18 +673,14 @@ public class SampledRangeGraph extends Region {
         });
     }
 
+
     /* +------------+ */
     /* | COMPONENTS | */
     /* +------------+ */
 
-    /* Axes */
-    private final NumberAxis
-        x = new NumberAxis (),
-        y = new NumberAxis ();
-
-    /* Main Container & Chart */
+    /* Main Container & Renderer */
     private final GridPane container = new GridPane ();
-    private final LineChart<Number, Number> chart = new LineChart<> (x, y);
+    private IPlotRenderer renderer = new ChartPlotRenderer ();
 
     /* Axis Labels & Controls */
     private final Group
@@ -622,9 +702,6 @@ public class SampledRangeGraph extends Region {
         getStyleClass ().add (ComponentClass.SAMPLED_RANGE_GRAPH);
         getChildren ().add (container);
 
-        /* configure the chart */
-        chart.setData (plots);
-
         /* configure the X/Y labels */
         xLabelContainer.getStyleClass ().add (ComponentClass.AXIS_LABEL_CONTAINER);
         yLabelContainer.getStyleClass ().add (ComponentClass.AXIS_LABEL_CONTAINER);
@@ -650,16 +727,44 @@ public class SampledRangeGraph extends Region {
         /* configure the container & set constraints */
         GridPane.setConstraints (xLabelContainer, 1, 1, 1, 1, HPos.CENTER, VPos.CENTER, Priority.ALWAYS, Priority.NEVER);
         GridPane.setConstraints (yLabelContainer, 0, 0, 1, 1, HPos.CENTER, VPos.CENTER, Priority.NEVER, Priority.ALWAYS);
-        GridPane.setConstraints (chart, 1, 0, 1, 1, HPos.CENTER, VPos.CENTER, Priority.ALWAYS, Priority.ALWAYS);
 
         /* fill the container and add it to the main region */
-        container.getChildren ().addAll (xLabelContainer, yLabelContainer, chart);
+        container.getChildren ().addAll (xLabelContainer, yLabelContainer);
     }
 
     /* +------------+ */
     /* | PROPERTIES | */
     /* +------------+ */
 
+    /* +--- RENDERING ---+ */
+    public enum RenderMode {
+        /* draws through a LineChart, one scene graph node per shown point */
+        CHART,
+
+        /* draws straight into a Canvas; scales to many large series and
+         * shows discontinuities as gaps */
+        CANVAS
+    }
+
+    private final ObjectProperty<RenderMode> renderMode = new SimpleObjectProperty<> (RenderMode.CHART);
+
+    public ReadOnlyObjectProperty<RenderMode> renderModeProperty ()
+        { return renderMode; }
+    public RenderMode getRenderMode ()
+        { return renderMode.get (); }
+    public void setRenderMode (RenderMode nMode)
+        { renderMode.set (Objects.requireNonNull (nMode, "a render mode must be specified")); }
+
+    /* +--- DECIMATION ---+ */
+    private final ObjectProperty<Decimator.Mode> decimationMode = new SimpleObjectProperty<> (Decimator.Mode.MIN_MAX);
+
+    public ReadOnlyObjectProperty<Decimator.Mode> decimationModeProperty ()
+        { return decimationMode; }
+    public Decimator.Mode getDecimationMode ()
+        { return decimationMode.get (); }
+    public void setDecimationMode (Decimator.Mode nMode)
+        { decimationMode.set (Objects.requireNonNull (nMode, "a decimation mode must be specified")); }
+
     /* +--- UNITS ---+ */
     private final ObjectProperty<IUnit>
         inputUnits = xLabelUnitsBox.valueProperty (),
@@ -691,44 +796,92 @@ public class SampledRangeGraph extends Region {
     private final ChangeListener<Number> onRegionHeightChanged = (__obs, __old, now) ->
         container.setPrefHeight (now == null ? Double.NaN : now.doubleValue ());
 
-    /* function entry listeners */
+    /* rendering */
+    private final ChangeListener<RenderMode> onRenderModeChanged = (__obs, __old, __now) -> {
+        container.getChildren ().remove (renderer.getNode ());
+        renderer.dispose ();
+        renderer = createRenderer (getRenderMode ());
+        attachRenderer ();
+
+        /* a new renderer starts out fitting the data */
+        viewFitted = true;
+        markViewDirty ();
+    };
+
+    private final IPlotRenderer.IViewListener onViewChanged = (fitted, xMin, xMax) -> {
+        viewFitted = fitted;
+        viewXMin = xMin;
+        viewXMax = xMax;
+        markViewDirty ();
+    };
+
+    private final ChangeListener<Decimator.Mode> onDecimationModeChanged = (__obs, __old, now) ->
+        renderer.setDecimationMode (now);
+
+    /* function entry listeners; edits only mark the entry, so any number of
+     * them within a pulse cost a single sampling pass */
     private final FunctionEntry.IFunctionChangeListener onFunctionChanged =
-        this::plotWithCurrentUnits;
+        this::markDirty;
 
     private final FunctionEntry.IRangeChangeListener onRangeChanged =
-        this::plotWithCurrentUnits;
+        this::markDirty;
+
+    /* a whole batch of entries costs one update of the renderer's series */
+    private final FunctionData.IEntryBatchListener onEntriesChanged = (__data, removed, added) -> {
+        /* entries should never be null */
+        added.forEach (this::validate);
+
+        final List<PlotSeries> removedSeries = new ArrayList<> (removed.size ());
+        for (FunctionEntry entry : removed) {
+            entry.removeFunctionListener (onFunctionChanged);
+            entry.removeRangeListener (onRangeChanged);
+            final PlotSeries series = destroy (entry);
+            if (series != null)
+                removedSeries.add (series);
+        }
 
-    private final FunctionData.IEntryAdditionListener onEntryAdded = (__data, entry) -> {
-        /* entry should never be null */
-        entry.addFunctionListener (onFunctionChanged);
-        entry.addRangeListener (onRangeChanged);
-        plotWithCurrentUnits (entry);
-    };
+        final List<PlotSeries> addedSeries = new ArrayList<> (added.size ());
+        for (FunctionEntry entry : added) {
+            final PlotSeries series = track (entry);
+            if (series != null)
+                addedSeries.add (series);
+            entry.addFunctionListener (onFunctionChanged);
+            entry.addRangeListener (onRangeChanged);
+            markDirty (entry);
+        }
 
-    private final FunctionData.IEntryRemovalListener onEntryRemoved = (__data, entry) -> {
-        /* entry should never be null */
-        entry.removeFunctionListener (onFunctionChanged);
-        entry.removeRangeListener (onRangeChanged);
-        destroy (entry);
+        renderer.replaceSeries (removedSeries, addedSeries);
     };
 
-    /* units listeners */
-    private final ChangeListener<IUnit> onInputUnitsChanged = (__obs, __old, __now) ->
-        data.getImmutableEntries ().forEach (this::plotWithCurrentUnits);
+    /* units listeners; samples are kept in each entry's own units, so
+     * switching the displayed units only rescales them, and no function is
+     * evaluated again */
+    private final ChangeListener<IUnit> onInputUnitsChanged = (__obs, old, now) -> {
+        if (old != null && now != null)
+            renderer.rescaleView (now.planFrom (old).getScale (), 1d);
+        markScalesDirty ();
+    };
 
-    private final ChangeListener<IUnit> onOutputUnitsChanged = (__obs, __old, __now) ->
-        data.getImmutableEntries ().forEach (this::plotWithCurrentUnits);
+    private final ChangeListener<IUnit> onOutputUnitsChanged = (__obs, old, now) -> {
+        if (old != null && now != null)
+            renderer.rescaleView (1d, now.planFrom (old).getScale ());
+        markScalesDirty ();
+    };
 
     /* install handlers */
     {
         widthProperty ().addListener (onRegionWidthChanged);
         heightProperty ().addListener (onRegionHeightChanged);
 
-        data.addEntryAdditionListener (onEntryAdded);
-        data.addEntryRemovalListener (onEntryRemoved);
+        renderMode.addListener (onRenderModeChanged);
+        decimationMode.addListener (onDecimationModeChanged);
+
+        data.addEntryBatchListener (onEntriesChanged);
 
         inputUnits.addListener (onInputUnitsChanged);
         outputUnits.addListener (onOutputUnitsChanged);
+
+        attachRenderer ();
     }
 
     /* +-----------+ */
@@ -746,18 +899,120 @@ public class SampledRangeGraph extends Region {
         yLabel.setText (text);
     }
 
+    /* +--- SAMPLING FAILURES ---+ */
+
+    /* Told on the FX thread when sampling an entry fails, for example when
+     * its grid does not fit in memory. The entry keeps showing what it
+     * showed before, if anything.
+     */
+    @FunctionalInterface
+    public interface ISamplingFailureListener {
+        void onSamplingFailed (FunctionEntry entry, Throwable error);
+    }
+
+    private final List<ISamplingFailureListener> samplingFailureListeners = new ArrayList<> ();
+
+    public void addSamplingFailureListener (ISamplingFailureListener lis)
+        { if (lis != null) samplingFailureListeners.add (lis); }
+    public void removeSamplingFailureListener (ISamplingFailureListener lis)
+        { samplingFailureListeners.remove (lis); }
+
+    /* +--- EXPORT ---+ */
+
+    /* Writes every plotted entry, in plot order, to a file on a background
+     * thread. Entries are exported at the full resolution they were sampled
+     * at, and data entries with all of their data, in their own units, not
+     * as the decimated points on screen; an entry still being sampled is
+     * exported as it was last drawn. The future completes once the file is
+     * written.
+     */
+    public CompletableFuture<Void> export (Path path, SeriesExporter.Format format) {
+        Objects.requireNonNull (path, "a path must be specified");
+        Objects.requireNonNull (format, "a format must be specified");
+
+        /* published samples are never written to again, so the worker can
+         * read them while the plot keeps changing */
+        final List<SeriesExporter.Series> series = new ArrayList<> (entryToSeries.size ());
+        for (FunctionEntry entry : entryToSeries.keySet ())
+            series.add (new SeriesExporter.Series (entry.getName (), entry.getInputUnits (), entry.getOutputUnits (),
+                entry.isDataBacked () ? entry.getData () : entry.samples));
+
+        return CompletableFuture.runAsync (() -> {
+            try {
+                SeriesExporter.write (path, format, series);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException (e);
+            }
+        });
+    }
+
+    /* +--- STREAMING ---+ */
+
+    /* Returns a stream of one sampling pass of a plotted entry, as it is
+     * now, so that exporters and statistics can share the evaluation with
+     * the plot. Subscribe to it, then start it; once the pass completes the
+     * plot takes its samples too, unless the entry was edited meanwhile.
+     */
+    public SampleStream stream (FunctionEntry entry) {
+        Objects.requireNonNull (entry, "an entry must be specified");
+        if (!entryToSeries.containsKey (entry))
+            throw new RuntimeException ("cannot stream an entry that is not plotted");
+        if (entry.isDataBacked ())
+            throw new RuntimeException ("data entries are not sampled; read their data instead");
+
+        final FunctionSpec spec = entry.snapshot ();
+        final double
+            width = renderer.getPlotWidth () > 0d ? renderer.getPlotWidth () : FALLBACK_PLOT_WIDTH,
+            height = renderer.getPlotHeight () > 0d ? renderer.getPlotHeight () : FALLBACK_PLOT_HEIGHT;
+        final SampleStream stream = new SampleStream (functionSampler, spec, width, height);
+        final SampleCollector plot = new SampleCollector ();
+        stream.subscribe (plot);
+        plot.getResult ().thenAccept (buffer ->
+            Platform.runLater (() -> adoptStreamed (entry, spec, buffer)));
+        return stream;
+    }
+
+    /* +--------+ */
+    /* | LAYOUT | */
+    /* +--------+ */
+    @Override
+    protected void layoutChildren () {
+        super.layoutChildren ();
+        flush ();
+    }
+
     /* +----------+ */
     /* | INTERNAL | */
     /* +----------+ */
-    private void plotWithCurrentUnits (FunctionEntry entry) {
-        plot (entry, getInputUnits (), getOutputUnits ());
+    private static IPlotRenderer createRenderer (RenderMode mode) {
+        switch (mode) {
+            case CANVAS:
+                return new CanvasPlotRenderer ();
+            case CHART:
+            default:
+                return new ChartPlotRenderer ();
+        }
+    }
+
+    /* places the current renderer in the plot cell and hands it every series */
+    private void attachRenderer () {
+        final Node node = renderer.getNode ();
+        GridPane.setConstraints (node, 1, 0, 1, 1, HPos.CENTER, VPos.CENTER, Priority.ALWAYS, Priority.ALWAYS);
+        container.getChildren ().add (node);
+        renderer.setDecimationMode (getDecimationMode ());
+        renderer.setViewListener (onViewChanged);
+        renderer.replaceSeries (List.of (), new ArrayList<> (entryToSeries.values ()));
     }
 
-    private void plot (FunctionEntry entry, IUnit inputUnits, IUnit outputUnits) {
+    /* Checks that a newly added entry can be plotted; a batch is validated
+     * in full before any of it is tracked.
+     */
+    private void validate (FunctionEntry entry) {
         /* parameter validation */
         Objects.requireNonNull (entry, "Cannot plot a null entry");
-        Objects.requireNonNull (inputUnits, "input units cannot be null");
-        Objects.requireNonNull (outputUnits, "output units cannot be null");
+        Objects.requireNonNull (getInputUnits (), "input units cannot be null");
+        Objects.requireNonNull (getOutputUnits (), "output units cannot be null");
 
         /* verify that the entry's input/output units can be converted to supported ones */
         for (IUnit in : supportedInputUnits)
@@ -767,57 +1022,282 @@ public class SampledRangeGraph extends Region {
         for (IUnit out : supportedOutputUnits)
             if (!out.isConvertibleFrom (entry.getOutputUnits ()))
                 throw new RuntimeException ("cannot plot an entry with unsupported output units");
+    }
+
+    /* Gives a newly added entry its series right away, so plots keep their
+     * entry order. Returns the new series for the renderer, or null if the
+     * entry already had one.
+     */
+    private PlotSeries track (FunctionEntry entry) {
+        if (entryToSeries.containsKey (entry))
+            return null;
+        final PlotSeries series = new PlotSeries (entry);
+        entryToSeries.put (entry, series);
+        return series;
+    }
+
+    /* +--- COALESCING ---+ */
+    private void markDirty (FunctionEntry entry) {
+        if (dirtyEntries.add (entry))
+            requestLayout ();
+    }
 
-        /* series lookup/creation */
-        SeriesWrapper wrapper = entryToSeries.get (entry);
-        if (wrapper == null) { /* new plot */
-            wrapper = new SeriesWrapper ();
-            wrapper.getSeries ().nameProperty ().bind (entry.nameProperty ());
-            entryToSeries.put (entry, wrapper);
-            plots.add (wrapper.getSeries ());
+    private void markScalesDirty () {
+        if (!scalesDirty) {
+            scalesDirty = true;
+            requestLayout ();
         }
+    }
 
-        /* entry data queries & range validation */
-        final FunctionEntry.IRealFunction func = entry.getFunction ();
-        final IUnit
-            entryInputUnits = entry.getInputUnits (),
-            entryOutputUnits = entry.getOutputUnits ();
+    private void markViewDirty () {
+        if (!viewDirty) {
+            viewDirty = true;
+            requestLayout ();
+        }
+    }
+
+    /* Applies everything marked since the last pulse, reading each entry's
+     * state only now, once all of its edits have landed.
+     */
+    private void flush () {
+        if (scalesDirty) {
+            scalesDirty = false;
+            rescaleAll ();
+        }
+        if (!dirtyEntries.isEmpty ()) {
+            final List<FunctionEntry> pending = new ArrayList<> (dirtyEntries);
+            dirtyEntries.clear ();
+            pending.forEach (this::resample);
+        }
+        if (viewDirty) {
+            viewDirty = false;
+            entryToSeries.values ().forEach (this::refreshDetail);
+        }
+    }
+
+    /* +--- SAMPLING ---+ */
+    private void samplingFailed (FunctionEntry entry, Throwable error) {
+        if (samplingFailureListeners.isEmpty ())
+            error.printStackTrace ();
+        else
+            samplingFailureListeners.forEach (i -> i.onSamplingFailed (entry, error));
+    }
+
+    private void resample (FunctionEntry entry) {
+        if (!entryToSeries.containsKey (entry))
+            return;
+
+        /* data is never sampled, only decimated to what a screen can show */
+        if (entry.isDataBacked ()) {
+            final ISampleView data = entry.getData ();
+            sampler.cancel (entryToSeries.get (entry));
+            sampler.submit (entry, () ->
+                decimate (data, data.getX (0), data.getX (data.size () - 1), DATA_OVERVIEW_COLUMNS),
+            (buffer) -> {
+                entry.samples = buffer;
+                entry.sampledFunction = null;
+                entry.sampledPrecision = null;
+                present (entry);
+            },
+            (error) -> samplingFailed (entry, error));
+            return;
+        }
+
+        /* snapshot the entry on the FX thread, then sample in the background */
+        final FunctionSpec spec = entry.snapshot ();
         final double
-            start = entry.getStart (),
-            step = entry.getStep (),
-            end = entry.getEnd ();
-        final double span = end - start;
-        final double ratio = Math.abs (span / step);
-        int samples = Math.min (
-            (int) Math.ceil (ratio) + 1,
-            MAX_SAMPLES
-        );
-        final double realstep = samples < MAX_SAMPLES ? step : span / MAX_SAMPLES;
-
-        /* creating plot data */
-        final List<XYChart.Data<Number, Number>> buffer = new ArrayList<> (samples);
-        for (int i = 0; i < samples; ++i) {
-            final double x = i + 1 == samples ? end : start + i * realstep;
-            final double y = func.eval (x);
-            if (Double.isNaN (y))
-                continue;
-            final double realX = getInputUnits ().convertFrom (entryInputUnits, x);
-            final double realY = getOutputUnits ().convertFrom (entryOutputUnits, y);
-            buffer.add (new XYChart.Data<> (realX, realY));
-        }
-
-        /* submitting plot data */
-        wrapper.getSeries ().getData ().clear ();
-        wrapper.getSeries ().getData ().addAll (buffer);
-    }
-
-    private void destroy (FunctionEntry entry) {
-        Objects.requireNonNull (entry, "Cannot destroy a null entry");
-        SeriesWrapper removed = entryToSeries.remove (entry);
-        if (removed != null) {
-            removed.getSeries ().nameProperty ().unbind ();
-            removed.getSeries ().getData ().clear ();
-            plots.remove (removed.getSeries ());
+            width = renderer.getPlotWidth () > 0d ? renderer.getPlotWidth () : FALLBACK_PLOT_WIDTH,
+            height = renderer.getPlotHeight () > 0d ? renderer.getPlotHeight () : FALLBACK_PLOT_HEIGHT;
+
+        /* a uniform grid keeping its function and step only moved its ends,
+         * so just the new head and tail need evaluating; published buffers
+         * are never written to again, so the old one can be read freely */
+        final SampleBuffer previous = entry.samples;
+        final double previousStart = entry.sampledStart;
+        final boolean extend =
+            spec.getSamplingMode () == SamplingMode.UNIFORM && spec.isFullStep () &&
+            entry.sampledFunction == spec.getFunction () &&
+            entry.sampledPrecision == spec.getPrecision () &&
+            entry.sampledStep == spec.getStep ();
+
+        /* a detail still being taken of the old function must never land */
+        sampler.cancel (entryToSeries.get (entry));
+
+        sampler.submit (entry, () -> extend ?
+            functionSampler.extend (spec, previous, previousStart) :
+            functionSampler.sample (spec, width, height),
+        (buffer) -> adopt (entry, spec, buffer),
+        (error) -> samplingFailed (entry, error));
+    }
+
+    /* Runs on a worker thread. Keeps the extremes of every column of the
+     * data within [from, to], plus the samples just outside so the curve
+     * still reaches the window's edges.
+     */
+    private static SampleBuffer decimate (ISampleView data, double from, double to, int columns) {
+        final int
+            first = Math.max (0, SampleUtils.lowerBound (data, from) - 1),
+            last = Math.min (data.size (), SampleUtils.upperBound (data, to) + 1);
+        final SampleBuffer buffer = new SampleBuffer (Math.min (last - first, 2 * columns + 4));
+        Decimator.minMax (data, first, last, from, to, Math.max (1, columns), buffer);
+        return buffer;
+    }
+
+    /* takes the samples of a spec as the entry's overview */
+    private void adopt (FunctionEntry entry, FunctionSpec spec, SampleBuffer buffer) {
+        entry.samples = buffer;
+        entry.sampledFunction =
+            spec.getSamplingMode () == SamplingMode.UNIFORM && spec.isFullStep () ? spec.getFunction () : null;
+        entry.sampledPrecision = spec.getPrecision ();
+        entry.sampledStart = spec.getStart ();
+        entry.sampledStep = spec.getStep ();
+        present (entry);
+    }
+
+    /* A streamed pass replaces the overview only if the entry was not edited
+     * meanwhile; a resampling still running for the same spec is dropped.
+     */
+    private void adoptStreamed (FunctionEntry entry, FunctionSpec spec, SampleBuffer buffer) {
+        if (!entryToSeries.containsKey (entry) || dirtyEntries.contains (entry) || !spec.samplesLike (entry.snapshot ()))
+            return;
+        sampler.cancel (entry);
+        adopt (entry, spec, buffer);
+    }
+
+    private void present (FunctionEntry entry) {
+        final PlotSeries series = entryToSeries.get (entry);
+        if (series == null)
+            return;
+
+        /* samples stay in the entry's own units, the renderer scales them;
+         * a new overview drops the detail of the old one */
+        series.setSamples (entry.samples);
+        entry.detailStart = entry.detailEnd = entry.detailStep = Double.NaN;
+        if (applyScales (series))
+            renderer.updateSeries (series);
+        refreshDetail (series);
+    }
+
+    /* +--- DETAIL ---+ */
+
+    /* Makes sure the series is drawn at screen resolution across the visible
+     * window. The overview covers the whole range at a bounded density; once
+     * the window is zoomed in past it, only the window (plus a margin) is
+     * sampled again, at a density set by the pixels it spans, so however deep
+     * the zoom the full range is never sampled that finely.
+     */
+    private void refreshDetail (PlotSeries series) {
+        final FunctionEntry entry = series.getEntry ();
+        final ISampleView overview = entry.samples;
+        final double pixels = renderer.getPlotWidth ();
+
+        /* a new overview is on its way and refreshes the detail once it lands */
+        if (sampler.isBusy (entry))
+            return;
+        if (viewFitted || !(pixels > 0d) || overview.size () < 2) {
+            dropDetail (series);
+            return;
+        }
+
+        /* the visible part of the entry's range, in the entry's own units */
+        final double
+            span = (viewXMax - viewXMin) / series.getXScale (),
+            lo = Math.max (viewXMin / series.getXScale (), overview.getX (0)),
+            hi = Math.min (viewXMax / series.getXScale (), overview.getX (overview.size () - 1));
+        if (!(lo < hi)) {
+            dropDetail (series);
+            return;
+        }
+
+        /* the overview does while it has a sample for every pixel, and a
+         * uniform overview that was not capped already holds every point of
+         * the requested grid */
+        if (SampleUtils.upperBound (overview, hi) - SampleUtils.lowerBound (overview, lo) >= pixels ||
+            entry.sampledFunction != null) {
+            dropDetail (series);
+            return;
         }
+
+        /* uniform entries are never sampled finer than the step asked for */
+        final FunctionSpec spec = entry.snapshot ();
+        final double step = spec.getSamplingMode () == SamplingMode.UNIFORM && !entry.isDataBacked () ?
+            Math.max (span / (pixels * DETAIL_SAMPLES_PER_PIXEL), Math.abs (entry.getStep ())) :
+            span / (pixels * DETAIL_SAMPLES_PER_PIXEL);
+
+        /* the detail shown, or on its way, still covers the window finely enough */
+        if ((series.hasDetail () || sampler.isBusy (series)) &&
+            entry.detailStart <= lo && entry.detailEnd >= hi && entry.detailStep <= step * (1d + 1e-9d))
+            return;
+
+        final double
+            from = Math.max (overview.getX (0), lo - span * DETAIL_MARGIN),
+            to = Math.min (overview.getX (overview.size () - 1), hi + span * DETAIL_MARGIN);
+        final double
+            width = pixels * (to - from) / span,
+            height = renderer.getPlotHeight () > 0d ? renderer.getPlotHeight () : FALLBACK_PLOT_HEIGHT;
+        entry.detailStart = from;
+        entry.detailEnd = to;
+        entry.detailStep = step;
+
+        final ISampleView data = entry.getData ();
+        sampler.submit (series, () -> data != null ?
+            decimate (data, from, to, (int) Math.ceil (width)) :
+            functionSampler.sampleWindow (spec, from, step, to, width, height, MAX_DETAIL_SAMPLES),
+        (buffer) -> {
+            series.setDetail (buffer);
+            renderer.updateSeries (series);
+        },
+        (error) -> {
+            /* the window is not covered after all */
+            entry.detailStart = entry.detailEnd = entry.detailStep = Double.NaN;
+            samplingFailed (entry, error);
+        });
+    }
+
+    private void dropDetail (PlotSeries series) {
+        final FunctionEntry entry = series.getEntry ();
+        sampler.cancel (series);
+        entry.detailStart = entry.detailEnd = entry.detailStep = Double.NaN;
+        if (series.hasDetail ()) {
+            series.setDetail (null);
+            renderer.updateSeries (series);
+        }
+    }
+
+    private void rescaleAll () {
+        for (PlotSeries series : entryToSeries.values ())
+            if (applyScales (series))
+                renderer.updateSeries (series);
+    }
+
+    /* Sets the factors taking the series' samples into the displayed units,
+     * returning false while either displayed unit is unset. Units are linear,
+     * so the scale of their cached conversion plan is the whole conversion.
+     */
+    private boolean applyScales (PlotSeries series) {
+        final IUnit
+            inputUnits = getInputUnits (),
+            outputUnits = getOutputUnits ();
+        if (inputUnits == null || outputUnits == null)
+            return false;
+
+        final FunctionEntry entry = series.getEntry ();
+        series.setScales (
+            inputUnits.planFrom (entry.getInputUnits ()).getScale (),
+            outputUnits.planFrom (entry.getOutputUnits ()).getScale ());
+        return true;
+    }
+
+    /* Stops all work on an entry and forgets its series, which is returned
+     * for the renderer to drop (null if the entry had none).
+     */
+    private PlotSeries destroy (FunctionEntry entry) {
+        Objects.requireNonNull (entry, "Cannot destroy a null entry");
+        sampler.cancel (entry);
+        dirtyEntries.remove (entry);
+        final PlotSeries removed = entryToSeries.remove (entry);
+        if (removed != null)
+            sampler.cancel (removed);
+        return removed;
     }
 }
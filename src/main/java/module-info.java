@@ -1,8 +1,10 @@
 open module io.github.mkmax.opticview {
     requires java.desktop;
 
+    requires io.github.mkmax.opticview.core;
+
     requires javafx.base;
     requires javafx.controls;
     requires javafx.graphics;
     requires javafx.fxml;
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package io.github.mkmax.opticview.scene.graph;
+
+import io.github.mkmax.opticview.model.FunctionSpec;
+import io.github.mkmax.opticview.scene.graph.SampledRangeGraph.FunctionData;
+import io.github.mkmax.opticview.scene.graph.SampledRangeGraph.FunctionEntry;
+import io.github.mkmax.opticview.units.MetricDistance;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FunctionDataTest {
+
+    private static List<FunctionSpec> specs (int count) {
+        final List<FunctionSpec> specs = new ArrayList<> ();
+        for (int i = 0; i < count; ++i)
+            specs.add (new FunctionSpec (Math::sin, "f" + i, MetricDistance.METERS, MetricDistance.METERS, 0d, 1d, 10d));
+        return specs;
+    }
+
+    /* records every batch, and every single entry notification */
+    private static final class Recorder {
+        final List<List<FunctionEntry>>
+            removedBatches = new ArrayList<> (),
+            addedBatches = new ArrayList<> ();
+        final List<FunctionEntry>
+            removed = new ArrayList<> (),
+            added = new ArrayList<> ();
+
+        Recorder (FunctionData data) {
+            data.addEntryBatchListener ((source, r, a) -> {
+                removedBatches.add (List.copyOf (r));
+                addedBatches.add (List.copyOf (a));
+            });
+            data.addEntryRemovalListener ((source, e) -> removed.add (e));
+            data.addEntryAdditionListener ((source, e) -> added.add (e));
+        }
+    }
+
+    @Test
+    public void createEntriesIsOneBatch () {
+        final FunctionData data = new FunctionData ();
+        final Recorder recorder = new Recorder (data);
+        final List<FunctionEntry> created = data.createEntries (specs (100));
+
+        assertEquals (1, recorder.addedBatches.size ());
+        assertEquals (created, recorder.addedBatches.get (0));
+        assertEquals (List.of (), recorder.removedBatches.get (0));
+        assertEquals (created, recorder.added);
+        assertEquals (created, data.getImmutableEntries ());
+        for (int i = 0; i < created.size (); ++i)
+            assertEquals ("f" + i, created.get (i).getName ());
+    }
+
+    @Test
+    public void replaceAllReportsBothLists () {
+        final FunctionData data = new FunctionData ();
+        final List<FunctionEntry> before = data.createEntries (specs (3));
+        final Recorder recorder = new Recorder (data);
+        final List<FunctionEntry> after = data.replaceAll (specs (2));
+
+        assertEquals (1, recorder.addedBatches.size ());
+        assertEquals (before, recorder.removedBatches.get (0));
+        assertEquals (after, recorder.addedBatches.get (0));
+
+        /* single entry listeners still hear of every entry */
+        assertEquals (before, recorder.removed);
+        assertEquals (after, recorder.added);
+        assertEquals (after, data.getImmutableEntries ());
+    }
+
+    @Test
+    public void removeEntriesIgnoresUnknownEntries () {
+        final FunctionData data = new FunctionData ();
+        final List<FunctionEntry> entries = data.createEntries (specs (3));
+        final FunctionEntry foreign = new FunctionData ().createEntries (specs (1)).get (0);
+        final Recorder recorder = new Recorder (data);
+
+        data.removeEntries (List.of (entries.get (0), foreign, entries.get (2)));
+        assertEquals (1, recorder.removedBatches.size ());
+        assertEquals (List.of (entries.get (0), entries.get (2)), recorder.removedBatches.get (0));
+        assertEquals (List.of (entries.get (0), entries.get (2)), recorder.removed);
+        assertEquals (List.of (entries.get (1)), data.getImmutableEntries ());
+
+        /* nothing to remove, nothing to tell */
+        data.removeEntries (List.of (foreign));
+        assertEquals (1, recorder.removedBatches.size ());
+    }
+}